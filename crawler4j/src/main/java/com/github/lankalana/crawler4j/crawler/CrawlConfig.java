@@ -25,6 +25,7 @@ import org.apache.http.impl.conn.SystemDefaultDnsResolver;
 import org.apache.http.message.BasicHeader;
 
 import com.github.lankalana.crawler4j.crawler.authentication.AuthInfo;
+import com.github.lankalana.crawler4j.fetcher.PolitenessScheduler;
 
 public class CrawlConfig {
 
@@ -58,6 +59,23 @@ public class CrawlConfig {
 	/** Politeness delay in milliseconds (delay between sending two requests to the same host). */
 	private int politenessDelay = 200;
 
+	/** Which requests share a politeness delay: those to the same host, registered domain or IP address. */
+	private PolitenessScheduler.Grouping politenessGrouping = PolitenessScheduler.Grouping.HOST;
+
+	/**
+	 * Should the politeness delay of each host adapt to its responses? Starting from {@link #politenessDelay}, the
+	 * request rate of a host grows while its latency stays stable and is halved on 429 and 503 responses, timeouts and
+	 * latency spikes; Retry-After headers are honoured. Fast hosts are then crawled faster, up to
+	 * {@link #maxConnectionsPerHost} requests in flight, and struggling ones are backed off.
+	 */
+	private boolean adaptivePoliteness = false;
+
+	/** The shortest delay, in milliseconds, adaptive politeness lowers the delay of a host to. */
+	private int minAdaptivePolitenessDelay = 20;
+
+	/** The longest delay, in milliseconds, adaptive politeness raises the delay of a host to. */
+	private int maxAdaptivePolitenessDelay = 60_000;
+
 	/** Should we also crawl https pages? */
 	private boolean includeHttpsPages = true;
 
@@ -82,12 +100,29 @@ public class CrawlConfig {
 	/** Max allowed size of a page. Pages larger than this size will not be fetched. */
 	private int maxDownloadSize = 1_048_576;
 
+	/**
+	 * Should the content of pages be read into buffers reused from a pool instead of new arrays? This spares the
+	 * garbage collector the up to {@link #maxDownloadSize} bytes allocated per page, but the content is only
+	 * available while the page is processed: {@link Page#getContentData()} must be called in visit() to keep it, and
+	 * the HTML of {@link com.github.lankalana.crawler4j.parser.HtmlParseData} must be read there too.
+	 */
+	private boolean poolContentBuffers = false;
+
+	/**
+	 * The number of bytes of a page held in memory. The content of larger pages is written to a temporary file in the
+	 * 'spool' folder of the crawl storage folder instead, and mapped into memory or streamed when it is read, so that
+	 * large documents and media can be crawled with a bounded heap. As with pooled buffers, the content is only
+	 * available while the page is processed, and so is the HTML of {@link
+	 * com.github.lankalana.crawler4j.parser.HtmlParseData} unless it was read there. 0 keeps all content in memory.
+	 */
+	private int contentSpoolThreshold = 0;
+
 	/** Should we follow redirects? */
 	private boolean followRedirects = true;
 
 	/**
-	 * Should the TLD list be updated automatically on each run? Alternatively, it can be loaded from the embedded
-	 * tld-names.zip file that was obtained from https://publicsuffix.org/list/public_suffix_list.dat
+	 * Should the TLD list be updated automatically on each run? Otherwise the copy of
+	 * https://publicsuffix.org/list/public_suffix_list.dat embedded in the public-suffix-list library is used.
 	 */
 	private boolean onlineTldListUpdate = false;
 
@@ -152,8 +187,50 @@ public class CrawlConfig {
 		return dnsResolver;
 	}
 
+	public int getDnsCacheTtl() {
+		return dnsCacheTtl;
+	}
+
+	/** @param dnsCacheTtl The number of milliseconds host addresses are cached for, or 0 to disable the cache */
+	public void setDnsCacheTtl(int dnsCacheTtl) {
+		this.dnsCacheTtl = dnsCacheTtl;
+	}
+
+	public int getDnsNegativeCacheTtl() {
+		return dnsNegativeCacheTtl;
+	}
+
+	/** @param dnsNegativeCacheTtl The number of milliseconds hosts that could not be resolved are cached for */
+	public void setDnsNegativeCacheTtl(int dnsNegativeCacheTtl) {
+		this.dnsNegativeCacheTtl = dnsNegativeCacheTtl;
+	}
+
+	public int getDnsPrefetchThreads() {
+		return dnsPrefetchThreads;
+	}
+
+	/** @param dnsPrefetchThreads The number of threads resolving scheduled hosts ahead of time, or 0 for none */
+	public void setDnsPrefetchThreads(int dnsPrefetchThreads) {
+		this.dnsPrefetchThreads = dnsPrefetchThreads;
+	}
+
 	private DnsResolver dnsResolver = new SystemDefaultDnsResolver();
 
+	/**
+	 * The number of milliseconds the addresses of a host are cached for, in front of the DNS resolver. The JDK
+	 * resolver doesn't expose the TTL of DNS records, so all hosts share this one. 0 disables the cache.
+	 */
+	private int dnsCacheTtl = 0;
+
+	/** The number of milliseconds a host that could not be resolved is cached for, if the DNS cache is enabled. */
+	private int dnsNegativeCacheTtl = 60_000;
+
+	/**
+	 * The number of threads resolving the hosts of URLs in the background as they are scheduled, if the DNS cache is
+	 * enabled, so that crawler threads don't wait for the DNS when they fetch them. 0 disables prefetching.
+	 */
+	private int dnsPrefetchThreads = 0;
+
 	private boolean haltOnError = false;
 
 	private boolean allowSingleLevelDomain = false;
@@ -163,6 +240,51 @@ public class CrawlConfig {
 	 */
 	private int batchReadSize = 50;
 
+	/**
+	 * If true, the crawlers run on virtual threads instead of platform threads, which allows a much larger number of
+	 * crawlers per JVM.
+	 */
+	private boolean useVirtualThreads = false;
+
+	/**
+	 * If true, the frontier keeps one queue per host and hands out URLs of hosts whose politeness delay has passed,
+	 * spread across hosts, instead of strictly following the global priority order.
+	 */
+	private boolean hostPartitionedFrontier = false;
+
+	/**
+	 * If true, the state of a resumable crawl is persisted by a background checkpoint thread instead of on every
+	 * change. After a crash the crawl resumes from the last checkpoint.
+	 */
+	private boolean asyncCheckpointing = false;
+
+	/** Milliseconds between two background checkpoints. 0 disables time based checkpoints. */
+	private int checkpointIntervalMillis = 1000;
+
+	/** Number of changes that trigger a background checkpoint. 0 disables change based checkpoints. */
+	private int checkpointMutationThreshold = 0;
+
+	/** Should checkpoints force the written data to the storage device? */
+	private boolean checkpointFsync = false;
+
+	/**
+	 * If true, a crawl that is not resumable remembers the URLs it has seen by a 64-bit fingerprint instead of the
+	 * whole URL, which takes 16 to 32 bytes per URL instead of a few hundred.
+	 */
+	private boolean fingerprintSeenUrls = false;
+
+	/**
+	 * Number of URLs the crawl is expected to discover, used to size a filter that answers most lookups of unseen URLs
+	 * without probing the docid index. 0 disables the filter.
+	 */
+	private int seenUrlFilterExpectedUrls = 0;
+
+	/**
+	 * Number of outgoing links checked against the seen URLs on disk at once. 0 checks each link against the docid
+	 * index as it is found.
+	 */
+	private int seenUrlBatchSize = 0;
+
 	/**
 	 * Validates the configs specified by this instance.
 	 *
@@ -175,10 +297,39 @@ public class CrawlConfig {
 		if (politenessDelay < 0) {
 			throw new Exception("Invalid value for politeness delay: " + politenessDelay);
 		}
+		if (adaptivePoliteness && (politenessDelay == 0 || minAdaptivePolitenessDelay <= 0
+				|| minAdaptivePolitenessDelay > maxAdaptivePolitenessDelay)) {
+			throw new Exception("Adaptive politeness needs a politeness delay and 0 < min delay <= max delay: "
+					+ minAdaptivePolitenessDelay + ", " + maxAdaptivePolitenessDelay);
+		}
 		if (maxDepthOfCrawling < -1) {
 			throw new Exception(
 					"Maximum crawl depth should be either a positive number or -1 for unlimited depth" + ".");
 		}
+		if (politenessGrouping == null) {
+			throw new Exception("Politeness grouping is not set in the CrawlConfig.");
+		}
+		if (hostPartitionedFrontier && politenessGrouping == PolitenessScheduler.Grouping.IP) {
+			throw new Exception("A host partitioned frontier can't group hosts by IP address.");
+		}
+		if (checkpointIntervalMillis < 0 || checkpointMutationThreshold < 0) {
+			throw new Exception("Checkpoint interval and mutation threshold can't be negative.");
+		}
+		if (seenUrlBatchSize < 0) {
+			throw new Exception("Invalid value for seen URL batch size: " + seenUrlBatchSize);
+		}
+		if (dnsCacheTtl < 0 || dnsNegativeCacheTtl < 0) {
+			throw new Exception("Invalid value for DNS cache TTL: " + dnsCacheTtl + ", " + dnsNegativeCacheTtl);
+		}
+		if (dnsPrefetchThreads < 0) {
+			throw new Exception("Invalid value for DNS prefetch threads: " + dnsPrefetchThreads);
+		}
+		if (contentSpoolThreshold < 0) {
+			throw new Exception("Invalid value for content spool threshold: " + contentSpoolThreshold);
+		}
+		if (seenUrlFilterExpectedUrls < 0) {
+			throw new Exception("Invalid value for seen URL filter expected URLs: " + seenUrlFilterExpectedUrls);
+		}
 		if (maxDepthOfCrawling > Short.MAX_VALUE) {
 			throw new Exception("Maximum value for crawl depth is " + Short.MAX_VALUE);
 		}
@@ -280,6 +431,49 @@ public class CrawlConfig {
 		this.politenessDelay = politenessDelay;
 	}
 
+	public PolitenessScheduler.Grouping getPolitenessGrouping() {
+		return politenessGrouping;
+	}
+
+	/**
+	 * Sets which requests share a politeness delay. Default is {@link PolitenessScheduler.Grouping#HOST}.
+	 *
+	 * @param politenessGrouping how requests are grouped
+	 */
+	public void setPolitenessGrouping(PolitenessScheduler.Grouping politenessGrouping) {
+		this.politenessGrouping = politenessGrouping;
+	}
+
+	public boolean isAdaptivePoliteness() {
+		return adaptivePoliteness;
+	}
+
+	/**
+	 * @param adaptivePoliteness Should the politeness delay of each host adapt to its latency, 429 and 503 responses,
+	 *     timeouts and Retry-After headers?
+	 */
+	public void setAdaptivePoliteness(boolean adaptivePoliteness) {
+		this.adaptivePoliteness = adaptivePoliteness;
+	}
+
+	public int getMinAdaptivePolitenessDelay() {
+		return minAdaptivePolitenessDelay;
+	}
+
+	/** @param minAdaptivePolitenessDelay The shortest delay, in milliseconds, of a host under adaptive politeness */
+	public void setMinAdaptivePolitenessDelay(int minAdaptivePolitenessDelay) {
+		this.minAdaptivePolitenessDelay = minAdaptivePolitenessDelay;
+	}
+
+	public int getMaxAdaptivePolitenessDelay() {
+		return maxAdaptivePolitenessDelay;
+	}
+
+	/** @param maxAdaptivePolitenessDelay The longest delay, in milliseconds, of a host under adaptive politeness */
+	public void setMaxAdaptivePolitenessDelay(int maxAdaptivePolitenessDelay) {
+		this.maxAdaptivePolitenessDelay = maxAdaptivePolitenessDelay;
+	}
+
 	public boolean isIncludeHttpsPages() {
 		return includeHttpsPages;
 	}
@@ -352,6 +546,28 @@ public class CrawlConfig {
 		this.maxDownloadSize = maxDownloadSize;
 	}
 
+	public boolean isPoolContentBuffers() {
+		return poolContentBuffers;
+	}
+
+	/** @param poolContentBuffers Should the content of pages be read into buffers reused from a pool? */
+	public void setPoolContentBuffers(boolean poolContentBuffers) {
+		this.poolContentBuffers = poolContentBuffers;
+	}
+
+	public int getContentSpoolThreshold() {
+		return contentSpoolThreshold;
+	}
+
+	/**
+	 * @param contentSpoolThreshold The number of bytes of a page held in memory, the rest being written to a file, or
+	 *     0 to keep all content in memory. The content of spooled binary pages is not set in their {@link
+	 *     com.github.lankalana.crawler4j.parser.BinaryParseData}, and is read from {@link Page#getContentStream()}.
+	 */
+	public void setContentSpoolThreshold(int contentSpoolThreshold) {
+		this.contentSpoolThreshold = contentSpoolThreshold;
+	}
+
 	public boolean isFollowRedirects() {
 		return followRedirects;
 	}
@@ -375,8 +591,8 @@ public class CrawlConfig {
 	}
 
 	/**
-	 * Should the TLD list be updated automatically on each run? Alternatively, it can be loaded from the embedded
-	 * tld-names.txt resource file that was obtained from https://publicsuffix.org/list/public_suffix_list.dat
+	 * Should the TLD list be updated automatically on each run? Otherwise the copy of
+	 * https://publicsuffix.org/list/public_suffix_list.dat embedded in the public-suffix-list library is used.
 	 */
 	public void setOnlineTldListUpdate(boolean online) {
 		onlineTldListUpdate = online;
@@ -587,6 +803,133 @@ public class CrawlConfig {
 		this.batchReadSize = batchReadSize;
 	}
 
+	public boolean isUseVirtualThreads() {
+		return useVirtualThreads;
+	}
+
+	/**
+	 * Run each crawler on a virtual thread. Crawlers spend most of their time waiting for the network, so with virtual
+	 * threads tens of thousands of them can run in one JVM. Remember to raise
+	 * {@link #setMaxTotalConnections(int)} and {@link #setMaxConnectionsPerHost(int)} accordingly, as the crawlers
+	 * otherwise queue up for the connections of the fetcher. Default is {@code false}.
+	 *
+	 * @param useVirtualThreads {@code true} to run the crawlers on virtual threads
+	 */
+	public void setUseVirtualThreads(boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+	}
+
+	public boolean isHostPartitionedFrontier() {
+		return hostPartitionedFrontier;
+	}
+
+	/**
+	 * Keep one frontier queue per host (or per registered domain, depending on
+	 * {@link #setPolitenessGrouping(PolitenessScheduler.Grouping)}) and only hand out URLs of hosts that may be
+	 * fetched right away. Priority, depth and discovery order still apply within each host. Can't be combined with
+	 * {@link PolitenessScheduler.Grouping#IP}, as the queues would have to resolve every URL they are given. Default is
+	 * {@code false}.
+	 *
+	 * @param hostPartitionedFrontier {@code true} to partition the frontier by host
+	 */
+	public void setHostPartitionedFrontier(boolean hostPartitionedFrontier) {
+		this.hostPartitionedFrontier = hostPartitionedFrontier;
+	}
+
+	public boolean isAsyncCheckpointing() {
+		return asyncCheckpointing;
+	}
+
+	/**
+	 * Persist the state of a resumable crawl in the background instead of on every change. With both
+	 * {@link #setCheckpointIntervalMillis(int)} and {@link #setCheckpointMutationThreshold(int)} set to 0 the state is
+	 * only written on shutdown. Default is {@code false}.
+	 *
+	 * @param asyncCheckpointing {@code true} to checkpoint in the background
+	 */
+	public void setAsyncCheckpointing(boolean asyncCheckpointing) {
+		this.asyncCheckpointing = asyncCheckpointing;
+	}
+
+	public int getCheckpointIntervalMillis() {
+		return checkpointIntervalMillis;
+	}
+
+	/**
+	 * Milliseconds between two background checkpoints, only used with {@link #setAsyncCheckpointing(boolean)}. 0
+	 * disables time based checkpoints.
+	 */
+	public void setCheckpointIntervalMillis(int checkpointIntervalMillis) {
+		this.checkpointIntervalMillis = checkpointIntervalMillis;
+	}
+
+	public int getCheckpointMutationThreshold() {
+		return checkpointMutationThreshold;
+	}
+
+	/**
+	 * Number of changes after which a background checkpoint is taken, only used with
+	 * {@link #setAsyncCheckpointing(boolean)}. 0 disables change based checkpoints.
+	 */
+	public void setCheckpointMutationThreshold(int checkpointMutationThreshold) {
+		this.checkpointMutationThreshold = checkpointMutationThreshold;
+	}
+
+	public boolean isCheckpointFsync() {
+		return checkpointFsync;
+	}
+
+	/** Force the data written by background checkpoints to the storage device. Default is {@code false}. */
+	public void setCheckpointFsync(boolean checkpointFsync) {
+		this.checkpointFsync = checkpointFsync;
+	}
+
+	public boolean isFingerprintSeenUrls() {
+		return fingerprintSeenUrls;
+	}
+
+	/**
+	 * Remember the URLs seen by a crawl that is not resumable by a 64-bit fingerprint of each URL, so that a seen-set
+	 * of 100 million URLs fits in 1.6 to 3.2 GB of heap. Two URLs with the same fingerprint are taken for one, so the
+	 * second is never crawled. The chance of any such collision is about n^2 / 2^65 for n URLs, that is about 3 in
+	 * 10,000 for 100 million URLs. Resumable crawls keep the whole URLs. Default is {@code false}.
+	 */
+	public void setFingerprintSeenUrls(boolean fingerprintSeenUrls) {
+		this.fingerprintSeenUrls = fingerprintSeenUrls;
+	}
+
+	public int getSeenUrlFilterExpectedUrls() {
+		return seenUrlFilterExpectedUrls;
+	}
+
+	/**
+	 * Put a Bloom filter in front of the docid index, sized for a 1% false positive rate at this number of URLs. Most
+	 * outgoing links are then found to be unseen without a probe of the index, which matters most for large or
+	 * resumable crawls. The filter takes about 1.2 bytes per expected URL and is rebuilt from the index when a crawl is
+	 * resumed; its actual false positive rate is reported by {@link
+	 * com.github.lankalana.crawler4j.frontier.DocIDServer#getSeenUrlFilterFalsePositiveRate()}. Default is 0, no
+	 * filter.
+	 */
+	public void setSeenUrlFilterExpectedUrls(int seenUrlFilterExpectedUrls) {
+		this.seenUrlFilterExpectedUrls = seenUrlFilterExpectedUrls;
+	}
+
+	public int getSeenUrlBatchSize() {
+		return seenUrlBatchSize;
+	}
+
+	/**
+	 * Check the outgoing links the crawlers want to schedule against a sorted file of the fingerprints of all the URLs
+	 * seen so far, in batches of this many links, instead of one by one against the docid index. Each batch is one
+	 * sequential pass over the file, so crawls of hundreds of millions of URLs need neither the memory for their seen
+	 * URLs nor random I/O per link. Links are only scheduled once their batch has been checked, or when the crawlers
+	 * run out of URLs. Like {@link #setFingerprintSeenUrls(boolean)}, URLs are told apart by a 64-bit fingerprint.
+	 * Default is 0, no batching.
+	 */
+	public void setSeenUrlBatchSize(int seenUrlBatchSize) {
+		this.seenUrlBatchSize = seenUrlBatchSize;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -603,6 +946,8 @@ public class CrawlConfig {
 		sb.append("Max total connections: " + getMaxTotalConnections() + "\n");
 		sb.append("Max outgoing links to follow: " + getMaxOutgoingLinksToFollow() + "\n");
 		sb.append("Max download size: " + getMaxDownloadSize() + "\n");
+		sb.append("Pool content buffers: " + isPoolContentBuffers() + "\n");
+		sb.append("Content spool threshold: " + getContentSpoolThreshold() + "\n");
 		sb.append("Should follow redirects?: " + isFollowRedirects() + "\n");
 		sb.append("Proxy host: " + getProxyHost() + "\n");
 		sb.append("Proxy port: " + getProxyPort() + "\n");
@@ -616,6 +961,22 @@ public class CrawlConfig {
 		sb.append("Halt on error: " + isHaltOnError() + "\n");
 		sb.append("Allow single level domain:" + isAllowSingleLevelDomain() + "\n");
 		sb.append("Batch read size: " + getBatchReadSize() + "\n");
+		sb.append("Politeness grouping: " + getPolitenessGrouping() + "\n");
+		sb.append("Adaptive politeness: " + isAdaptivePoliteness() + "\n");
+		sb.append("Min adaptive politeness delay: " + getMinAdaptivePolitenessDelay() + "\n");
+		sb.append("Max adaptive politeness delay: " + getMaxAdaptivePolitenessDelay() + "\n");
+		sb.append("DNS cache TTL: " + getDnsCacheTtl() + "\n");
+		sb.append("DNS negative cache TTL: " + getDnsNegativeCacheTtl() + "\n");
+		sb.append("DNS prefetch threads: " + getDnsPrefetchThreads() + "\n");
+		sb.append("Use virtual threads: " + isUseVirtualThreads() + "\n");
+		sb.append("Host partitioned frontier: " + isHostPartitionedFrontier() + "\n");
+		sb.append("Async checkpointing: " + isAsyncCheckpointing() + "\n");
+		sb.append("Checkpoint interval: " + getCheckpointIntervalMillis() + "\n");
+		sb.append("Checkpoint mutation threshold: " + getCheckpointMutationThreshold() + "\n");
+		sb.append("Checkpoint fsync: " + isCheckpointFsync() + "\n");
+		sb.append("Fingerprint seen URLs: " + isFingerprintSeenUrls() + "\n");
+		sb.append("Seen URL filter expected URLs: " + getSeenUrlFilterExpectedUrls() + "\n");
+		sb.append("Seen URL batch size: " + getSeenUrlBatchSize() + "\n");
 		return sb.toString();
 	}
 }
@@ -21,13 +21,17 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.lankalana.crawler4j.fetcher.CachingDnsResolver;
 import com.github.lankalana.crawler4j.fetcher.PageFetcher;
+import com.github.lankalana.crawler4j.frontier.Checkpointer;
 import com.github.lankalana.crawler4j.frontier.DocIDServer;
 import com.github.lankalana.crawler4j.frontier.Frontier;
 import com.github.lankalana.crawler4j.parser.Parser;
 import com.github.lankalana.crawler4j.robotstxt.RobotstxtServer;
+import com.github.lankalana.crawler4j.url.TLDList;
 import com.github.lankalana.crawler4j.url.URLCanonicalizer;
 import com.github.lankalana.crawler4j.url.WebURL;
+import com.github.lankalana.crawler4j.util.BufferPool;
 import com.github.lankalana.crawler4j.util.IO;
 
 /**
@@ -53,7 +57,7 @@ public class CrawlController {
 	protected List<Object> crawlersLocalData = new ArrayList<>();
 
 	/** Is the crawling of this session finished? */
-	protected boolean finished;
+	protected volatile boolean finished;
 
 	private Throwable error;
 
@@ -61,16 +65,23 @@ public class CrawlController {
 	 * Is the crawling session set to 'shutdown'. Crawler threads monitor this flag and when it is set they will no
 	 * longer process new pages.
 	 */
-	protected boolean shuttingDown;
+	protected volatile boolean shuttingDown;
 
 	protected PageFetcher pageFetcher;
 	protected RobotstxtServer robotstxtServer;
 	protected Frontier frontier;
 	protected DocIDServer docIdServer;
+	protected Checkpointer checkpointer;
 
 	protected final Object waitingLock = new Object();
 	protected Parser parser;
 
+	/** The buffers the crawlers read page contents into, if {@link CrawlConfig#isPoolContentBuffers()} is set */
+	protected BufferPool contentBufferPool;
+
+	/** The folder large page contents are spooled to, if {@link CrawlConfig#getContentSpoolThreshold()} is set */
+	protected File contentSpoolFolder;
+
 	public CrawlController(CrawlConfig config, PageFetcher pageFetcher, RobotstxtServer robotstxtServer)
 			throws Exception {
 		this(config, pageFetcher, null, robotstxtServer);
@@ -92,6 +103,7 @@ public class CrawlController {
 		}
 
 		URLCanonicalizer.setHaltOnError(config.isHaltOnError());
+		TLDList.configure(config);
 
 		boolean resumable = config.isResumableCrawling();
 
@@ -109,10 +121,34 @@ public class CrawlController {
 			logger.info("Deleted contents of: " + envHome + " ( as you have configured resumable crawling to false )");
 		}
 
-		docIdServer = new DocIDServer(envHome, config);
-		frontier = new Frontier(envHome, config);
+		if (config.getContentSpoolThreshold() > 0) {
+			contentSpoolFolder = new File(folder, "spool");
+			if (!contentSpoolFolder.exists() && !contentSpoolFolder.mkdir()) {
+				throw new Exception("Failed creating the spool folder: " + contentSpoolFolder.getAbsolutePath());
+			}
+			// Files left by a crawl that didn't finish
+			IO.deleteFolderContents(contentSpoolFolder);
+		}
+
+		if (resumable && config.isAsyncCheckpointing()) {
+			checkpointer = new Checkpointer(config);
+		}
+		docIdServer = new DocIDServer(envHome, config, checkpointer);
+		frontier = new Frontier(envHome, config, checkpointer);
+		if (checkpointer != null) {
+			checkpointer.register(docIdServer);
+			checkpointer.start();
+		}
 
 		this.pageFetcher = pageFetcher;
+		frontier.setPolitenessScheduler(pageFetcher.getPolitenessScheduler());
+		if (pageFetcher.getDnsResolver() instanceof CachingDnsResolver && config.getDnsPrefetchThreads() > 0) {
+			frontier.setDnsPrefetcher((CachingDnsResolver) pageFetcher.getDnsResolver());
+		}
+		if (docIdServer.isBatchingSeenUrls()) {
+			docIdServer.setNewUrlsConsumer(frontier::scheduleAll);
+			frontier.setDocIdServer(docIdServer);
+		}
 		this.parser = parser == null ? new Parser(config) : parser;
 		this.robotstxtServer = robotstxtServer;
 
@@ -120,6 +156,11 @@ public class CrawlController {
 		shuttingDown = false;
 
 		robotstxtServer.setCrawlConfig(config);
+		if (resumable) {
+			robotstxtServer.setStorageFolder(envHome);
+		}
+		// Does nothing unless robots.txt prefetch threads are configured
+		frontier.setRobotstxtPrefetcher(robotstxtServer);
 	}
 
 	public Parser getParser() {
@@ -228,10 +269,14 @@ public class CrawlController {
 			crawlersLocalData.clear();
 			final List<Thread> threads = new ArrayList<>();
 			final List<T> crawlers = new ArrayList<>();
+			if (config.isPoolContentBuffers()) {
+				// Each crawler holds one page at a time, so one free buffer per crawler is enough in all
+				contentBufferPool = new BufferPool(config.getMaxDownloadSize(), numberOfCrawlers);
+			}
 
 			for (int i = 1; i <= numberOfCrawlers; i++) {
 				T crawler = crawlerFactory.newInstance();
-				Thread thread = new Thread(crawler, "Crawler " + i);
+				Thread thread = newCrawlerThread(crawler, "Crawler " + i);
 				crawler.setThread(thread);
 				crawler.init(i, this);
 				thread.start();
@@ -246,91 +291,101 @@ public class CrawlController {
 				@Override
 				public void run() {
 					try {
-						synchronized (waitingLock) {
-							while (true) {
-								sleep(config.getThreadMonitoringDelaySeconds());
-								boolean someoneIsWorking = false;
+						while (true) {
+							sleep(config.getThreadMonitoringDelaySeconds());
+							boolean someoneIsWorking = false;
+							for (int i = 0; i < threads.size(); i++) {
+								Thread thread = threads.get(i);
+								if (!thread.isAlive()) {
+									if (!shuttingDown && !config.isHaltOnError()) {
+										logger.info("Thread {} was dead, I'll recreate it", i);
+										T crawler = crawlerFactory.newInstance();
+										thread = newCrawlerThread(crawler, "Crawler " + (i + 1));
+										threads.remove(i);
+										threads.add(i, thread);
+										crawler.setThread(thread);
+										crawler.init(i + 1, controller);
+										thread.start();
+										crawlers.remove(i);
+										crawlers.add(i, crawler);
+									}
+								} else if (crawlers.get(i).isNotWaitingForNewURLs()) {
+									someoneIsWorking = true;
+								}
+								Throwable t = crawlers.get(i).getError();
+								if (t != null && config.isHaltOnError()) {
+									throw new RuntimeException(
+											"error on thread ["
+													+ threads.get(i).getName() + "]",
+											t);
+								}
+							}
+							boolean shutOnEmpty = config.isShutdownOnEmptyQueue();
+							if (!someoneIsWorking && shutOnEmpty) {
+								// Make sure again that none of the threads
+								// are
+								// alive.
+								logger.info("It looks like no thread is working, waiting for "
+										+ config.getThreadShutdownDelaySeconds()
+										+ " seconds to make sure...");
+								sleep(config.getThreadShutdownDelaySeconds());
+
+								someoneIsWorking = false;
 								for (int i = 0; i < threads.size(); i++) {
 									Thread thread = threads.get(i);
-									if (!thread.isAlive()) {
-										if (!shuttingDown && !config.isHaltOnError()) {
-											logger.info("Thread {} was dead, I'll recreate it", i);
-											T crawler = crawlerFactory.newInstance();
-											thread = new Thread(crawler, "Crawler " + (i + 1));
-											threads.remove(i);
-											threads.add(i, thread);
-											crawler.setThread(thread);
-											crawler.init(i + 1, controller);
-											thread.start();
-											crawlers.remove(i);
-											crawlers.add(i, crawler);
-										}
-									} else if (crawlers.get(i).isNotWaitingForNewURLs()) {
+									if (thread.isAlive() && crawlers.get(i).isNotWaitingForNewURLs()) {
 										someoneIsWorking = true;
 									}
-									Throwable t = crawlers.get(i).getError();
-									if (t != null && config.isHaltOnError()) {
-										throw new RuntimeException(
-												"error on thread ["
-														+ threads.get(i).getName() + "]",
-												t);
-									}
 								}
-								boolean shutOnEmpty = config.isShutdownOnEmptyQueue();
-								if (!someoneIsWorking && shutOnEmpty) {
-									// Make sure again that none of the threads
-									// are
-									// alive.
-									logger.info("It looks like no thread is working, waiting for "
-											+ config.getThreadShutdownDelaySeconds()
-											+ " seconds to make sure...");
-									sleep(config.getThreadShutdownDelaySeconds());
-
-									someoneIsWorking = false;
-									for (int i = 0; i < threads.size(); i++) {
-										Thread thread = threads.get(i);
-										if (thread.isAlive() && crawlers.get(i).isNotWaitingForNewURLs()) {
-											someoneIsWorking = true;
+								if (!someoneIsWorking) {
+									if (!shuttingDown) {
+										long queueLength = frontier.getQueueLength();
+										if (queueLength > 0 || robotstxtServer.getNumberOfPendingFetches() > 0) {
+											// Links parked on a robots.txt being fetched are about to be queued
+											continue;
 										}
-									}
-									if (!someoneIsWorking) {
-										if (!shuttingDown) {
-											long queueLength = frontier.getQueueLength();
-											if (queueLength > 0) {
-												continue;
-											}
-											logger.info("No thread is working and no more URLs are in "
-													+ "queue waiting for another "
-													+ config.getThreadShutdownDelaySeconds()
-													+ " seconds to make sure...");
-											sleep(config.getThreadShutdownDelaySeconds());
-											queueLength = frontier.getQueueLength();
-											if (queueLength > 0) {
-												continue;
-											}
+										if (docIdServer.flushSubmittedUrls() > 0) {
+											// Links buffered for a batched seen check were new
+											continue;
 										}
-
-										logger.info("All of the crawlers are stopped. Finishing the " + "process...");
-										// At this step, frontier notifies the threads that were
-										// waiting for new URLs and they should stop
-										frontier.finish();
-										for (T crawler : crawlers) {
-											crawler.onBeforeExit();
-											crawlersLocalData.add(crawler.getMyLocalData());
+										logger.info("No thread is working and no more URLs are in "
+												+ "queue waiting for another "
+												+ config.getThreadShutdownDelaySeconds()
+												+ " seconds to make sure...");
+										sleep(config.getThreadShutdownDelaySeconds());
+										queueLength = frontier.getQueueLength();
+										if (queueLength > 0 || robotstxtServer.getNumberOfPendingFetches() > 0) {
+											continue;
 										}
+										if (docIdServer.flushSubmittedUrls() > 0) {
+											continue;
+										}
+									}
 
-										logger.info("Waiting for " + config.getCleanupDelaySeconds()
-												+ " seconds before final clean up...");
-										sleep(config.getCleanupDelaySeconds());
+									logger.info("All of the crawlers are stopped. Finishing the " + "process...");
+									// At this step, frontier notifies the threads that were
+									// waiting for new URLs and they should stop
+									frontier.finish();
+									for (T crawler : crawlers) {
+										crawler.onBeforeExit();
+										crawlersLocalData.add(crawler.getMyLocalData());
+									}
 
-										frontier.close();
-										docIdServer.close();
-										pageFetcher.shutDown();
+									logger.info("Waiting for " + config.getCleanupDelaySeconds()
+											+ " seconds before final clean up...");
+									sleep(config.getCleanupDelaySeconds());
 
+									closeCheckpointer();
+									frontier.close();
+									docIdServer.close();
+									pageFetcher.shutDown();
+									robotstxtServer.shutDown();
+
+									synchronized (waitingLock) {
 										finished = true;
 										waitingLock.notifyAll();
-										return;
 									}
+									return;
 								}
 							}
 						}
@@ -339,9 +394,11 @@ public class CrawlController {
 							setError(e);
 							synchronized (waitingLock) {
 								frontier.finish();
+								closeCheckpointer();
 								frontier.close();
 								docIdServer.close();
 								pageFetcher.shutDown();
+								robotstxtServer.shutDown();
 								waitingLock.notifyAll();
 							}
 						} else {
@@ -408,6 +465,17 @@ public class CrawlController {
 		return crawlersLocalData;
 	}
 
+	/**
+	 * Creates the thread that runs {@code crawler}, a virtual thread if {@link CrawlConfig#isUseVirtualThreads()} is
+	 * set. The thread is not started.
+	 */
+	protected Thread newCrawlerThread(WebCrawler crawler, String name) {
+		if (config.isUseVirtualThreads()) {
+			return Thread.ofVirtual().name(name).unstarted(crawler);
+		}
+		return new Thread(crawler, name);
+	}
+
 	protected static void sleep(int seconds) {
 		try {
 			Thread.sleep(seconds * 1000);
@@ -449,8 +517,7 @@ public class CrawlController {
 			logger.error("Invalid seed URL: {}", pageUrl);
 		} else {
 			if (docId < 0) {
-				docId = docIdServer.getDocId(canonicalUrl);
-				if (docId > 0) {
+				if (docIdServer.isSeenBefore(canonicalUrl)) {
 					logger.trace("This URL is already seen.");
 					return;
 				}
@@ -525,6 +592,16 @@ public class CrawlController {
 		this.robotstxtServer = robotstxtServer;
 	}
 
+	/** @return the pool of content buffers, or null if {@link CrawlConfig#isPoolContentBuffers()} isn't set */
+	public BufferPool getContentBufferPool() {
+		return contentBufferPool;
+	}
+
+	/** @return the folder large page contents are spooled to, or null if they are all held in memory */
+	public File getContentSpoolFolder() {
+		return contentSpoolFolder;
+	}
+
 	public Frontier getFrontier() {
 		return frontier;
 	}
@@ -575,9 +652,21 @@ public class CrawlController {
 		logger.info("Shutting down...");
 		this.shuttingDown = true;
 		pageFetcher.shutDown();
+		robotstxtServer.shutDown();
 		frontier.finish();
 	}
 
+	/** Takes the final checkpoint of the crawl state, if it is checkpointed in the background. */
+	protected void closeCheckpointer() {
+		if (checkpointer != null) {
+			try {
+				checkpointer.close();
+			} catch (RuntimeException e) {
+				logger.error("Error while taking the final checkpoint", e);
+			}
+		}
+	}
+
 	public CrawlConfig getConfig() {
 		return config;
 	}
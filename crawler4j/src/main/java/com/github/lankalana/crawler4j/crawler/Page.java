@@ -12,9 +12,22 @@
  */
 package com.github.lankalana.crawler4j.crawler;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
@@ -25,6 +38,7 @@ import org.slf4j.LoggerFactory;
 
 import com.github.lankalana.crawler4j.parser.ParseData;
 import com.github.lankalana.crawler4j.url.WebURL;
+import com.github.lankalana.crawler4j.util.BufferPool;
 
 /**
  * This class contains the data for a fetched and parsed page.
@@ -71,6 +85,30 @@ public class Page {
 	/** Whether the content was truncated because the received data exceeded the imposed maximum */
 	protected boolean truncated = false;
 
+	/** The pool the content is loaded into, if any */
+	private BufferPool bufferPool;
+
+	/** The buffer borrowed from the pool that holds the content, until it is released */
+	private byte[] pooledContent;
+
+	/** The number of bytes of content in the pooled buffer */
+	private int pooledContentLength;
+
+	/** The folder content larger than the spool threshold is written to, if any */
+	private File spoolFolder;
+
+	/** The number of bytes of content held in memory before the rest is spooled to a file */
+	private int spoolThreshold;
+
+	/** The file that holds the content, if it was spooled, until it is released */
+	private File spooledContent;
+
+	/** The number of bytes of content in the spooled file */
+	private long spooledContentLength;
+
+	/** The spooled file mapped into memory, once the content is read as a buffer */
+	private MappedByteBuffer mappedContent;
+
 	public Page(WebURL url) {
 		this.url = url;
 	}
@@ -153,7 +191,145 @@ public class Page {
 			contentCharset = charset.displayName();
 		}
 
-		contentData = toByteArray(entity, maxBytes);
+		releaseContent();
+		contentData = null;
+		if (spoolFolder != null && entity != null && (maxBytes <= 0 || maxBytes > spoolThreshold)) {
+			readOrSpool(entity, maxBytes);
+		} else if (bufferPool != null && entity != null) {
+			readIntoPooledBuffer(entity, maxBytes);
+		} else {
+			contentData = toByteArray(entity, maxBytes);
+		}
+	}
+
+	/** Reads the content straight into a buffer borrowed from the pool, growing it into larger ones as needed. */
+	private void readIntoPooledBuffer(HttpEntity entity, int maxBytes) throws IOException {
+		int limit = (maxBytes > 0) ? maxBytes : Integer.MAX_VALUE - 8;
+		int size = (int) entity.getContentLength();
+		// One byte more than the announced size reaches the end of the stream without growing the buffer
+		byte[] buffer = bufferPool.borrow(Math.min((size > 0) ? size + 1 : BufferPool.MIN_BUFFER_SIZE, limit));
+		int length = 0;
+		try (InputStream is = entity.getContent()) {
+			while (true) {
+				int capacity = Math.min(buffer.length, limit);
+				if (length == capacity) {
+					if (capacity == limit) {
+						truncated = is.read() != -1;
+						break;
+					}
+					byte[] larger = bufferPool.borrow((int) Math.min(2L * capacity, limit));
+					System.arraycopy(buffer, 0, larger, 0, length);
+					bufferPool.release(buffer);
+					buffer = larger;
+					capacity = Math.min(buffer.length, limit);
+				}
+				int read = is.read(buffer, length, capacity - length);
+				if (read == -1) {
+					break;
+				}
+				length += read;
+			}
+		} catch (IOException | RuntimeException e) {
+			bufferPool.release(buffer);
+			throw e;
+		}
+		pooledContent = buffer;
+		pooledContentLength = length;
+	}
+
+	/**
+	 * Reads up to the spool threshold into memory and, if the content goes on, writes it all to a file in the spool
+	 * folder instead, reusing the same buffer to copy the rest.
+	 */
+	private void readOrSpool(HttpEntity entity, int maxBytes) throws IOException {
+		long limit = (maxBytes > 0) ? maxBytes : Long.MAX_VALUE;
+		long size = entity.getContentLength();
+		int headSize = (size >= 0 && size < spoolThreshold) ? (int) size + 1 : spoolThreshold + 1;
+		byte[] head = (bufferPool != null) ? bufferPool.borrow(headSize) : new byte[headSize];
+		boolean pooled = false;
+		try (InputStream is = entity.getContent()) {
+			int length = is.readNBytes(head, 0, Math.min(head.length, spoolThreshold + 1));
+			if (length <= spoolThreshold) {
+				if (bufferPool != null) {
+					pooledContent = head;
+					pooledContentLength = length;
+					pooled = true;
+				} else {
+					contentData = (length == head.length) ? head : Arrays.copyOf(head, length);
+				}
+				return;
+			}
+
+			File file = File.createTempFile("content", ".tmp", spoolFolder);
+			try (OutputStream out = new FileOutputStream(file)) {
+				out.write(head, 0, length);
+				long written = length;
+				int read;
+				while (written < limit
+						&& (read = is.read(head, 0, (int) Math.min(head.length, limit - written))) != -1) {
+					out.write(head, 0, read);
+					written += read;
+				}
+				truncated = written == limit && is.read() != -1;
+				spooledContentLength = written;
+			} catch (IOException | RuntimeException e) {
+				Files.deleteIfExists(file.toPath());
+				throw e;
+			}
+			spooledContent = file;
+		} finally {
+			if (bufferPool != null && !pooled) {
+				bufferPool.release(head);
+			}
+		}
+	}
+
+	/**
+	 * Makes {@link #load(HttpEntity, int)} read the content into buffers borrowed from a pool, until {@link
+	 * #releaseContent()} is called.
+	 *
+	 * @param bufferPool The pool, or null to read the content into an array of its own
+	 */
+	public void setBufferPool(BufferPool bufferPool) {
+		this.bufferPool = bufferPool;
+	}
+
+	/**
+	 * Makes {@link #load(HttpEntity, int)} write content larger than a threshold to a temporary file instead of holding
+	 * it in memory, until {@link #releaseContent()} is called.
+	 *
+	 * @param spoolFolder The folder of the temporary files, or null to hold all content in memory
+	 * @param spoolThreshold The number of bytes of content held in memory
+	 */
+	public void setSpoolFolder(File spoolFolder, int spoolThreshold) {
+		this.spoolFolder = spoolFolder;
+		this.spoolThreshold = spoolThreshold;
+	}
+
+	/**
+	 * Returns the pooled buffer holding the content, if any, to its pool and deletes the spooled file, if any. The
+	 * content stays available afterwards only if {@link #getContentData()} was called before. Views returned by
+	 * {@link #getContentBuffer()} before are invalid afterwards: a pooled buffer is handed to another page, and a
+	 * mapped file may be gone.
+	 */
+	public void releaseContent() {
+		if (pooledContent != null) {
+			bufferPool.release(pooledContent);
+			pooledContent = null;
+			pooledContentLength = 0;
+		}
+		if (spooledContent != null) {
+			mappedContent = null;
+			try {
+				Files.deleteIfExists(spooledContent.toPath());
+			} catch (IOException e) {
+				// A file still mapped can't be deleted on some platforms, so it is left to be deleted on exit
+				logger.warn("Couldn't delete the spooled content {}: {}", spooledContent, e.getMessage());
+				spooledContent.deleteOnExit();
+			}
+			spooledContent = null;
+			spooledContentLength = 0;
+		}
 	}
 
 	public WebURL getWebURL() {
@@ -210,15 +386,97 @@ public class Page {
 		this.parseData = parseData;
 	}
 
-	/** @return content of this page in binary format. */
+	/**
+	 * @return content of this page in binary format. If the content is in a pooled buffer or a spooled file, it is
+	 *     copied into an array of its own on the first call.
+	 */
 	public byte[] getContentData() {
+		if (contentData == null && pooledContent != null) {
+			contentData = Arrays.copyOf(pooledContent, pooledContentLength);
+		} else if (contentData == null && spooledContent != null) {
+			try {
+				contentData = Files.readAllBytes(spooledContent.toPath());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
 		return contentData;
 	}
 
 	public void setContentData(byte[] contentData) {
+		releaseContent();
 		this.contentData = contentData;
 	}
 
+	/**
+	 * @return a read-only view of the content of this page, without copying it, or null if there is no content. A
+	 *     spooled file is mapped into memory. A view of a pooled buffer or a spooled file must not be used after the
+	 *     page is done.
+	 */
+	public ByteBuffer getContentBuffer() {
+		if (pooledContent != null) {
+			return ByteBuffer.wrap(pooledContent, 0, pooledContentLength).slice().asReadOnlyBuffer();
+		}
+		if (spooledContent != null) {
+			if (mappedContent == null) {
+				try (FileChannel channel = FileChannel.open(spooledContent.toPath(), StandardOpenOption.READ)) {
+					mappedContent = channel.map(FileChannel.MapMode.READ_ONLY, 0, spooledContentLength);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return mappedContent.asReadOnlyBuffer();
+		}
+		return (contentData != null) ? ByteBuffer.wrap(contentData).asReadOnlyBuffer() : null;
+	}
+
+	/**
+	 * @return a stream over the content of this page, without copying it, or null if there is no content. A stream
+	 *     over a pooled buffer or a spooled file must not be read after the page is done.
+	 */
+	public InputStream getContentStream() {
+		if (pooledContent != null) {
+			return new ByteArrayInputStream(pooledContent, 0, pooledContentLength);
+		}
+		if (spooledContent != null) {
+			return Channels.newInputStream(getContentChannel());
+		}
+		return (contentData != null) ? new ByteArrayInputStream(contentData) : null;
+	}
+
+	/**
+	 * @return a channel over the content of this page, or null if there is no content. The channel of a spooled file
+	 *     is a {@link FileChannel}, whose transferTo() writes the content to storage without copying it through the
+	 *     heap. It must be closed, and not be read after the page is done.
+	 */
+	public ReadableByteChannel getContentChannel() {
+		if (spooledContent != null) {
+			try {
+				return FileChannel.open(spooledContent.toPath(), StandardOpenOption.READ);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		InputStream stream = getContentStream();
+		return (stream != null) ? Channels.newChannel(stream) : null;
+	}
+
+	/** @return the number of bytes of content of this page */
+	public long getContentLength() {
+		if (pooledContent != null) {
+			return pooledContentLength;
+		}
+		if (spooledContent != null) {
+			return spooledContentLength;
+		}
+		return (contentData != null) ? contentData.length : 0;
+	}
+
+	/** @return whether the content of this page was written to a file instead of being held in memory */
+	public boolean isContentSpooled() {
+		return spooledContent != null;
+	}
+
 	/** @return ContentType of this page. For example: "text/html; charset=UTF-8" */
 	public String getContentType() {
 		return contentType;
@@ -15,8 +15,10 @@ package com.github.lankalana.crawler4j.crawler;
 import java.io.IOException;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.http.HttpStatus;
 import org.apache.http.impl.EnglishReasonPhraseCatalog;
@@ -293,7 +295,7 @@ public class WebCrawler implements Runnable {
 						return;
 					}
 					try {
-						Thread.sleep(3000);
+						frontier.awaitNewURLs(3000);
 					} catch (InterruptedException e) {
 						logger.error("Error occurred", e);
 					}
@@ -370,9 +372,53 @@ public class WebCrawler implements Runnable {
 		// Sub-classed should override this to add their custom functionality
 	}
 
+	/**
+	 * Parks {@code webURL} until the robots.txt of its host has been fetched in the background, and schedules it then
+	 * if it is allowed. The crawler thread does not wait for it.
+	 */
+	private void scheduleWhenAllowed(WebURL webURL, CompletableFuture<Boolean> allowed) {
+		allowed.whenComplete((isAllowed, error) -> {
+			try {
+				if (error != null) {
+					throw error;
+				}
+				if (!isAllowed) {
+					logger.debug("Not visiting: {} as per the server's \"robots.txt\" policy", webURL.getURL());
+				} else {
+					// Another crawler may have parked the same link
+					scheduleIfNew(webURL);
+				}
+			} catch (Throwable t) {
+				if (myController.getConfig().isHaltOnError()) {
+					setError(t);
+				} else {
+					onUnhandledException(webURL, t);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Schedules {@code webURL} unless it was seen meanwhile: only the crawler that assigns its docid schedules it, or,
+	 * if the docid server is batching seen URLs, it is submitted to be released with its batch.
+	 */
+	private void scheduleIfNew(WebURL webURL) {
+		if (docIdServer.isBatchingSeenUrls()) {
+			docIdServer.submitUrls(Collections.singletonList(webURL));
+			return;
+		}
+		int docId = docIdServer.assignNewDocID(webURL.getURL());
+		if (docId > 0) {
+			webURL.setDocid(docId);
+			frontier.schedule(webURL);
+		}
+	}
+
 	private void processPage(WebURL curURL) throws IOException, InterruptedException, ParseException {
 		PageFetchResult fetchResult = null;
 		Page page = new Page(curURL);
+		page.setBufferPool(myController.getContentBufferPool());
+		page.setSpoolFolder(myController.getContentSpoolFolder(), myController.getConfig().getContentSpoolThreshold());
 		try {
 			if (curURL == null) {
 				return;
@@ -406,8 +452,7 @@ public class WebCrawler implements Runnable {
 					onRedirectedStatusCode(page);
 
 					if (myController.getConfig().isFollowRedirects()) {
-						int newDocId = docIdServer.getDocId(movedToUrl);
-						if (newDocId > 0) {
+						if (docIdServer.isSeenBefore(movedToUrl)) {
 							logger.debug("Redirect page: {} is already seen", curURL);
 							return;
 						}
@@ -420,12 +465,19 @@ public class WebCrawler implements Runnable {
 						webURL.setDocid(-1);
 						webURL.setAnchor(curURL.getAnchor());
 						if (shouldVisit(page, webURL)) {
-							if (!shouldFollowLinksIn(webURL) || robotstxtServer.allows(webURL)) {
-								webURL.setDocid(docIdServer.getNewDocID(movedToUrl));
-								frontier.schedule(webURL);
+							if (!shouldFollowLinksIn(webURL)) {
+								scheduleIfNew(webURL);
 							} else {
-								logger.debug(
-										"Not visiting: {} as per the server's \"robots.txt\" policy", webURL.getURL());
+								CompletableFuture<Boolean> allowed = robotstxtServer.allowsAsync(webURL);
+								if (!allowed.isDone() || allowed.isCompletedExceptionally()) {
+									scheduleWhenAllowed(webURL, allowed);
+								} else if (allowed.join()) {
+									scheduleIfNew(webURL);
+								} else {
+									logger.debug(
+											"Not visiting: {} as per the server's \"robots.txt\" policy",
+											webURL.getURL());
+								}
 							}
 						} else {
 							logger.debug("Not visiting: {} as per your \"shouldVisit\" policy", webURL.getURL());
@@ -445,12 +497,17 @@ public class WebCrawler implements Runnable {
 
 			} else { // if status code is 200
 				if (!curURL.getURL().equals(fetchResult.getFetchedUrl())) {
-					if (docIdServer.isSeenBefore(fetchResult.getFetchedUrl())) {
+					String fetchedUrl = fetchResult.getFetchedUrl();
+					// A batching docid server has no docids for the URLs it released, so they are looked up first
+					int docId = docIdServer.isBatchingSeenUrls() && docIdServer.isSeenBefore(fetchedUrl)
+							? -1
+							: docIdServer.assignNewDocID(fetchedUrl);
+					if (docId <= 0) {
 						logger.debug("Redirect page: {} has already been seen", curURL);
 						return;
 					}
-					curURL.setURL(fetchResult.getFetchedUrl());
-					curURL.setDocid(docIdServer.getNewDocID(fetchResult.getFetchedUrl()));
+					curURL.setURL(fetchedUrl);
+					curURL.setDocid(docId);
 				}
 
 				if (!fetchResult.fetchContent(page, myController.getConfig().getMaxDownloadSize())) {
@@ -469,25 +526,40 @@ public class WebCrawler implements Runnable {
 
 				if (shouldFollowLinksIn(page.getWebURL())) {
 					ParseData parseData = page.getParseData();
+					List<WebURL> outgoingUrls = new ArrayList<>(parseData.getOutgoingUrls());
+					List<String> outgoingLinks = new ArrayList<>(outgoingUrls.size());
+					for (WebURL webURL : outgoingUrls) {
+						outgoingLinks.add(webURL.getURL());
+					}
+					// The docids of all the links are looked up, and then assigned, in one batch each; a batching
+					// docid server checks the links that are to be scheduled together with those of other pages
+					boolean batchingSeenUrls = docIdServer.isBatchingSeenUrls();
+					int[] docIds = batchingSeenUrls ? null : docIdServer.getDocIds(outgoingLinks);
 					List<WebURL> toSchedule = new ArrayList<>();
+					List<String> toAssign = new ArrayList<>();
 					int maxCrawlDepth = myController.getConfig().getMaxDepthOfCrawling();
-					for (WebURL webURL : parseData.getOutgoingUrls()) {
+					for (int i = 0; i < outgoingUrls.size(); i++) {
+						WebURL webURL = outgoingUrls.get(i);
 						webURL.setParentDocid(curURL.getDocid());
 						webURL.setParentUrl(curURL.getURL());
-						int newdocid = docIdServer.getDocId(webURL.getURL());
-						if (newdocid > 0) {
+						// A batching docid server can only tell the links it saw recently, and not their docids
+						boolean seen = batchingSeenUrls ? docIdServer.isRecentlySeen(webURL.getURL()) : docIds[i] > 0;
+						if (seen) {
 							// This is not the first time that this Url is visited. So, we set the
 							// depth to a negative number.
 							webURL.setDepth((short) -1);
-							webURL.setDocid(newdocid);
+							webURL.setDocid(batchingSeenUrls ? -1 : docIds[i]);
 						} else {
 							webURL.setDocid(-1);
 							webURL.setDepth((short) (curURL.getDepth() + 1));
 							if ((maxCrawlDepth == -1) || (curURL.getDepth() < maxCrawlDepth)) {
 								if (shouldVisit(page, webURL)) {
-									if (robotstxtServer.allows(webURL)) {
-										webURL.setDocid(docIdServer.getNewDocID(webURL.getURL()));
+									CompletableFuture<Boolean> allowed = robotstxtServer.allowsAsync(webURL);
+									if (!allowed.isDone() || allowed.isCompletedExceptionally()) {
+										scheduleWhenAllowed(webURL, allowed);
+									} else if (allowed.join()) {
 										toSchedule.add(webURL);
+										toAssign.add(webURL.getURL());
 									} else {
 										logger.debug(
 												"Not visiting: {} as per the server's \"robots.txt\" " + "policy",
@@ -500,7 +572,20 @@ public class WebCrawler implements Runnable {
 							}
 						}
 					}
-					frontier.scheduleAll(toSchedule);
+					if (batchingSeenUrls) {
+						docIdServer.submitUrls(toSchedule);
+					} else {
+						// Links given a docid by another crawler since they were looked up are left to that crawler
+						int[] newDocIds = docIdServer.assignNewDocIDs(toAssign);
+						List<WebURL> assigned = new ArrayList<>(newDocIds.length);
+						for (int i = 0; i < newDocIds.length; i++) {
+							if (newDocIds[i] > 0) {
+								toSchedule.get(i).setDocid(newDocIds[i]);
+								assigned.add(toSchedule.get(i));
+							}
+						}
+						frontier.scheduleAll(assigned);
+					}
 				} else {
 					logger.debug(
 							"Not looking for links in page {}, " + "as per your \"shouldFollowLinksInPage\" policy",
@@ -534,6 +619,7 @@ public class WebCrawler implements Runnable {
 			if (fetchResult != null) {
 				fetchResult.discardContentIfNotConsumed();
 			}
+			page.releaseContent();
 		}
 	}
 
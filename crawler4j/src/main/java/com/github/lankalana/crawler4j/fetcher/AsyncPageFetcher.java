@@ -0,0 +1,467 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.fetcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHeader;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.crawler.authentication.AuthInfo;
+import com.github.lankalana.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
+import com.github.lankalana.crawler4j.url.URLCanonicalizer;
+import com.github.lankalana.crawler4j.url.WebURL;
+import com.github.lankalana.crawler4j.util.Util;
+
+/**
+ * A {@link PageFetcher} built on the non-blocking JDK {@link HttpClient}. {@link #fetchPageAsync(WebURL)} returns
+ * immediately, so a few threads can keep thousands of fetches in flight. HTTPS hosts are spoken to over HTTP/2 when
+ * they support it, which multiplexes all requests to a host over a single connection; plain HTTP uses HTTP/1.1.
+ *
+ * <p>The politeness delay is applied by scheduling the request instead of sleeping. The proxy, BASIC authentication,
+ * user agent and default headers of the {@link CrawlConfig} are honoured; the cookie store, the DNS resolver and
+ * NT authentication only apply to the blocking client of the super class, which is still used for form logins.
+ */
+public class AsyncPageFetcher extends PageFetcher {
+
+	/** Headers the JDK client manages itself and refuses to have set. */
+	private static final Set<String> RESTRICTED_HEADERS =
+			Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+	protected final HttpClient asyncClient;
+
+	private final Map<String, String> basicAuthorizations = new HashMap<>();
+
+	public AsyncPageFetcher(CrawlConfig config)
+			throws NoSuchAlgorithmException, KeyManagementException, KeyStoreException {
+		super(config);
+
+		HttpClient.Builder builder = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.NEVER)
+				.connectTimeout(Duration.ofMillis(config.getConnectionTimeout()));
+		if (config.isIncludeHttpsPages()) {
+			// Same as the blocking client: always trust the ssl certificate
+			SSLContext sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(null, new TrustManager[] {new TrustAllManager()}, null);
+			builder.sslContext(sslContext);
+		}
+		if (config.getProxyHost() != null) {
+			builder.proxy(ProxySelector.of(new InetSocketAddress(config.getProxyHost(), config.getProxyPort())));
+			if (config.getProxyUsername() != null) {
+				builder.authenticator(new ProxyAuthenticator(config.getProxyUsername(), config.getProxyPassword()));
+			}
+		}
+		asyncClient = builder.build();
+
+		List<AuthInfo> authInfos = config.getAuthInfos();
+		if (authInfos != null) {
+			for (AuthInfo authInfo : authInfos) {
+				if (AuthInfo.AuthenticationType.BASIC_AUTHENTICATION.equals(authInfo.getAuthenticationType())) {
+					String credentials = authInfo.getUsername() + ":" + authInfo.getPassword();
+					basicAuthorizations.put(
+							authInfo.getHost() + ":" + authInfo.getPort(),
+							"Basic "
+									+ Base64.getEncoder()
+											.encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fetches {@code webUrl} without blocking the calling thread. The request is sent once the politeness delay of
+	 * its host has passed.
+	 *
+	 * @return a future completed with the fetch result, or exceptionally with an {@link IOException} or a
+	 *     {@link PageBiggerThanMaxSizeException}
+	 */
+	public CompletableFuture<PageFetchResult> fetchPageAsync(WebURL webUrl) {
+		String toFetchURL = webUrl.getURL();
+		HttpRequest request;
+		try {
+			request = newHttpRequest(toFetchURL);
+		} catch (IllegalArgumentException e) {
+			return CompletableFuture.failedFuture(new IOException("Invalid URL: " + toFetchURL, e));
+		}
+
+		Executor executor = null;
+		if (config.getPolitenessDelay() > 0) {
+			String key = politenessScheduler.getPolitenessKey(webUrl);
+			long wait = politenessScheduler.reserve(key, politenessScheduler.getDelay(key));
+			if (wait > 0) {
+				executor = CompletableFuture.delayedExecutor(wait, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		int maxBytes = config.getMaxDownloadSize();
+		long[] sent = new long[1];
+		HttpResponse.BodyHandler<byte[]> bodyHandler = responseInfo -> {
+			// Called once the headers arrived, so the latency doesn't include the body
+			politenessScheduler.onResponse(webUrl, responseInfo.statusCode(), System.currentTimeMillis() - sent[0],
+					responseInfo.headers().firstValue(HttpHeaders.RETRY_AFTER).orElse(null));
+			return newBodySubscriber(responseInfo, maxBytes);
+		};
+		CompletableFuture<HttpResponse<byte[]>> response = (executor == null)
+				? send(request, bodyHandler, sent)
+				: CompletableFuture.supplyAsync(() -> request, executor)
+						.thenCompose(delayed -> send(delayed, bodyHandler, sent));
+		return response.whenComplete((ignored, e) -> {
+			Throwable cause = (e instanceof CompletionException) ? e.getCause() : e;
+			if (cause instanceof HttpTimeoutException) {
+				politenessScheduler.onTimeout(webUrl);
+			}
+		}).thenApply(this::toFetchResult);
+	}
+
+	private CompletableFuture<HttpResponse<byte[]>> send(
+			HttpRequest request, HttpResponse.BodyHandler<byte[]> bodyHandler, long[] sent) {
+		sent[0] = System.currentTimeMillis();
+		return asyncClient.sendAsync(request, bodyHandler);
+	}
+
+	/**
+	 * Waits for {@link #fetchPageAsync(WebURL)}, for callers that fetch one page at a time, such as the crawler
+	 * threads and the robots.txt server.
+	 */
+	@Override
+	public PageFetchResult fetchPage(WebURL webUrl)
+			throws InterruptedException, IOException, PageBiggerThanMaxSizeException {
+		CompletableFuture<PageFetchResult> future = fetchPageAsync(webUrl);
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof PageBiggerThanMaxSizeException) {
+				throw (PageBiggerThanMaxSizeException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Creates the request for the given url. The default is a GET carrying the user agent and default headers of the
+	 * config. Subclasses may override this method and provide their own logic.
+	 *
+	 * @param url the url to be fetched
+	 * @return the HttpRequest for the given url
+	 */
+	protected HttpRequest newHttpRequest(String url) {
+		URI uri = URI.create(url);
+		HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+				.GET()
+				.timeout(Duration.ofMillis(config.getSocketTimeout()))
+				.header(HttpHeaders.USER_AGENT, config.getUserAgentString())
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip,deflate");
+		if ("http".equalsIgnoreCase(uri.getScheme())) {
+			// Avoid the h2c upgrade dance, which many servers get wrong
+			builder.version(HttpClient.Version.HTTP_1_1);
+		}
+		for (Header header : config.getDefaultHeaders()) {
+			if (!RESTRICTED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+				builder.setHeader(header.getName(), header.getValue());
+			}
+		}
+		if (!basicAuthorizations.isEmpty()) {
+			int port = (uri.getPort() != -1) ? uri.getPort() : ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+			String authorization = basicAuthorizations.get(uri.getHost() + ":" + port);
+			if (authorization != null) {
+				builder.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+			}
+		}
+		return builder.build();
+	}
+
+	@Override
+	public synchronized void shutDown() {
+		super.shutDown();
+		asyncClient.shutdownNow();
+	}
+
+	private HttpResponse.BodySubscriber<byte[]> newBodySubscriber(HttpResponse.ResponseInfo responseInfo, int maxBytes) {
+		int statusCode = responseInfo.statusCode();
+		if (statusCode >= 200 && statusCode <= 299) {
+			long size = responseInfo.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH).orElse(-1);
+			if (size > maxBytes) {
+				return new RejectingSubscriber(new PageBiggerThanMaxSizeException(size));
+			}
+			String contentType = responseInfo.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse(null);
+			if (!config.isIncludeBinaryContentInCrawling() && Util.hasBinaryContent(contentType)) {
+				// The page is skipped as binary content, so its body isn't worth downloading
+				return new SkippingSubscriber();
+			}
+		}
+		// One byte more than allowed lets Page notice that the content was truncated
+		return new CappedSubscriber(maxBytes + 1L);
+	}
+
+	private PageFetchResult toFetchResult(HttpResponse<byte[]> response) {
+		PageFetchResult fetchResult = new PageFetchResult(config.isHaltOnError());
+		String toFetchURL = response.request().uri().toString();
+
+		List<Header> headers = new ArrayList<>();
+		response.headers().map().forEach((name, values) -> {
+			if (!name.startsWith(":")) {
+				for (String value : values) {
+					headers.add(new BasicHeader(name, value));
+				}
+			}
+		});
+		fetchResult.setResponseHeaders(headers.toArray(new Header[0]));
+		fetchResult.setEntity(toEntity(response));
+
+		int statusCode = response.statusCode();
+		if (statusCode == HttpStatus.SC_MOVED_PERMANENTLY
+				|| statusCode == HttpStatus.SC_MOVED_TEMPORARILY
+				|| statusCode == HttpStatus.SC_MULTIPLE_CHOICES
+				|| statusCode == HttpStatus.SC_SEE_OTHER
+				|| statusCode == HttpStatus.SC_TEMPORARY_REDIRECT
+				|| statusCode == 308) {
+			String location = response.headers().firstValue(HttpHeaders.LOCATION).orElse(null);
+			if (location != null) {
+				try {
+					fetchResult.setMovedToUrl(URLCanonicalizer.getCanonicalURL(location, toFetchURL));
+				} catch (UnsupportedEncodingException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		} else if (statusCode >= 200 && statusCode <= 299) {
+			fetchResult.setFetchedUrl(toFetchURL);
+		}
+		fetchResult.setStatusCode(statusCode);
+		return fetchResult;
+	}
+
+	private static HttpEntity toEntity(HttpResponse<byte[]> response) {
+		ByteArrayEntity entity = new ByteArrayEntity(response.body());
+		response.headers().firstValue(HttpHeaders.CONTENT_TYPE).ifPresent(entity::setContentType);
+		String encoding = response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null);
+		if (encoding == null || response.body().length == 0) {
+			return entity;
+		}
+		entity.setContentEncoding(encoding);
+		if (encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip")) {
+			return new GzipDecompressingEntity(entity);
+		} else if (encoding.equalsIgnoreCase("deflate")) {
+			return new DeflateDecompressingEntity(entity);
+		}
+		return entity;
+	}
+
+	/** Collects the body up to a limit and then stops receiving it. */
+	private static final class CappedSubscriber implements HttpResponse.BodySubscriber<byte[]> {
+		private final long limit;
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+		private Flow.Subscription subscription;
+
+		CappedSubscriber(long limit) {
+			this.limit = limit;
+		}
+
+		@Override
+		public CompletionStage<byte[]> getBody() {
+			return result;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> buffers) {
+			if (result.isDone()) {
+				return;
+			}
+			for (ByteBuffer buffer : buffers) {
+				int length = (int) Math.min(buffer.remaining(), limit - body.size());
+				if (buffer.hasArray()) {
+					body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+				} else {
+					byte[] bytes = new byte[length];
+					buffer.get(bytes);
+					body.write(bytes, 0, length);
+				}
+				if (body.size() >= limit) {
+					subscription.cancel();
+					result.complete(body.toByteArray());
+					return;
+				}
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			result.completeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			result.complete(body.toByteArray());
+		}
+	}
+
+	/** Refuses a body without reading it. */
+	private static final class RejectingSubscriber implements HttpResponse.BodySubscriber<byte[]> {
+		private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+		RejectingSubscriber(Exception reason) {
+			result.completeExceptionally(reason);
+		}
+
+		@Override
+		public CompletionStage<byte[]> getBody() {
+			return result;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.cancel();
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> item) {
+			// Cancelled
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			// Already failed
+		}
+
+		@Override
+		public void onComplete() {
+			// Already failed
+		}
+	}
+
+	/** Skips a body without reading it, leaving it empty. */
+	private static final class SkippingSubscriber implements HttpResponse.BodySubscriber<byte[]> {
+		private final CompletableFuture<byte[]> result = CompletableFuture.completedFuture(new byte[0]);
+
+		@Override
+		public CompletionStage<byte[]> getBody() {
+			return result;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.cancel();
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> item) {
+			// Cancelled
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			// Already complete
+		}
+
+		@Override
+		public void onComplete() {
+			// Already complete
+		}
+	}
+
+	private static final class ProxyAuthenticator extends Authenticator {
+		private final String username;
+		private final String password;
+
+		ProxyAuthenticator(String username, String password) {
+			this.username = username;
+			this.password = password;
+		}
+
+		@Override
+		protected PasswordAuthentication getPasswordAuthentication() {
+			if (getRequestorType() != RequestorType.PROXY) {
+				return null;
+			}
+			return new PasswordAuthentication(username, (password == null) ? new char[0] : password.toCharArray());
+		}
+	}
+
+	private static final class TrustAllManager implements X509TrustManager {
+		@Override
+		public void checkClientTrusted(X509Certificate[] chain, String authType) {
+			// Trust everything
+		}
+
+		@Override
+		public void checkServerTrusted(X509Certificate[] chain, String authType) {
+			// Trust everything
+		}
+
+		@Override
+		public X509Certificate[] getAcceptedIssuers() {
+			return new X509Certificate[0];
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.fetcher;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.conn.DnsResolver;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+
+/**
+ * A {@link DnsResolver} that remembers the addresses another resolver returns for {@link CrawlConfig#getDnsCacheTtl()}
+ * milliseconds, and the hosts it fails to resolve for {@link CrawlConfig#getDnsNegativeCacheTtl()} milliseconds. Each
+ * entry expires on its own, and concurrent lookups of the same host share a single query.
+ *
+ * <p>With {@link CrawlConfig#getDnsPrefetchThreads()} set, {@link #prefetch(String)} resolves hosts on a pool of
+ * background threads as their URLs enter the frontier, so that fetching them doesn't wait for the DNS.
+ */
+public class CachingDnsResolver implements DnsResolver {
+
+	/** The cache is emptied of its expired entries, or else entirely, when it holds this many hosts. */
+	private static final int MAX_CACHED_HOSTS = 100_000;
+
+	/** Prefetches are dropped when this many are waiting for a thread. */
+	private static final int MAX_PENDING_PREFETCHES = 10_000;
+
+	private final DnsResolver resolver;
+	private final long ttl;
+	private final long negativeTtl;
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, CompletableFuture<Entry>> lookups = new ConcurrentHashMap<>();
+	private final ThreadPoolExecutor prefetcher;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public CachingDnsResolver(DnsResolver resolver, CrawlConfig config) {
+		this(resolver, config.getDnsCacheTtl(), config.getDnsNegativeCacheTtl(), config.getDnsPrefetchThreads());
+	}
+
+	/**
+	 * @param resolver The resolver whose answers are cached
+	 * @param ttl The number of milliseconds addresses are cached for
+	 * @param negativeTtl The number of milliseconds unknown hosts are cached for, or 0 to not cache them
+	 * @param prefetchThreads The number of threads resolving hosts in the background, or 0 to not prefetch
+	 */
+	public CachingDnsResolver(DnsResolver resolver, long ttl, long negativeTtl, int prefetchThreads) {
+		this.resolver = resolver;
+		this.ttl = ttl;
+		this.negativeTtl = negativeTtl;
+		if (prefetchThreads > 0) {
+			prefetcher = new ThreadPoolExecutor(prefetchThreads, prefetchThreads, 0, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(MAX_PENDING_PREFETCHES), runnable -> {
+						Thread thread = new Thread(runnable, "DNS prefetcher");
+						thread.setDaemon(true);
+						return thread;
+					}, new ThreadPoolExecutor.DiscardPolicy());
+		} else {
+			prefetcher = null;
+		}
+	}
+
+	@Override
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		Entry entry = entries.get(host);
+		if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+			hits.increment();
+		} else {
+			misses.increment();
+			entry = lookUp(host);
+		}
+		if (entry.addresses == null) {
+			throw new UnknownHostException(entry.error);
+		}
+		return entry.addresses.clone();
+	}
+
+	/**
+	 * Resolves a host in the background, unless its addresses are cached or already being looked up. Does nothing if
+	 * there are no prefetch threads.
+	 */
+	public void prefetch(String host) {
+		if (prefetcher == null || host == null || host.isEmpty()) {
+			return;
+		}
+		Entry entry = entries.get(host);
+		if ((entry != null && entry.expiresAt > System.currentTimeMillis()) || lookups.containsKey(host)) {
+			return;
+		}
+		prefetcher.execute(() -> lookUp(host));
+	}
+
+	/** @return the number of lookups answered from the cache */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/** @return the number of lookups that had to query the resolver, or wait for another thread's query */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/** @return whether the addresses of {@code host}, or the error resolving it, are cached and not expired */
+	boolean isCached(String host) {
+		Entry entry = entries.get(host);
+		return entry != null && entry.expiresAt > System.currentTimeMillis();
+	}
+
+	/** Stops the prefetch threads. */
+	public void shutDown() {
+		if (prefetcher != null) {
+			prefetcher.shutdownNow();
+		}
+	}
+
+	private Entry lookUp(String host) {
+		CompletableFuture<Entry> lookup = new CompletableFuture<>();
+		CompletableFuture<Entry> running = lookups.putIfAbsent(host, lookup);
+		if (running != null) {
+			return running.join();
+		}
+		try {
+			Entry entry = entries.get(host);
+			if (entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+				// Not cached by a query that finished in the meantime
+				entry = query(host);
+				if (entry.expiresAt > System.currentTimeMillis()) {
+					if (entries.size() >= MAX_CACHED_HOSTS) {
+						evict();
+					}
+					entries.put(host, entry);
+				}
+			}
+			lookup.complete(entry);
+			return entry;
+		} catch (RuntimeException e) {
+			lookup.completeExceptionally(e);
+			throw e;
+		} finally {
+			lookups.remove(host, lookup);
+		}
+	}
+
+	private Entry query(String host) {
+		long now = System.currentTimeMillis();
+		try {
+			InetAddress[] addresses = resolver.resolve(host);
+			if (addresses != null && addresses.length > 0) {
+				return new Entry(addresses, null, now + ttl);
+			}
+			return new Entry(null, host, now + negativeTtl);
+		} catch (UnknownHostException e) {
+			return new Entry(null, e.getMessage(), now + negativeTtl);
+		}
+	}
+
+	private void evict() {
+		long now = System.currentTimeMillis();
+		entries.values().removeIf(entry -> entry.expiresAt <= now);
+		if (entries.size() >= MAX_CACHED_HOSTS) {
+			entries.clear();
+		}
+	}
+
+	/** The addresses of a host, or the error resolving it, and when they expire. */
+	private static final class Entry {
+		final InetAddress[] addresses;
+		final String error;
+		final long expiresAt;
+
+		Entry(InetAddress[] addresses, String error, long expiresAt) {
+			this.addresses = addresses;
+			this.error = error;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -12,8 +12,12 @@
  */
 package com.github.lankalana.crawler4j.fetcher;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.net.InetAddress;
+import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
@@ -21,7 +25,6 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +32,7 @@ import java.util.Map;
 import javax.net.ssl.SSLContext;
 
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpStatus;
@@ -45,13 +49,18 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.DnsResolver;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustStrategy;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -69,6 +78,7 @@ import com.github.lankalana.crawler4j.crawler.authentication.NtAuthInfo;
 import com.github.lankalana.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
 import com.github.lankalana.crawler4j.url.URLCanonicalizer;
 import com.github.lankalana.crawler4j.url.WebURL;
+import com.github.lankalana.crawler4j.util.Util;
 
 /** @author Yasser Ganjisaffar */
 public class PageFetcher {
@@ -81,11 +91,20 @@ public class PageFetcher {
 
 	protected PoolingHttpClientConnectionManager connectionManager;
 	protected CloseableHttpClient httpClient;
+	/** @deprecated politeness is tracked per host by {@link #politenessScheduler} */
+	@Deprecated
 	protected long lastFetchTime = 0;
+
+	protected final PolitenessScheduler politenessScheduler;
+	protected final DnsResolver dnsResolver;
 	protected IdleConnectionMonitorThread connectionMonitorThread = null;
 
 	public PageFetcher(CrawlConfig config) throws NoSuchAlgorithmException, KeyManagementException, KeyStoreException {
 		this.config = config;
+		this.dnsResolver = (config.getDnsCacheTtl() > 0)
+				? new CachingDnsResolver(config.getDnsResolver(), config)
+				: config.getDnsResolver();
+		this.politenessScheduler = new PolitenessScheduler(config, dnsResolver);
 
 		RequestConfig requestConfig = RequestConfig.custom()
 				.setExpectContinueEnabled(false)
@@ -122,7 +141,7 @@ public class PageFetcher {
 		}
 
 		Registry<ConnectionSocketFactory> connRegistry = connRegistryBuilder.build();
-		connectionManager = new SniPoolingHttpClientConnectionManager(connRegistry, config.getDnsResolver());
+		connectionManager = new SniPoolingHttpClientConnectionManager(connRegistry, dnsResolver);
 		connectionManager.setMaxTotal(config.getMaxTotalConnections());
 		connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerHost());
 
@@ -134,6 +153,7 @@ public class PageFetcher {
 		clientBuilder.setConnectionManager(connectionManager);
 		clientBuilder.setUserAgent(config.getUserAgentString());
 		clientBuilder.setDefaultHeaders(config.getDefaultHeaders());
+		clientBuilder.setRequestExecutor(new TimingHttpRequestExecutor());
 
 		Map<AuthScope, Credentials> credentialsMap = new HashMap<>();
 		if (config.getProxyHost() != null) {
@@ -248,22 +268,29 @@ public class PageFetcher {
 		try {
 			request = newHttpUriRequest(toFetchURL);
 			if (config.getPolitenessDelay() > 0) {
-				// Applying Politeness delay
-				synchronized (mutex) {
-					long now = (new Date()).getTime();
-					if ((now - lastFetchTime) < config.getPolitenessDelay()) {
-						Thread.sleep(config.getPolitenessDelay() - (now - lastFetchTime));
-					}
-					lastFetchTime = (new Date()).getTime();
-				}
+				// Applying Politeness delay of the host, without blocking other hosts
+				politenessScheduler.acquire(webUrl);
 			}
 
-			CloseableHttpResponse response = httpClient.execute(request);
+			long start = System.currentTimeMillis();
+			HttpClientContext context = HttpClientContext.create();
+			CloseableHttpResponse response;
+			try {
+				response = httpClient.execute(request, context);
+			} catch (SocketTimeoutException | ConnectTimeoutException e) {
+				politenessScheduler.onTimeout(webUrl);
+				throw e;
+			}
 			fetchResult.setEntity(response.getEntity());
 			fetchResult.setResponseHeaders(response.getAllHeaders());
 
 			// Setting HttpStatus
 			int statusCode = response.getStatusLine().getStatusCode();
+			Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+			// The latency is counted from when the request was sent, not including the wait for a pooled connection
+			long sent = TimingHttpRequestExecutor.getRequestSentTime(context, start);
+			politenessScheduler.onResponse(webUrl, statusCode, System.currentTimeMillis() - sent,
+					(retryAfter != null) ? retryAfter.getValue() : null);
 
 			// If Redirect ( 3xx )
 			if (statusCode == HttpStatus.SC_MOVED_PERMANENTLY
@@ -305,6 +332,9 @@ public class PageFetcher {
 						response.close();
 						throw new PageBiggerThanMaxSizeException(size);
 					}
+					if (!config.isIncludeBinaryContentInCrawling()) {
+						skipBinaryContent(response, fetchResult);
+					}
 				}
 			}
 
@@ -318,11 +348,60 @@ public class PageFetcher {
 		}
 	}
 
+	/**
+	 * Closes the response without downloading its body if the content is binary, as told by its Content-Type or, when
+	 * that is missing, by its first bytes. The entity is replaced with an empty one of the same type, so that the page
+	 * is skipped as binary content without the cost of reading it.
+	 */
+	private static void skipBinaryContent(CloseableHttpResponse response, PageFetchResult fetchResult)
+			throws IOException {
+		HttpEntity entity = fetchResult.getEntity();
+		Header type = entity.getContentType();
+		String contentType = (type != null) ? type.getValue() : null;
+		if (contentType == null) {
+			InputStream content = entity.getContent();
+			byte[] head = new byte[Util.SNIFF_LENGTH];
+			int length = content.readNBytes(head, 0, head.length);
+			contentType = Util.sniffBinaryContentType(head, length);
+			if (contentType == null) {
+				// Puts the sniffed bytes back in front of the rest of the body
+				InputStream restored = new SequenceInputStream(new ByteArrayInputStream(head, 0, length), content);
+				fetchResult.setEntity(new HttpEntityWrapper(entity) {
+					@Override
+					public InputStream getContent() {
+						return restored;
+					}
+				});
+				return;
+			}
+		} else if (!Util.hasBinaryContent(contentType)) {
+			return;
+		}
+		response.close();
+		BasicHttpEntity skipped = new BasicHttpEntity();
+		skipped.setContent(new ByteArrayInputStream(new byte[0]));
+		skipped.setContentLength(0);
+		skipped.setContentType(contentType);
+		fetchResult.setEntity(skipped);
+	}
+
+	/** @return the resolver connections are opened with, caching the configured one if the DNS cache is enabled */
+	public DnsResolver getDnsResolver() {
+		return dnsResolver;
+	}
+
+	public PolitenessScheduler getPolitenessScheduler() {
+		return politenessScheduler;
+	}
+
 	public synchronized void shutDown() {
 		if (connectionMonitorThread != null) {
 			connectionManager.shutdown();
 			connectionMonitorThread.shutdown();
 		}
+		if (dnsResolver instanceof CachingDnsResolver) {
+			((CachingDnsResolver) dnsResolver).shutDown();
+		}
 	}
 
 	/**
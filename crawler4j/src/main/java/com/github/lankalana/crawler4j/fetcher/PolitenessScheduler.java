@@ -0,0 +1,246 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.fetcher;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.DnsResolver;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.url.WebURL;
+
+/**
+ * Keeps track of when each host may be fetched again, so that {@link CrawlConfig#getPolitenessDelay()} separates the
+ * requests sent to the same host while requests to different hosts proceed in parallel. Hosts can be grouped by name,
+ * registered domain or IP address, see {@link CrawlConfig#setPolitenessGrouping(Grouping)}.
+ *
+ * <p>A request reserves the next free slot of its host atomically and then waits for it without holding any lock.
+ *
+ * <p>With {@link CrawlConfig#isAdaptivePoliteness()} set, the delay of each host adapts to how the host responds: its
+ * request rate grows additively while its latency stays stable, and is halved on a 429 or 503, a timeout or a latency
+ * spike, within the configured bounds. A Retry-After header holds the host back for as long as it asks.
+ */
+public class PolitenessScheduler {
+
+	/** How requests are grouped when applying the politeness delay. */
+	public enum Grouping {
+		/** Each host name is delayed separately */
+		HOST,
+		/** All hosts of a registered domain (e.g. a.example.com and b.example.com) share one delay */
+		DOMAIN,
+		/** All hosts resolving to the same IP address share one delay */
+		IP
+	}
+
+	/** Reservations in the past are dropped, at most once a second, when there are more hosts than this. */
+	private static final int CLEANUP_THRESHOLD = 10_000;
+	private static final long CLEANUP_INTERVAL = 1000;
+
+	/** The adaptive rate of a host is forgotten when it wasn't updated for this long. */
+	private static final long RATE_EXPIRY = 10 * 60 * 1000;
+
+	/** A response slower than this many times the average latency of its host is a latency spike. */
+	private static final double LATENCY_SPIKE_FACTOR = 2.0;
+
+	/** The weight of a new sample in the average latency of a host. */
+	private static final double LATENCY_WEIGHT = 0.2;
+
+	/** The longest Retry-After honoured, in milliseconds. */
+	private static final long MAX_RETRY_AFTER = 60 * 60 * 1000;
+
+	private final ConcurrentMap<String, Long> nextFetchTimes = new ConcurrentHashMap<>();
+	private final CrawlConfig config;
+	private final DnsResolver dnsResolver;
+	private final AtomicLong lastCleanup = new AtomicLong();
+	private final ConcurrentMap<String, HostRate> rates = new ConcurrentHashMap<>();
+
+	public PolitenessScheduler(CrawlConfig config) {
+		this(config, config.getDnsResolver());
+	}
+
+	public PolitenessScheduler(CrawlConfig config, DnsResolver dnsResolver) {
+		this.config = config;
+		this.dnsResolver = dnsResolver;
+	}
+
+	/** @return the key under which requests to the host of {@code url} share their politeness delay */
+	public String getPolitenessKey(WebURL url) {
+		switch (config.getPolitenessGrouping()) {
+			case DOMAIN:
+				String domain = url.getDomain();
+				return (domain == null) ? "" : domain;
+			case IP:
+				String host = getHost(url);
+				try {
+					InetAddress[] addresses = dnsResolver.resolve(host);
+					if (addresses != null && addresses.length > 0) {
+						return addresses[0].getHostAddress();
+					}
+				} catch (UnknownHostException e) {
+					// The fetch itself will report the failure
+				}
+				return host;
+			default:
+				return getHost(url);
+		}
+	}
+
+	/**
+	 * Waits, without holding any lock, until the host of {@code url} may be fetched, and reserves that slot.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void acquire(WebURL url) throws InterruptedException {
+		String key = getPolitenessKey(url);
+		long wait = reserve(key, getDelay(key));
+		if (wait > 0) {
+			Thread.sleep(wait);
+		}
+	}
+
+	/**
+	 * Reserves the next free slot of {@code key}; the slot after it is {@code delay} milliseconds later.
+	 *
+	 * @return the number of milliseconds until the reserved slot
+	 */
+	public long reserve(String key, long delay) {
+		long now = System.currentTimeMillis();
+		long[] slot = new long[1];
+		nextFetchTimes.compute(key, (k, next) -> {
+			slot[0] = (next == null) ? now : Math.max(now, next);
+			return slot[0] + delay;
+		});
+		long cleanup = lastCleanup.get();
+		if (nextFetchTimes.size() > CLEANUP_THRESHOLD && now - cleanup > CLEANUP_INTERVAL
+				&& lastCleanup.compareAndSet(cleanup, now)) {
+			nextFetchTimes.values().removeIf(next -> next < now);
+			rates.values().removeIf(rate -> rate.updated < now - RATE_EXPIRY);
+		}
+		return slot[0] - now;
+	}
+
+	/** @return the earliest time, in milliseconds since the epoch, at which {@code key} may be fetched again */
+	public long getNextFetchTime(String key) {
+		Long next = nextFetchTimes.get(key);
+		return (next == null) ? 0 : next;
+	}
+
+	/** @return the number of milliseconds between two requests sent under {@code key} */
+	public long getDelay(String key) {
+		if (!config.isAdaptivePoliteness()) {
+			return config.getPolitenessDelay();
+		}
+		HostRate rate = rates.get(key);
+		return (rate == null) ? config.getPolitenessDelay() : rate.getDelay();
+	}
+
+	/**
+	 * Adapts the delay of the host of {@code url} to a response, if adaptive politeness is enabled.
+	 *
+	 * @param statusCode The status code of the response
+	 * @param latency The number of milliseconds until the response headers arrived
+	 * @param retryAfter The Retry-After header of the response, or null
+	 */
+	public void onResponse(WebURL url, int statusCode, long latency, String retryAfter) {
+		if (!config.isAdaptivePoliteness()) {
+			return;
+		}
+		String key = getPolitenessKey(url);
+		HostRate rate = getRate(key);
+		if (statusCode == 429 || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+			rate.decrease();
+		} else if (statusCode < 500) {
+			rate.onLatency(latency);
+		}
+		long wait = parseRetryAfter(retryAfter);
+		if (wait > 0) {
+			long until = System.currentTimeMillis() + Math.min(wait, MAX_RETRY_AFTER);
+			nextFetchTimes.merge(key, until, Math::max);
+		}
+	}
+
+	/** Backs the host of {@code url} off after a connect or socket timeout, if adaptive politeness is enabled. */
+	public void onTimeout(WebURL url) {
+		if (config.isAdaptivePoliteness()) {
+			getRate(getPolitenessKey(url)).decrease();
+		}
+	}
+
+	private HostRate getRate(String key) {
+		return rates.computeIfAbsent(key, k -> new HostRate(config));
+	}
+
+	/** @return the number of milliseconds a Retry-After header asks to wait, in seconds or as a date, or 0 */
+	static long parseRetryAfter(String retryAfter) {
+		if (retryAfter == null || retryAfter.isEmpty()) {
+			return 0;
+		}
+		try {
+			// Clamped before it is turned into milliseconds, so that a huge value doesn't overflow
+			long seconds = Long.parseLong(retryAfter.trim());
+			return Math.max(0, Math.min(seconds, MAX_RETRY_AFTER / 1000) * 1000);
+		} catch (NumberFormatException e) {
+			Date date = DateUtils.parseDate(retryAfter);
+			return (date == null) ? 0 : Math.max(0, date.getTime() - System.currentTimeMillis());
+		}
+	}
+
+	/** The request rate of a host, in requests per second, and the average latency of its responses. */
+	private static final class HostRate {
+		private final double minRate;
+		private final double maxRate;
+		private final double increase;
+		private double rate;
+		private double latency = -1;
+		private volatile long updated = System.currentTimeMillis();
+
+		HostRate(CrawlConfig config) {
+			this.minRate = 1000.0 / config.getMaxAdaptivePolitenessDelay();
+			this.maxRate = 1000.0 / config.getMinAdaptivePolitenessDelay();
+			// Each stable response adds a tenth of the rate the host started at
+			this.rate = 1000.0 / config.getPolitenessDelay();
+			this.increase = rate / 10;
+		}
+
+		synchronized long getDelay() {
+			return Math.round(1000 / rate);
+		}
+
+		synchronized void onLatency(long sample) {
+			if (latency >= 0 && sample > LATENCY_SPIKE_FACTOR * latency) {
+				rate = Math.max(minRate, rate / 2);
+			} else {
+				rate = Math.min(maxRate, rate + increase);
+			}
+			latency = (latency < 0) ? sample : latency + LATENCY_WEIGHT * (sample - latency);
+			updated = System.currentTimeMillis();
+		}
+
+		synchronized void decrease() {
+			rate = Math.max(minRate, rate / 2);
+			updated = System.currentTimeMillis();
+		}
+	}
+
+	private static String getHost(WebURL url) {
+		String host = url.getHost();
+		return (host == null) ? "" : host;
+	}
+}
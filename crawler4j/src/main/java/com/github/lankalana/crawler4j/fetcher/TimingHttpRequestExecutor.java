@@ -0,0 +1,31 @@
+package com.github.lankalana.crawler4j.fetcher;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+/**
+ * Records when a request is sent on its connection, that is once the connection was leased from the pool and opened,
+ * so that the latency of a response does not include the time spent waiting for a connection.
+ */
+class TimingHttpRequestExecutor extends HttpRequestExecutor {
+	private static final String REQUEST_SENT = "crawler4j.request-sent";
+
+	@Override
+	public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context)
+			throws IOException, HttpException {
+		context.setAttribute(REQUEST_SENT, System.currentTimeMillis());
+		return super.execute(request, conn, context);
+	}
+
+	/** @return when the last request executed with {@code context} was sent, or {@code defaultTime} if none was */
+	static long getRequestSentTime(HttpContext context, long defaultTime) {
+		Object sent = context.getAttribute(REQUEST_SENT);
+		return (sent instanceof Long) ? (Long) sent : defaultTime;
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntSupplier;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Docid index held on the heap, with its URLs spread over independently locked stripes. Subclasses choose how a URL
+ * is hashed and how a stripe stores it.
+ *
+ * <p>Lookups take no lock unless a write to the same stripe happens at the same time, so seen-URL checks scale with
+ * the number of crawler threads.
+ */
+abstract class AbstractStripedDocIdIndex<S extends AbstractStripedDocIdIndex.Stripe> implements ConcurrentDocIdIndex {
+	private static final int MAX_STRIPE_BITS = 16;
+	static final int INITIAL_STRIPE_CAPACITY = 64;
+
+	final S[] stripes;
+	private final int stripeShift;
+	private final AtomicInteger maxDocId = new AtomicInteger();
+
+	/** @param stripes empty array whose length, a power of two, is the number of stripes */
+	AbstractStripedDocIdIndex(S[] stripes, Supplier<S> newStripe) {
+		this.stripes = stripes;
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = newStripe.get();
+		}
+		stripeShift = 64 - Integer.numberOfTrailingZeros(stripes.length);
+	}
+
+	/** @return the number of stripes for {@code concurrency} threads expected to write at the same time */
+	static int stripeCount(int concurrency) {
+		int stripeBits = 1;
+		while (stripeBits < MAX_STRIPE_BITS && (1 << stripeBits) < concurrency) {
+			stripeBits++;
+		}
+		return 1 << stripeBits;
+	}
+
+	/** The high bits of the hash choose the stripe, the low bits the slot in its table. */
+	abstract long hash(String url);
+
+	@Override
+	public int get(String url) {
+		long hash = hash(url);
+		S stripe = stripes[(int) (hash >>> stripeShift)];
+		long stamp = stripe.lock.tryOptimisticRead();
+		int docId = stripe.find(url, hash);
+		if (!stripe.lock.validate(stamp)) {
+			stamp = stripe.lock.readLock();
+			try {
+				docId = stripe.find(url, hash);
+			} finally {
+				stripe.lock.unlockRead(stamp);
+			}
+		}
+		return docId;
+	}
+
+	@Override
+	public void put(String url, int docId) {
+		long hash = hash(url);
+		S stripe = stripes[(int) (hash >>> stripeShift)];
+		long stamp = stripe.lock.writeLock();
+		try {
+			stripe.put(url, hash, docId);
+		} finally {
+			stripe.lock.unlockWrite(stamp);
+		}
+		maxDocId.accumulateAndGet(docId, Math::max);
+	}
+
+	@Override
+	public int getOrPut(String url, IntSupplier newDocId) {
+		long hash = hash(url);
+		S stripe = stripes[(int) (hash >>> stripeShift)];
+		int docId;
+		long stamp = stripe.lock.writeLock();
+		try {
+			docId = stripe.find(url, hash);
+			if (docId != -1) {
+				return docId;
+			}
+			docId = newDocId.getAsInt();
+			stripe.put(url, hash, docId);
+		} finally {
+			stripe.lock.unlockWrite(stamp);
+		}
+		maxDocId.accumulateAndGet(docId, Math::max);
+		return docId;
+	}
+
+	@Override
+	public int putIfAbsent(String url, int docId) {
+		long hash = hash(url);
+		S stripe = stripes[(int) (hash >>> stripeShift)];
+		long stamp = stripe.lock.writeLock();
+		try {
+			int previous = stripe.find(url, hash);
+			if (previous != -1) {
+				return previous;
+			}
+			stripe.put(url, hash, docId);
+		} finally {
+			stripe.lock.unlockWrite(stamp);
+		}
+		maxDocId.accumulateAndGet(docId, Math::max);
+		return -1;
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (S stripe : stripes) {
+			long stamp = stripe.lock.readLock();
+			try {
+				size += stripe.size;
+			} finally {
+				stripe.lock.unlockRead(stamp);
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public int getMaxDocId() {
+		return maxDocId.get();
+	}
+
+	@Override
+	public void forEachFingerprint(LongConsumer action) {
+		for (S stripe : stripes) {
+			long stamp = stripe.lock.readLock();
+			try {
+				stripe.forEachFingerprint(action);
+			} finally {
+				stripe.lock.unlockRead(stamp);
+			}
+		}
+	}
+
+	@Override
+	public void force() {
+		// Nothing is persisted
+	}
+
+	@Override
+	public void close() {
+		// Nothing to release
+	}
+
+	/**
+	 * A stripe keeps its slots in a table that is replaced rather than resized, so a lookup without lock always probes
+	 * arrays of the same length, and one that raced with a write is retried under the lock.
+	 */
+	abstract static class Stripe {
+		final StampedLock lock = new StampedLock();
+		int size;
+
+		/** @return the docid of {@code url}, or -1; may be called without lock */
+		abstract int find(String url, long hash);
+
+		abstract int capacity();
+
+		/** Replaces the table with one twice as large. */
+		abstract void grow();
+
+		/** @return true if {@code url} was added, false if its docid was replaced */
+		abstract boolean insert(String url, long hash, int docId);
+
+		abstract void forEachFingerprint(LongConsumer action);
+
+		/** Must be called holding the write lock. */
+		final void put(String url, long hash, int docId) {
+			if (size + 1 > capacity() / 4 * 3) {
+				grow();
+			}
+			if (insert(url, hash, docId)) {
+				size++;
+			}
+		}
+	}
+}
@@ -0,0 +1,25 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+/** A store whose state is persisted by a {@link Checkpointer}. */
+public interface Checkpointable {
+
+	/**
+	 * Persists the current state. Called from the checkpoint thread while crawler threads keep updating the store, so
+	 * implementations should only hold their lock long enough to take a snapshot.
+	 *
+	 * @param fsync whether the written data has to be forced to the storage device
+	 */
+	void checkpoint(boolean fsync);
+}
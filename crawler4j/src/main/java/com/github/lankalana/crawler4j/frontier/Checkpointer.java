@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+
+/**
+ * Persists the resumable crawl state in the background. Stores that are given a checkpointer stop writing on every
+ * change; instead this class checkpoints them every {@link CrawlConfig#getCheckpointIntervalMillis()} milliseconds,
+ * after {@link CrawlConfig#getCheckpointMutationThreshold()} changes and when it is closed. If both triggers are
+ * disabled the state is only written on shutdown.
+ */
+public class Checkpointer {
+	private static final Logger logger = LoggerFactory.getLogger(Checkpointer.class);
+
+	private final List<Checkpointable> stores = new CopyOnWriteArrayList<>();
+	private final AtomicLong mutations = new AtomicLong();
+	private final Object signal = new Object();
+
+	private final long intervalMillis;
+	private final long mutationThreshold;
+	private final boolean fsync;
+
+	private Thread thread;
+	private volatile boolean closed;
+
+	public Checkpointer(CrawlConfig config) {
+		this.intervalMillis = config.getCheckpointIntervalMillis();
+		this.mutationThreshold = config.getCheckpointMutationThreshold();
+		this.fsync = config.isCheckpointFsync();
+	}
+
+	/** Adds a store to checkpoint; called once the store is constructed, before the checkpointer is started. */
+	public void register(Checkpointable store) {
+		stores.add(store);
+	}
+
+	/** Called by the stores for every change they defer to the next checkpoint. */
+	void mutated() {
+		if (mutationThreshold > 0 && mutations.incrementAndGet() == mutationThreshold) {
+			synchronized (signal) {
+				signal.notifyAll();
+			}
+		}
+	}
+
+	/** Starts the background thread, unless checkpoints are only taken on shutdown. */
+	public synchronized void start() {
+		if (thread != null || (intervalMillis <= 0 && mutationThreshold <= 0)) {
+			return;
+		}
+		thread = new Thread(this::run, "Checkpointer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/** Checkpoints all registered stores now. */
+	public synchronized void checkpoint() {
+		mutations.set(0);
+		for (Checkpointable store : stores) {
+			store.checkpoint(fsync);
+		}
+	}
+
+	/** Stops the background thread and takes a final checkpoint. */
+	public void close() {
+		closed = true;
+		synchronized (signal) {
+			signal.notifyAll();
+		}
+		Thread current;
+		synchronized (this) {
+			current = thread;
+		}
+		if (current != null) {
+			try {
+				current.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		checkpoint();
+	}
+
+	private void run() {
+		while (!closed) {
+			try {
+				synchronized (signal) {
+					if (!closed && (mutationThreshold <= 0 || mutations.get() < mutationThreshold)) {
+						signal.wait(intervalMillis > 0 ? intervalMillis : 0);
+					}
+				}
+				if (!closed) {
+					checkpoint();
+				}
+			} catch (InterruptedException e) {
+				logger.info("Checkpointer interrupted, stopping background checkpoints");
+				return;
+			} catch (RuntimeException e) {
+				logger.error("Error while taking a checkpoint", e);
+			}
+		}
+	}
+}
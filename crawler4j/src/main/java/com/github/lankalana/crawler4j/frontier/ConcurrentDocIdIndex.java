@@ -0,0 +1,36 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.util.function.IntSupplier;
+
+/**
+ * A {@link DocIdIndex} that may be used by many threads at once, so that {@link DocIDServer} does not need to guard
+ * it with its lock.
+ */
+interface ConcurrentDocIdIndex extends DocIdIndex {
+
+	/**
+	 * Atomically returns the docid of {@code url}, or stores and returns a new one if it has none.
+	 *
+	 * @param newDocId called, only if {@code url} has no docid yet, for the docid to store
+	 */
+	int getOrPut(String url, IntSupplier newDocId);
+
+	/**
+	 * Atomically stores {@code docId} for {@code url} if it has no docid yet.
+	 *
+	 * @return the docid {@code url} already had, or -1 if {@code docId} was stored
+	 */
+	int putIfAbsent(String url, int docId);
+}
@@ -15,6 +15,7 @@ package com.github.lankalana.crawler4j.frontier;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,7 +23,7 @@ import org.slf4j.LoggerFactory;
 import com.github.lankalana.crawler4j.crawler.CrawlConfig;
 
 /** @author Yasser Ganjisaffar */
-public class Counters {
+public class Counters implements Checkpointable {
 	private static final Logger logger = LoggerFactory.getLogger(Counters.class);
 
 	public static class ReservedCounterNames {
@@ -34,14 +35,27 @@ public class Counters {
 	private final FileStore<HashMap<String, Long>> store;
 	private CrawlConfig config;
 	private final boolean resumable;
+	private final Checkpointer checkpointer;
+	private boolean dirty;
 
 	protected final Object mutex = new Object();
+	/** Serializes the writes of the counters, which can take a while, so a lock rather than a monitor */
+	private final ReentrantLock storeLock = new ReentrantLock();
 
 	protected Map<String, Long> counterValues;
 
 	public Counters(File storageFolder, CrawlConfig config) {
+		this(storageFolder, config, null);
+	}
+
+	/**
+	 * @param checkpointer if not null, and crawling is resumable, the counters are only persisted at the checkpoints of
+	 *     this checkpointer, which they have to be {@link Checkpointer#register(Checkpointable) registered} with
+	 */
+	public Counters(File storageFolder, CrawlConfig config, Checkpointer checkpointer) {
 		this.config = config;
 		this.resumable = config.isResumableCrawling();
+		this.checkpointer = resumable ? checkpointer : null;
 
 		/*
 		 * When crawling is set to be resumable, we have to keep the statistics
@@ -89,16 +103,48 @@ public class Counters {
 		}
 	}
 
+	@Override
+	public void checkpoint(boolean fsync) {
+		storeLock.lock();
+		try {
+			HashMap<String, Long> snapshot;
+			synchronized (mutex) {
+				if (!dirty) {
+					return;
+				}
+				snapshot = new HashMap<>(counterValues);
+				dirty = false;
+			}
+			store.save(snapshot, fsync);
+		} finally {
+			storeLock.unlock();
+		}
+	}
+
 	public void close() {
 		try {
-			commitIfNeeded();
+			if (resumable) {
+				storeLock.lock();
+				try {
+					HashMap<String, Long> snapshot;
+					synchronized (mutex) {
+						snapshot = new HashMap<>(counterValues);
+					}
+					store.save(snapshot);
+				} finally {
+					storeLock.unlock();
+				}
+			}
 		} catch (RuntimeException e) {
 			logger.error("Exception thrown while trying to close statisticsDB", e);
 		}
 	}
 
 	private void commitIfNeeded() {
-		if (resumable) {
+		if (checkpointer != null) {
+			dirty = true;
+			checkpointer.mutated();
+		} else if (resumable) {
 			store.save(new HashMap<>(counterValues));
 		}
 	}
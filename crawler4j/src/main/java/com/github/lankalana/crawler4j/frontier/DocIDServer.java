@@ -13,41 +13,102 @@
 package com.github.lankalana.crawler4j.frontier;
 
 import java.io.File;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.url.WebURL;
 
 /** @author Yasser Ganjisaffar */
-public class DocIDServer {
+public class DocIDServer implements Checkpointable {
 	private static final Logger logger = LoggerFactory.getLogger(DocIDServer.class);
 
-	private final FileStore<HashMap<String, Integer>> store;
-	private final Map<String, Integer> docIDsDB;
+	private final DocIdIndex docIDsDB;
 	private static final String DATABASE_NAME = "DocIDs";
+	private static final String SEEN_URLS_NAME = "SeenURLs.dat";
 
-	private final Object mutex = new Object();
+	/**
+	 * Guards the index, unless it is a {@link ConcurrentDocIdIndex}. A lock rather than a monitor, as it is held while
+	 * the index pages in from disk, which would pin the carrier of a virtual thread.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final ConcurrentDocIdIndex concurrentDocIDsDB;
+
+	/** Answers most lookups of unseen URLs without probing the index, if enabled. */
+	private final SeenUrlFilter seenUrlFilter;
+
+	/** Checks outgoing links against the seen URLs on disk in batches, if enabled. */
+	private final DuplicateUrlEliminator duplicateUrlEliminator;
+	private Consumer<List<WebURL>> newUrlsConsumer;
 
 	private CrawlConfig config;
-	private int lastDocID;
-	private final boolean resumable;
+	private final AtomicInteger lastDocID = new AtomicInteger();
 
 	public DocIDServer(File storageFolder, CrawlConfig config) {
+		this(storageFolder, config, null);
+	}
+
+	/**
+	 * @param checkpointer if not null, the docid index is forced to disk at the checkpoints of this checkpointer (when
+	 *     {@link CrawlConfig#isCheckpointFsync()} is set), once the server is {@link
+	 *     Checkpointer#register(Checkpointable) registered} with it
+	 */
+	public DocIDServer(File storageFolder, CrawlConfig config, Checkpointer checkpointer) {
 		this.config = config;
-		this.resumable = config.isResumableCrawling();
-		File dbFile = new File(storageFolder, DATABASE_NAME + ".db");
-		lastDocID = 0;
-		this.store = new FileStore<>(dbFile);
-		this.docIDsDB = resumable ? store.load(HashMap::new) : new HashMap<>();
-		if (resumable) {
+		if (config.isResumableCrawling()) {
+			this.docIDsDB = new MappedDocIdIndex(
+					new File(storageFolder, DATABASE_NAME + ".idx"), new File(storageFolder, DATABASE_NAME + ".keys"));
+			importLegacyStore(new File(storageFolder, DATABASE_NAME + ".db"));
 			int docCount = getDocCount();
 			if (docCount > 0) {
 				logger.info("Loaded {} URLs that had been detected in previous crawl.", docCount);
-				lastDocID = docCount;
+				lastDocID.set(docIDsDB.getMaxDocId());
 			}
+		} else if (config.isFingerprintSeenUrls()) {
+			this.docIDsDB = new FingerprintDocIdIndex();
+		} else {
+			this.docIDsDB = new StripedDocIdIndex();
+		}
+		this.concurrentDocIDsDB = (docIDsDB instanceof ConcurrentDocIdIndex) ? (ConcurrentDocIdIndex) docIDsDB : null;
+		if (config.getSeenUrlBatchSize() > 0) {
+			duplicateUrlEliminator =
+					new DuplicateUrlEliminator(new File(storageFolder, SEEN_URLS_NAME), config.getSeenUrlBatchSize());
+			if (duplicateUrlEliminator.getSeenCount() > 0) {
+				logger.info("Loaded {} seen URLs of the previous crawl.", duplicateUrlEliminator.getSeenCount());
+			}
+			lastDocID.accumulateAndGet(duplicateUrlEliminator.getLastDocId(), Math::max);
+		} else {
+			duplicateUrlEliminator = null;
+		}
+		if (config.getSeenUrlFilterExpectedUrls() > 0) {
+			seenUrlFilter = new SeenUrlFilter(config.getSeenUrlFilterExpectedUrls());
+			docIDsDB.forEachFingerprint(seenUrlFilter::add);
+		} else {
+			seenUrlFilter = null;
+		}
+	}
+
+	/** Moves the docids of a crawl started before the index was memory-mapped into the index. */
+	private void importLegacyStore(File legacyFile) {
+		if (!legacyFile.exists()) {
+			return;
+		}
+		HashMap<String, Integer> legacy = new FileStore<HashMap<String, Integer>>(legacyFile).load(HashMap::new);
+		legacy.entrySet().stream()
+				.sorted(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+				.filter(entry -> docIDsDB.get(entry.getKey()) == -1)
+				.forEach(entry -> docIDsDB.put(entry.getKey(), entry.getValue()));
+		if (!legacyFile.delete()) {
+			logger.warn("Could not delete {} after importing it", legacyFile);
 		}
 	}
 
@@ -58,53 +119,182 @@ public class DocIDServer {
 	 * @return the docid of the url if it is seen before. Otherwise -1 is returned.
 	 */
 	public int getDocId(String url) {
-		synchronized (mutex) {
-			try {
-				Integer value = docIDsDB.get(url);
-				if (value != null) {
-					return value;
-				}
-			} catch (RuntimeException e) {
-				if (config.isHaltOnError()) {
-					throw e;
-				} else {
-					logger.error("Exception thrown while getting DocID", e);
-					return -1;
-				}
-			}
+		if (concurrentDocIDsDB != null) {
+			return lookUpDocId(url);
+		}
+		lock.lock();
+		try {
+			return lookUpDocId(url);
+		} finally {
+			lock.unlock();
+		}
+	}
 
-			return -1;
+	/**
+	 * Returns the docids of already seen urls, such as the outgoing links of a page, taking the lock once for all of
+	 * them.
+	 *
+	 * @param urls the URLs for which the docids are returned.
+	 * @return for each url, its docid if it is seen before. Otherwise -1.
+	 */
+	public int[] getDocIds(List<String> urls) {
+		int[] docIds = new int[urls.size()];
+		if (concurrentDocIDsDB != null) {
+			for (int i = 0; i < docIds.length; i++) {
+				docIds[i] = lookUpDocId(urls.get(i));
+			}
+			return docIds;
 		}
+		lock.lock();
+		try {
+			for (int i = 0; i < docIds.length; i++) {
+				docIds[i] = lookUpDocId(urls.get(i));
+			}
+		} finally {
+			lock.unlock();
+		}
+		return docIds;
 	}
 
 	public int getNewDocID(String url) {
-		synchronized (mutex) {
-			try {
-				// Make sure that we have not already assigned a docid for this URL
-				int docID = getDocId(url);
-				if (docID > 0) {
-					return docID;
-				}
+		if (concurrentDocIDsDB != null) {
+			return assignDocId(url, false);
+		}
+		lock.lock();
+		try {
+			return assignDocId(url, false);
+		} finally {
+			lock.unlock();
+		}
+	}
 
-				++lastDocID;
-				docIDsDB.put(url, lastDocID);
-				commitIfNeeded();
-				return lastDocID;
-			} catch (RuntimeException e) {
-				if (config.isHaltOnError()) {
-					throw e;
-				} else {
-					logger.error("Exception thrown while getting new DocID", e);
-					return -1;
-				}
+	/**
+	 * Assigns a docid to url unless it already has one, in one atomic step, so that of the threads that find the same
+	 * link only one schedules it.
+	 *
+	 * @param url the URL to assign a docid to.
+	 * @return the new docid of the url, or -1 if it already had one or none could be assigned.
+	 */
+	public int assignNewDocID(String url) {
+		if (concurrentDocIDsDB != null) {
+			return assignDocId(url, true);
+		}
+		lock.lock();
+		try {
+			return assignDocId(url, true);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Assigns docids to the urls that don't have one yet, such as the outgoing links of a page that are to be
+	 * scheduled, taking the lock once for all of them.
+	 *
+	 * @param urls the URLs to assign docids to.
+	 * @return for each url, its new docid, or -1 if it already had one, as does a repeated url, or none could be
+	 *     assigned.
+	 */
+	public int[] assignNewDocIDs(List<String> urls) {
+		return assignDocIds(urls);
+	}
+
+	private int[] assignDocIds(List<String> urls) {
+		int[] docIds = new int[urls.size()];
+		if (concurrentDocIDsDB != null) {
+			for (int i = 0; i < docIds.length; i++) {
+				docIds[i] = assignDocId(urls.get(i), true);
+			}
+			return docIds;
+		}
+		lock.lock();
+		try {
+			for (int i = 0; i < docIds.length; i++) {
+				docIds[i] = assignDocId(urls.get(i), true);
+			}
+		} finally {
+			lock.unlock();
+		}
+		return docIds;
+	}
+
+	private int lookUpDocId(String url) {
+		try {
+			if (seenUrlFilter != null && !seenUrlFilter.mightContain(UrlFingerprint.of(url))) {
+				return -1;
+			}
+			int value = docIDsDB.get(url);
+			if (value > 0) {
+				return value;
+			}
+			if (seenUrlFilter != null) {
+				seenUrlFilter.recordFalsePositive();
+			}
+		} catch (RuntimeException e) {
+			if (config.isHaltOnError()) {
+				throw e;
+			} else {
+				logger.error("Exception thrown while getting DocID", e);
+				return -1;
+			}
+		}
+
+		return -1;
+	}
+
+	/** @param onlyNew whether to return -1 rather than the docid the url already has */
+	private int assignDocId(String url, boolean onlyNew) {
+		try {
+			// Make sure that we have not already assigned a docid for this URL
+			int docID = lookUpDocId(url);
+			if (docID > 0) {
+				return onlyNew ? -1 : docID;
+			}
+
+			// The filter learns the URL first, so that it never hides an URL that is in the index
+			addToSeenUrls(url);
+			if (concurrentDocIDsDB != null) {
+				// Only the thread that adds the URL takes a docid from the counter
+				int[] newDocID = {-1};
+				docID = concurrentDocIDsDB.getOrPut(url, () -> newDocID[0] = lastDocID.incrementAndGet());
+				return (onlyNew && docID != newDocID[0]) ? -1 : docID;
+			}
+			docID = lastDocID.incrementAndGet();
+			docIDsDB.put(url, docID);
+			return docID;
+		} catch (RuntimeException e) {
+			if (config.isHaltOnError()) {
+				throw e;
+			} else {
+				logger.error("Exception thrown while getting new DocID", e);
+				return -1;
 			}
 		}
 	}
 
 	public void addUrlAndDocId(String url, int docId) {
-		synchronized (mutex) {
-			if (docId <= lastDocID) {
-				throw new IllegalArgumentException("Requested doc id: " + docId + " is not larger than: " + lastDocID);
+		if (concurrentDocIDsDB != null) {
+			// Reserve the docid before the URL is added, so that getNewDocID can't hand it out
+			int last;
+			do {
+				last = lastDocID.get();
+				if (docId <= last) {
+					throw new IllegalArgumentException("Requested doc id: " + docId + " is not larger than: " + last);
+				}
+			} while (!lastDocID.compareAndSet(last, docId));
+
+			addToSeenUrls(url);
+			int prevDocid = concurrentDocIDsDB.putIfAbsent(url, docId);
+			if (prevDocid > 0) {
+				throw new IllegalArgumentException("Doc id: " + prevDocid + " is already assigned to URL: " + url);
+			}
+			return;
+		}
+		lock.lock();
+		try {
+			if (docId <= lastDocID.get()) {
+				throw new IllegalArgumentException(
+						"Requested doc id: " + docId + " is not larger than: " + lastDocID.get());
 			}
 
 			// Make sure that we have not already assigned a docid for this URL
@@ -116,14 +306,104 @@ public class DocIDServer {
 				throw new IllegalArgumentException("Doc id: " + prevDocid + " is already assigned to URL: " + url);
 			}
 
+			addToSeenUrls(url);
 			docIDsDB.put(url, docId);
-			lastDocID = docId;
-			commitIfNeeded();
+			lastDocID.set(docId);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Adds {@code url} to the seen-URL filter and the seen URLs on disk, if they are enabled. */
+	private void addToSeenUrls(String url) {
+		if (seenUrlFilter != null) {
+			seenUrlFilter.add(UrlFingerprint.of(url));
+		}
+		if (duplicateUrlEliminator != null) {
+			duplicateUrlEliminator.recordSeen(url);
+		}
+	}
+
+	/**
+	 * @return true if outgoing links are to be {@link #submitUrls(List) submitted} rather than looked up one by one
+	 * @see CrawlConfig#setSeenUrlBatchSize(int)
+	 */
+	public boolean isBatchingSeenUrls() {
+		return duplicateUrlEliminator != null;
+	}
+
+	/** Sets where the URLs released by batches of {@link #submitUrls(List) submitted} URLs go, usually the frontier. */
+	public void setNewUrlsConsumer(Consumer<List<WebURL>> newUrlsConsumer) {
+		this.newUrlsConsumer = newUrlsConsumer;
+	}
+
+	/**
+	 * Submits outgoing links to be scheduled if they were never seen. They are buffered and, once a batch is full, the
+	 * new ones are given a docid and handed to the {@link #setNewUrlsConsumer(Consumer) consumer}. Only used if {@link
+	 * #isBatchingSeenUrls()}.
+	 */
+	public void submitUrls(List<WebURL> urls) {
+		if (!urls.isEmpty() && duplicateUrlEliminator.submit(urls)) {
+			flushSubmittedUrls();
+		}
+	}
+
+	/**
+	 * Checks the submitted URLs without waiting for a full batch, as when the crawl runs out of URLs.
+	 *
+	 * @return number of new URLs handed to the consumer
+	 */
+	public int flushSubmittedUrls() {
+		if (duplicateUrlEliminator == null) {
+			return 0;
 		}
+		try {
+			return duplicateUrlEliminator.merge(lastDocID, newUrlsConsumer);
+		} catch (RuntimeException e) {
+			if (config.isHaltOnError()) {
+				throw e;
+			} else {
+				logger.error("Exception thrown while checking a batch of seen URLs", e);
+				return 0;
+			}
+		}
+	}
+
+	/** @return number of submitted URLs waiting for their batch to be checked */
+	public int getNumberOfSubmittedUrls() {
+		return (duplicateUrlEliminator == null) ? 0 : duplicateUrlEliminator.getPendingCount();
 	}
 
+	/**
+	 * @return true if {@code url} has a docid or, if the docid server is {@link #isBatchingSeenUrls() batching},
+	 *     was submitted or given one before
+	 */
 	public boolean isSeenBefore(String url) {
-		return getDocId(url) != -1;
+		if (getDocId(url) != -1) {
+			return true;
+		}
+		if (duplicateUrlEliminator == null) {
+			return false;
+		}
+		try {
+			return duplicateUrlEliminator.contains(url);
+		} catch (RuntimeException e) {
+			if (config.isHaltOnError()) {
+				throw e;
+			} else {
+				logger.error("Exception thrown while looking up a seen URL", e);
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Tells, without waiting for a batch, whether an outgoing link is known to have been seen, so that it need not be
+	 * considered for scheduling again. Only used if {@link #isBatchingSeenUrls()}; false does not mean that the link is
+	 * new.
+	 */
+	public boolean isRecentlySeen(String url) {
+		return duplicateUrlEliminator.isRecentlySeen(url);
 	}
 
 	public final int getDocCount() {
@@ -135,17 +415,36 @@ public class DocIDServer {
 		}
 	}
 
-	public void close() {
-		try {
-			commitIfNeeded();
-		} catch (RuntimeException e) {
-			logger.error("Exception thrown while closing DocIDServer", e);
+	/**
+	 * @return the share of the lookups of unseen URLs that the seen-URL filter let through to the index, or -1 if the
+	 *     filter is disabled
+	 * @see CrawlConfig#setSeenUrlFilterExpectedUrls(int)
+	 */
+	public double getSeenUrlFilterFalsePositiveRate() {
+		return (seenUrlFilter == null) ? -1 : seenUrlFilter.getFalsePositiveRate();
+	}
+
+	/** The index writes through to the operating system on every change, so only an fsync remains to be done. */
+	@Override
+	public void checkpoint(boolean fsync) {
+		if (fsync) {
+			docIDsDB.force();
 		}
 	}
 
-	private void commitIfNeeded() {
-		if (resumable) {
-			store.save(new HashMap<>(docIDsDB));
+	public void close() {
+		if (seenUrlFilter != null) {
+			logger.info("False positive rate of the seen-URL filter: {}", seenUrlFilter.getFalsePositiveRate());
+		}
+		lock.lock();
+		try {
+			try {
+				docIDsDB.close();
+			} catch (RuntimeException e) {
+				logger.error("Exception thrown while closing DocIDServer", e);
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 }
@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.util.function.LongConsumer;
+
+/** Storage behind {@link DocIDServer}, mapping URLs to their docids. */
+interface DocIdIndex {
+
+	/** @return the docid of {@code url}, or -1 if it has none */
+	int get(String url);
+
+	/** Stores {@code docId} for an URL that has no docid yet. */
+	void put(String url, int docId);
+
+	int size();
+
+	/** @return the largest docid stored so far, or 0 if the index is empty */
+	int getMaxDocId();
+
+	/** Calls {@code action} with the {@link UrlFingerprint} of each URL of the index. */
+	void forEachFingerprint(LongConsumer action);
+
+	/** Forces the index to the storage device; may be called without holding the lock guarding the other methods. */
+	void force();
+
+	void close();
+}
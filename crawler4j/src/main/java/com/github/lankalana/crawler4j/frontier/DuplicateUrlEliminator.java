@@ -0,0 +1,248 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import com.github.lankalana.crawler4j.url.WebURL;
+
+/**
+ * Duplicate URL eliminator in the style of Mercator, for crawls whose seen URLs do not fit in memory. Outgoing links
+ * are buffered and, once the buffer is full, checked against the {@link SeenUrlFile} of the crawl in one sorted merge;
+ * only the links that were never seen before are released, each with a new docid. As in Mercator, a small cache of
+ * the URLs seen recently lets the crawlers skip most of the links they find again without waiting for a batch.
+ *
+ * <p>Like {@link FingerprintDocIdIndex}, URLs are told apart by their 64-bit fingerprint.
+ */
+final class DuplicateUrlEliminator {
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+	private static final int MAX_RECENT_SIZE = 1 << 20;
+
+	private final SeenUrlFile seenUrls;
+	private final int batchSize;
+
+	/** Guards the buffer; held only briefly, so that links can be submitted while a batch is merged. */
+	private final Object bufferLock = new Object();
+	/** Serializes the merges of batches. */
+	private final Object mergeLock = new Object();
+
+	private long[] fingerprints = new long[INITIAL_BUFFER_SIZE];
+	/** URLs to release if they are new, or null for URLs only recorded as seen. */
+	private WebURL[] urls = new WebURL[INITIAL_BUFFER_SIZE];
+	private int size;
+
+	/** The fingerprints of the batch being merged, until the seen URLs file holds them; guarded by the buffer lock */
+	private long[] mergingFingerprints;
+	private int mergingSize;
+
+	/** Fingerprints of URLs seen recently, each in the slot its low bits pick, or 0 for an empty slot */
+	private final AtomicLongArray recent;
+
+	DuplicateUrlEliminator(File file, int batchSize) {
+		this.seenUrls = new SeenUrlFile(file);
+		this.batchSize = batchSize;
+		int recentSize = Integer.highestOneBit(Math.max(INITIAL_BUFFER_SIZE, Math.min(MAX_RECENT_SIZE, batchSize * 4)));
+		this.recent = new AtomicLongArray(recentSize);
+	}
+
+	/** @return the largest docid assigned to a released URL by this or a previous run of the crawl */
+	int getLastDocId() {
+		return seenUrls.getLastDocId();
+	}
+
+	/** @return number of URLs in the seen URLs file */
+	long getSeenCount() {
+		return seenUrls.size();
+	}
+
+	/** @return number of URLs submitted, or recorded, since the last merge */
+	int getPendingCount() {
+		synchronized (bufferLock) {
+			return size;
+		}
+	}
+
+	/**
+	 * Buffers URLs to be released by a later {@link #merge(AtomicInteger)} if they were never seen.
+	 *
+	 * @return true if the buffer is full and should be merged
+	 */
+	boolean submit(List<WebURL> submitted) {
+		long[] submittedFingerprints = new long[submitted.size()];
+		for (int i = 0; i < submittedFingerprints.length; i++) {
+			submittedFingerprints[i] = UrlFingerprint.of(submitted.get(i).getURL());
+			remember(submittedFingerprints[i]);
+		}
+		synchronized (bufferLock) {
+			for (int i = 0; i < submittedFingerprints.length; i++) {
+				add(submittedFingerprints[i], submitted.get(i));
+			}
+			return size >= batchSize;
+		}
+	}
+
+	/** Records an URL that was given a docid some other way, so that it is not released again. */
+	void recordSeen(String url) {
+		long fingerprint = UrlFingerprint.of(url);
+		remember(fingerprint);
+		synchronized (bufferLock) {
+			add(fingerprint, null);
+		}
+	}
+
+	/**
+	 * @return true if {@code url} was submitted or recorded recently, so that it is known to be seen without a lookup;
+	 *     false does not mean that it was never seen
+	 */
+	boolean isRecentlySeen(String url) {
+		long fingerprint = UrlFingerprint.of(url);
+		return recent.get(slot(fingerprint)) == fingerprint;
+	}
+
+	/**
+	 * Tells whether {@code url} was ever submitted or recorded, looking it up in the buffer and in the seen URLs file.
+	 * Meant for the few URLs that cannot wait for a batch, such as the URL a page was redirected to.
+	 */
+	boolean contains(String url) {
+		long fingerprint = UrlFingerprint.of(url);
+		if (recent.get(slot(fingerprint)) == fingerprint) {
+			return true;
+		}
+		synchronized (bufferLock) {
+			if (indexOf(fingerprints, size, fingerprint) >= 0
+					|| indexOf(mergingFingerprints, mergingSize, fingerprint) >= 0) {
+				return true;
+			}
+		}
+		// A batch leaves the buffer only once the file holds it, so it cannot be missed in between
+		return seenUrls.contains(fingerprint);
+	}
+
+	/**
+	 * Merges the buffered URLs into the seen URLs file. The file is only replaced once {@code consumer} has taken the
+	 * released URLs, so that a crash in between does not lose them.
+	 *
+	 * @param lastDocID counter the docids of the released URLs are taken from
+	 * @param consumer takes the submitted URLs that were never seen before, each once, in the order they were
+	 *     submitted, unless there are none
+	 * @return number of released URLs
+	 */
+	int merge(AtomicInteger lastDocID, Consumer<List<WebURL>> consumer) {
+		synchronized (mergeLock) {
+			long[] batchFingerprints;
+			WebURL[] batchUrls;
+			int batchLength;
+			synchronized (bufferLock) {
+				if (size == 0) {
+					return 0;
+				}
+				batchFingerprints = fingerprints;
+				batchUrls = urls;
+				batchLength = size;
+				mergingFingerprints = batchFingerprints;
+				mergingSize = batchLength;
+				fingerprints = new long[INITIAL_BUFFER_SIZE];
+				urls = new WebURL[INITIAL_BUFFER_SIZE];
+				size = 0;
+			}
+
+			try {
+				return merge(batchFingerprints, batchUrls, batchLength, lastDocID, consumer);
+			} finally {
+				synchronized (bufferLock) {
+					mergingFingerprints = null;
+					mergingSize = 0;
+				}
+			}
+		}
+	}
+
+	private int merge(
+			long[] batchFingerprints,
+			WebURL[] batchUrls,
+			int batchLength,
+			AtomicInteger lastDocID,
+			Consumer<List<WebURL>> consumer) {
+		long[] sorted = Arrays.copyOf(batchFingerprints, batchLength);
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < batchLength; i++) {
+			if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+				sorted[distinct++] = sorted[i];
+			}
+			// Links found in the file are remembered too, as they are likely to be found again
+			remember(sorted[i]);
+		}
+		long[] fresh = seenUrls.merge(sorted, distinct);
+
+		// URLs recorded as seen take their fingerprint first, then each new one is released once
+		boolean[] taken = new boolean[fresh.length];
+		for (int i = 0; i < batchLength; i++) {
+			if (batchUrls[i] == null) {
+				int index = Arrays.binarySearch(fresh, batchFingerprints[i]);
+				if (index >= 0) {
+					taken[index] = true;
+				}
+			}
+		}
+		List<WebURL> released = new ArrayList<>();
+		for (int i = 0; i < batchLength; i++) {
+			if (batchUrls[i] != null) {
+				int index = Arrays.binarySearch(fresh, batchFingerprints[i]);
+				if (index >= 0 && !taken[index]) {
+					taken[index] = true;
+					batchUrls[i].setDocid(lastDocID.incrementAndGet());
+					released.add(batchUrls[i]);
+				}
+			}
+		}
+		if (!released.isEmpty()) {
+			consumer.accept(released);
+		}
+		seenUrls.commit(lastDocID.get());
+		return released.size();
+	}
+
+	private void remember(long fingerprint) {
+		recent.set(slot(fingerprint), fingerprint);
+	}
+
+	private int slot(long fingerprint) {
+		return (int) fingerprint & (recent.length() - 1);
+	}
+
+	private static int indexOf(long[] array, int length, long value) {
+		for (int i = 0; i < length; i++) {
+			if (array[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void add(long fingerprint, WebURL url) {
+		if (size == fingerprints.length) {
+			fingerprints = Arrays.copyOf(fingerprints, size * 2);
+			urls = Arrays.copyOf(urls, size * 2);
+		}
+		fingerprints[size] = fingerprint;
+		urls[size] = url;
+		size++;
+	}
+}
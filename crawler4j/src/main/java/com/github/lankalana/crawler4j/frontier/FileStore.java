@@ -15,6 +15,7 @@ package com.github.lankalana.crawler4j.frontier;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -52,14 +53,22 @@ final class FileStore<T extends Serializable> {
 	}
 
 	void save(T value) {
+		save(value, false);
+	}
+
+	void save(T value, boolean fsync) {
 		File parent = file.getParentFile();
 		if (parent != null && !parent.exists()) {
 			parent.mkdirs();
 		}
 		File tmpFile = new File(parent, file.getName() + ".tmp");
-		try (ObjectOutputStream output =
-				new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile.toPath())))) {
+		try (FileOutputStream fileOutput = new FileOutputStream(tmpFile);
+				ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(fileOutput))) {
 			output.writeObject(value);
+			output.flush();
+			if (fsync) {
+				fileOutput.getChannel().force(true);
+			}
 		} catch (IOException e) {
 			throw new RuntimeException("Error writing persistent store: " + file, e);
 		}
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Docid index held on the heap that keeps a 64-bit {@link UrlFingerprint} of each URL instead of the URL, used when
+ * {@link com.github.lankalana.crawler4j.crawler.CrawlConfig#isFingerprintSeenUrls()} is set and the crawl is not
+ * resumable.
+ *
+ * <p>Each stripe is a primitive open-addressing table of fingerprints and docids: 12 bytes per slot, that is 16 to 32
+ * bytes per URL depending on how full the tables are.
+ *
+ * <p>URLs with the same fingerprint share a docid, so the second of them is taken as already seen. For n URLs the
+ * chance of any collision is about n^2 / 2^65: 1 in 370,000 for 10 million URLs, 3 in 10,000 for 100 million.
+ */
+final class FingerprintDocIdIndex extends AbstractStripedDocIdIndex<FingerprintDocIdIndex.FingerprintStripe> {
+
+	/** Marks empty slots; a URL with this fingerprint is stored under {@link #ZERO_REPLACEMENT} instead. */
+	private static final long EMPTY = 0;
+	private static final long ZERO_REPLACEMENT = 1;
+
+	FingerprintDocIdIndex() {
+		this(Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	/** @param concurrency number of threads expected to write at the same time */
+	FingerprintDocIdIndex(int concurrency) {
+		super(new FingerprintStripe[stripeCount(concurrency)], FingerprintStripe::new);
+	}
+
+	/** The fingerprint is the hash, and is all that is kept of the URL. */
+	@Override
+	long hash(String url) {
+		long fingerprint = UrlFingerprint.of(url);
+		return (fingerprint == EMPTY) ? ZERO_REPLACEMENT : fingerprint;
+	}
+
+	/** @return bytes taken by the slots of the tables */
+	long getMemoryUsage() {
+		long bytes = 0;
+		for (FingerprintStripe stripe : stripes) {
+			long stamp = stripe.lock.readLock();
+			try {
+				bytes += (long) stripe.capacity() * (Long.BYTES + Integer.BYTES);
+			} finally {
+				stripe.lock.unlockRead(stamp);
+			}
+		}
+		return bytes;
+	}
+
+	static final class FingerprintStripe extends Stripe {
+		Table table = new Table(INITIAL_STRIPE_CAPACITY);
+
+		@Override
+		int find(String url, long fingerprint) {
+			return table.find(fingerprint);
+		}
+
+		@Override
+		int capacity() {
+			return table.fingerprints.length;
+		}
+
+		@Override
+		void grow() {
+			Table larger = new Table(table.fingerprints.length * 2);
+			for (int i = 0; i < table.fingerprints.length; i++) {
+				if (table.fingerprints[i] != EMPTY) {
+					larger.insert(table.fingerprints[i], table.docIds[i]);
+				}
+			}
+			table = larger;
+		}
+
+		@Override
+		boolean insert(String url, long fingerprint, int docId) {
+			return table.insert(fingerprint, docId);
+		}
+
+		@Override
+		void forEachFingerprint(LongConsumer action) {
+			for (long fingerprint : table.fingerprints) {
+				if (fingerprint != EMPTY) {
+					action.accept(fingerprint);
+				}
+			}
+		}
+	}
+
+	private static final class Table {
+		final long[] fingerprints;
+		final int[] docIds;
+
+		Table(int capacity) {
+			fingerprints = new long[capacity];
+			docIds = new int[capacity];
+		}
+
+		int find(long fingerprint) {
+			int mask = fingerprints.length - 1;
+			for (int slot = (int) fingerprint & mask; ; slot = (slot + 1) & mask) {
+				long key = fingerprints[slot];
+				if (key == EMPTY) {
+					return -1;
+				}
+				if (key == fingerprint) {
+					return docIds[slot];
+				}
+			}
+		}
+
+		/** @return true if {@code fingerprint} was added, false if its docid was replaced */
+		boolean insert(long fingerprint, int docId) {
+			int mask = fingerprints.length - 1;
+			int slot = (int) fingerprint & mask;
+			while (fingerprints[slot] != EMPTY) {
+				if (fingerprints[slot] == fingerprint) {
+					docIds[slot] = docId;
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			docIds[slot] = docId;
+			fingerprints[slot] = fingerprint;
+			return true;
+		}
+	}
+}
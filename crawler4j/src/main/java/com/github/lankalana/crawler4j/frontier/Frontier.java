@@ -14,11 +14,17 @@ package com.github.lankalana.crawler4j.frontier;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.fetcher.CachingDnsResolver;
+import com.github.lankalana.crawler4j.fetcher.PolitenessScheduler;
+import com.github.lankalana.crawler4j.robotstxt.RobotstxtServer;
 import com.github.lankalana.crawler4j.url.WebURL;
 
 /** @author Yasser Ganjisaffar */
@@ -33,22 +39,56 @@ public class Frontier {
 	protected InProcessPagesDB inProcessPages;
 
 	protected final Object mutex = new Object();
+
+	/**
+	 * @deprecated Crawlers waiting for new URLs park on {@link #waitingLock} instead. The frontier still notifies this
+	 *     object whenever it signals them, for subclasses that wait on it.
+	 */
+	@Deprecated
 	protected final Object waitingList = new Object();
 
-	protected boolean isFinished = false;
+	/*
+	 * Crawlers waiting for new URLs park on a lock rather than in Object.wait(), which would pin the carrier of a
+	 * virtual thread for as long as it waits.
+	 */
+	protected final ReentrantLock waitingLock = new ReentrantLock();
+	protected final Condition urlsAvailable = waitingLock.newCondition();
+	private volatile long signals;
+
+	protected volatile boolean isFinished = false;
 
 	protected long scheduledPages;
 
 	protected Counters counters;
 
+	private DocIDServer docIdServer;
+
+	/** Resolves the hosts of scheduled URLs ahead of their fetch, if DNS prefetching is enabled */
+	private CachingDnsResolver dnsPrefetcher;
+
+	/** Fetches the robots.txt of the hosts of scheduled URLs ahead of their fetch, if enabled */
+	private RobotstxtServer robotstxtPrefetcher;
+
 	public Frontier(File storageFolder, CrawlConfig config) {
+		this(storageFolder, config, null);
+	}
+
+	/**
+	 * @param checkpointer if not null, the resumable state of the frontier is persisted by this checkpointer instead
+	 *     of on every change
+	 */
+	public Frontier(File storageFolder, CrawlConfig config, Checkpointer checkpointer) {
 		this.config = config;
-		this.counters = new Counters(storageFolder, config);
+		this.counters = new Counters(storageFolder, config, checkpointer);
 		try {
-			workQueues = new WorkQueues(storageFolder, DATABASE_NAME, config.isResumableCrawling());
+			if (config.isHostPartitionedFrontier()) {
+				workQueues = new HostQueues(storageFolder, DATABASE_NAME, config, checkpointer);
+			} else {
+				workQueues = new WorkQueues(storageFolder, DATABASE_NAME, config.isResumableCrawling(), checkpointer);
+			}
 			if (config.isResumableCrawling()) {
 				scheduledPages = counters.getValue(Counters.ReservedCounterNames.SCHEDULED_PAGES);
-				inProcessPages = new InProcessPagesDB(storageFolder);
+				inProcessPages = new InProcessPagesDB(storageFolder, checkpointer);
 				long numPreviouslyInProcessPages = inProcessPages.getLength();
 				if (numPreviouslyInProcessPages > 0) {
 					logger.info("Rescheduling {} URLs from previous crawl.", numPreviouslyInProcessPages);
@@ -65,6 +105,11 @@ public class Frontier {
 				inProcessPages = null;
 				scheduledPages = 0;
 			}
+			if (checkpointer != null && config.isResumableCrawling()) {
+				checkpointer.register(counters);
+				checkpointer.register(workQueues);
+				checkpointer.register(inProcessPages);
+			}
 		} catch (RuntimeException e) {
 			logger.error("Error while initializing the Frontier", e);
 			workQueues = null;
@@ -91,9 +136,10 @@ public class Frontier {
 				scheduledPages += newScheduledPage;
 				counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES, newScheduledPage);
 			}
-			synchronized (waitingList) {
-				waitingList.notifyAll();
-			}
+		}
+		signalWaiters();
+		for (WebURL url : urls) {
+			prefetch(url);
 		}
 	}
 
@@ -110,17 +156,29 @@ public class Frontier {
 				logger.error("Error while putting the url in the work queue", e);
 			}
 		}
+		signalWaiters();
+		prefetch(url);
+	}
+
+	private void prefetch(WebURL url) {
+		if (dnsPrefetcher != null) {
+			dnsPrefetcher.prefetch(url.getHost());
+		}
+		if (robotstxtPrefetcher != null) {
+			robotstxtPrefetcher.prefetch(url);
+		}
 	}
 
 	public void getNextURLs(int max, List<WebURL> result) {
 		while (true) {
+			long waitMillis = 0;
+			long version = signals;
 			synchronized (mutex) {
 				if (isFinished) {
 					return;
 				}
 				try {
-					List<WebURL> curResults = workQueues.get(max);
-					workQueues.delete(curResults.size());
+					List<WebURL> curResults = workQueues.poll(max);
 					if (inProcessPages != null) {
 						for (WebURL curPage : curResults) {
 							inProcessPages.put(curPage);
@@ -134,12 +192,20 @@ public class Frontier {
 				if (result.size() > 0) {
 					return;
 				}
+				// Queued URLs whose hosts are not ready yet are picked up without waiting for a notification
+				long delay = workQueues.getDelayUntilReady();
+				if (delay >= 0) {
+					waitMillis = Math.max(1, delay);
+				}
+			}
+
+			// Links buffered for a batched seen check are released rather than waited for when the queue runs dry
+			if (waitMillis == 0 && docIdServer != null && docIdServer.flushSubmittedUrls() > 0) {
+				continue;
 			}
 
 			try {
-				synchronized (waitingList) {
-					waitingList.wait();
-				}
+				await(version, waitMillis);
 			} catch (InterruptedException ignored) {
 				// Do nothing
 			}
@@ -149,6 +215,46 @@ public class Frontier {
 		}
 	}
 
+	/**
+	 * Waits until new URLs are scheduled, the frontier is finished or {@code maxWaitMillis} milliseconds have passed.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void awaitNewURLs(long maxWaitMillis) throws InterruptedException {
+		await(signals, Math.max(1, maxWaitMillis));
+	}
+
+	/** Waits unless URLs were scheduled since {@code version} was read; {@code waitMillis} of 0 waits indefinitely. */
+	private void await(long version, long waitMillis) throws InterruptedException {
+		waitingLock.lock();
+		try {
+			if (isFinished || signals != version) {
+				return;
+			}
+			if (waitMillis > 0) {
+				urlsAvailable.await(waitMillis, TimeUnit.MILLISECONDS);
+			} else {
+				urlsAvailable.await();
+			}
+		} finally {
+			waitingLock.unlock();
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	protected void signalWaiters() {
+		waitingLock.lock();
+		try {
+			signals++;
+			urlsAvailable.signalAll();
+		} finally {
+			waitingLock.unlock();
+		}
+		synchronized (waitingList) {
+			waitingList.notifyAll();
+		}
+	}
+
 	public void setProcessed(WebURL webURL) {
 		counters.increment(Counters.ReservedCounterNames.PROCESSED_PAGES);
 		if (inProcessPages != null) {
@@ -158,6 +264,27 @@ public class Frontier {
 		}
 	}
 
+	/** Lets a host partitioned frontier take the politeness reservations of the fetcher into account. */
+	public void setPolitenessScheduler(PolitenessScheduler politenessScheduler) {
+		if (workQueues instanceof HostQueues) {
+			((HostQueues) workQueues).setPolitenessScheduler(politenessScheduler);
+		}
+	}
+
+	/** Lets the frontier resolve the hosts of the URLs it schedules in the background. */
+	public void setDnsPrefetcher(CachingDnsResolver dnsPrefetcher) {
+		this.dnsPrefetcher = dnsPrefetcher;
+	}
+
+	public void setRobotstxtPrefetcher(RobotstxtServer robotstxtPrefetcher) {
+		this.robotstxtPrefetcher = robotstxtPrefetcher;
+	}
+
+	/** Lets the frontier release the links a batching docid server holds when it runs out of URLs. */
+	public void setDocIdServer(DocIDServer docIdServer) {
+		this.docIdServer = docIdServer;
+	}
+
 	public long getQueueLength() {
 		return workQueues.getLength();
 	}
@@ -192,8 +319,6 @@ public class Frontier {
 
 	public void finish() {
 		isFinished = true;
-		synchronized (waitingList) {
-			waitingList.notifyAll();
-		}
+		signalWaiters();
 	}
 }
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.fetcher.PolitenessScheduler;
+import com.github.lankalana.crawler4j.url.WebURL;
+
+/**
+ * Work queues partitioned by host, in the style of the Mercator back-end queues. Each host (or registered domain, see
+ * {@link CrawlConfig#setPolitenessGrouping(PolitenessScheduler.Grouping)}) has its own queue, ordered like
+ * {@link WorkQueues}, and the hosts sit in a min-heap keyed by the time they may be fetched again. {@link #poll(int)}
+ * only hands out URLs whose host is ready, at most one per host and politeness delay, so the URLs of a batch are
+ * spread across hosts and can be fetched right away.
+ *
+ * <p>Persistence is inherited from {@link WorkQueues}; the per-host queues are rebuilt from it when they are first
+ * used.
+ */
+public class HostQueues extends WorkQueues {
+	private final CrawlConfig config;
+
+	private final Map<String, HostQueue> hostQueues = new HashMap<>();
+	/** Ordered by ready time, then by sequence, which is unique, so that a host can be removed in logarithmic time */
+	private final TreeSet<HostQueue> readyHosts = new TreeSet<>(
+			Comparator.comparingLong((HostQueue queue) -> queue.readyTime).thenComparingLong(queue -> queue.sequence));
+	private long sequence;
+
+	/** Whether the per-host queues hold the URLs of the queue, which they don't until first used */
+	private boolean indexed;
+
+	private PolitenessScheduler politenessScheduler;
+
+	public HostQueues(File storageFolder, String dbName, CrawlConfig config, Checkpointer checkpointer) {
+		super(storageFolder, dbName, config.isResumableCrawling(), checkpointer);
+		this.config = config;
+	}
+
+	/**
+	 * Lets the queues take the politeness reservations of the fetcher into account when deciding whether a host is
+	 * ready.
+	 */
+	public void setPolitenessScheduler(PolitenessScheduler politenessScheduler) {
+		synchronized (mutex) {
+			this.politenessScheduler = politenessScheduler;
+		}
+	}
+
+	@Override
+	public void put(WebURL url) {
+		synchronized (mutex) {
+			super.put(url);
+			if (indexed) {
+				index(url);
+			}
+		}
+	}
+
+	@Override
+	public List<WebURL> poll(int max) {
+		synchronized (mutex) {
+			ensureIndexed();
+			List<WebURL> results = new ArrayList<>(Math.min(max, hostQueues.size()));
+			long now = System.currentTimeMillis();
+			while (results.size() < max && !readyHosts.isEmpty() && readyHosts.first().readyTime <= now) {
+				HostQueue queue = readyHosts.pollFirst();
+				long scheduled = getScheduledFetchTime(queue.key);
+				if (scheduled > now) {
+					schedule(queue, scheduled);
+					continue;
+				}
+
+				WebURL url = removeEntry(queue.keys.pollFirst());
+				if (url != null) {
+					results.add(url);
+				}
+				if (queue.keys.isEmpty()) {
+					hostQueues.remove(queue.key);
+				} else {
+					schedule(queue, now + getDelay(queue.key));
+				}
+			}
+			if (!results.isEmpty()) {
+				commit();
+			}
+			return results;
+		}
+	}
+
+	@Override
+	public long getDelayUntilReady() {
+		synchronized (mutex) {
+			ensureIndexed();
+			if (readyHosts.isEmpty()) {
+				return -1;
+			}
+			return Math.max(0, readyHosts.first().readyTime - System.currentTimeMillis());
+		}
+	}
+
+	@Override
+	public void delete(int count) {
+		synchronized (mutex) {
+			ensureIndexed();
+			for (WebURL url : get(count)) {
+				HostQueue queue = hostQueues.get(getHostKey(url));
+				if (queue != null) {
+					queue.keys.remove(getDatabaseEntryKey(url));
+					if (queue.keys.isEmpty()) {
+						hostQueues.remove(queue.key);
+						readyHosts.remove(queue);
+					}
+				}
+			}
+			super.delete(count);
+		}
+	}
+
+	/** @return the name of the queue {@code url} is put in */
+	protected String getHostKey(WebURL url) {
+		if (config.getPolitenessGrouping() == PolitenessScheduler.Grouping.DOMAIN) {
+			String domain = url.getDomain();
+			return (domain == null) ? "" : domain;
+		}
+		String host = url.getHost();
+		return (host == null) ? "" : host;
+	}
+
+	/** Rebuilds the per-host queues from the queue, which may have been loaded from a previous crawl. */
+	private void ensureIndexed() {
+		if (indexed) {
+			return;
+		}
+		indexed = true;
+		for (WebURL url : get((int) getLength())) {
+			index(url);
+		}
+	}
+
+	private void index(WebURL url) {
+		String hostKey = getHostKey(url);
+		HostQueue queue = hostQueues.get(hostKey);
+		if (queue == null) {
+			queue = new HostQueue(hostKey);
+			hostQueues.put(hostKey, queue);
+			schedule(queue, getScheduledFetchTime(hostKey));
+		}
+		queue.keys.add(getDatabaseEntryKey(url));
+	}
+
+	private void schedule(HostQueue queue, long readyTime) {
+		queue.readyTime = readyTime;
+		queue.sequence = sequence++;
+		readyHosts.add(queue);
+	}
+
+	private long getDelay(String hostKey) {
+		return (politenessScheduler == null) ? config.getPolitenessDelay() : politenessScheduler.getDelay(hostKey);
+	}
+
+	private long getScheduledFetchTime(String hostKey) {
+		return (politenessScheduler == null) ? 0 : politenessScheduler.getNextFetchTime(hostKey);
+	}
+
+	private static final class HostQueue {
+		private final String key;
+		private final TreeSet<Long> keys = new TreeSet<>();
+		private long readyTime;
+		private long sequence;
+
+		HostQueue(String key) {
+			this.key = key;
+		}
+	}
+}
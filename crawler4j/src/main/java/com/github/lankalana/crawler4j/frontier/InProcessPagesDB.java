@@ -31,7 +31,11 @@ public class InProcessPagesDB extends WorkQueues {
 	private static final String DATABASE_NAME = "InProcessPagesDB";
 
 	public InProcessPagesDB(File storageFolder) {
-		super(storageFolder, DATABASE_NAME, true);
+		this(storageFolder, null);
+	}
+
+	public InProcessPagesDB(File storageFolder, Checkpointer checkpointer) {
+		super(storageFolder, DATABASE_NAME, true, checkpointer);
 		long docCount = getLength();
 		if (docCount > 0) {
 			logger.info("Loaded {} URLs that have been in process in the previous crawl.", docCount);
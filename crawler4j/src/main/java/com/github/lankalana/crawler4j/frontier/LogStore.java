@@ -0,0 +1,265 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of put and delete records keyed by a {@code long}. Every mutation costs a single appended record;
+ * the full state is only rewritten when the log is compacted, which happens once it holds considerably more records
+ * than there are live entries. Records carry a checksum so that a record torn by a crash is dropped on replay instead
+ * of corrupting the store.
+ *
+ * <p>This class is not thread safe; callers are expected to guard it with their own lock. Only {@link #sync()} may
+ * be called without holding that lock.
+ */
+final class LogStore {
+	private static final Logger logger = LoggerFactory.getLogger(LogStore.class);
+
+	private static final byte PUT = 1;
+	private static final byte DELETE = 2;
+
+	/** type + key + value length */
+	private static final int HEADER_SIZE = 1 + 8 + 4;
+
+	private static final int MAX_VALUE_LENGTH = 16 * 1024 * 1024;
+
+	private static final int COMPACTION_MIN_RECORDS = 10_000;
+	private static final int COMPACTION_RATIO = 2;
+
+	private final File file;
+	private final CRC32 crc = new CRC32();
+	private final ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE);
+
+	private volatile FileOutputStream fileOutput;
+	private OutputStream output;
+	private long records;
+
+	LogStore(File file) {
+		this.file = file;
+	}
+
+	boolean exists() {
+		return file.exists();
+	}
+
+	/**
+	 * Replays the log into {@code target} and opens it for appending. A truncated or corrupt tail, as left behind by
+	 * a crash in the middle of a write, is cut off.
+	 */
+	void load(Map<Long, byte[]> target) {
+		long loadedLength = 0;
+		if (file.exists()) {
+			try (DataInputStream input =
+					new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), 65536))) {
+				while (true) {
+					byte type;
+					try {
+						type = input.readByte();
+					} catch (EOFException e) {
+						break;
+					}
+					long key = input.readLong();
+					int length = input.readInt();
+					boolean validLength = (type == PUT) ? (length >= 0 && length <= MAX_VALUE_LENGTH) : (length == 0);
+					if ((type != PUT && type != DELETE) || !validLength) {
+						throw new IOException("Invalid record header");
+					}
+					byte[] value = new byte[length];
+					input.readFully(value);
+					int checksum = input.readInt();
+
+					prepareHeader(type, key, length);
+					crc.reset();
+					crc.update(record.array(), 0, HEADER_SIZE);
+					crc.update(value);
+					if ((int) crc.getValue() != checksum) {
+						throw new IOException("Checksum mismatch");
+					}
+
+					if (type == PUT) {
+						target.put(key, value);
+					} else {
+						target.remove(key);
+					}
+					records++;
+					loadedLength += HEADER_SIZE + length + 4;
+				}
+			} catch (IOException e) {
+				logger.warn(
+						"Log {} is damaged after {} records, discarding the rest: {}", file, records, e.getMessage());
+			}
+			truncate(loadedLength);
+		}
+		open();
+	}
+
+	void put(long key, byte[] value) {
+		append(PUT, key, value);
+	}
+
+	void delete(long key) {
+		append(DELETE, key, null);
+	}
+
+	/** Pushes the appended records to the operating system. */
+	void flush() {
+		try {
+			output.flush();
+		} catch (IOException e) {
+			throw new RuntimeException("Error writing log: " + file, e);
+		}
+	}
+
+	/** Forces the records pushed by {@link #flush()} to the storage device. */
+	void sync() {
+		FileOutputStream current = fileOutput;
+		if (current == null) {
+			return;
+		}
+		try {
+			current.getChannel().force(false);
+		} catch (ClosedChannelException e) {
+			// The log has been compacted or closed meanwhile, both of which force the data themselves
+		} catch (IOException e) {
+			throw new RuntimeException("Error syncing log: " + file, e);
+		}
+	}
+
+	boolean needsCompaction(int liveEntries) {
+		return records > COMPACTION_MIN_RECORDS && records > (long) COMPACTION_RATIO * liveEntries;
+	}
+
+	/** Rewrites the log so that it holds exactly one put record per entry of {@code entries}. */
+	void compact(SortedMap<Long, byte[]> entries) {
+		flush();
+		closeQuietly();
+		File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (FileOutputStream tmpOutput = new FileOutputStream(tmpFile)) {
+			output = new BufferedOutputStream(tmpOutput, 65536);
+			records = 0;
+			for (Map.Entry<Long, byte[]> entry : entries.entrySet()) {
+				append(PUT, entry.getKey(), entry.getValue());
+			}
+			output.flush();
+			tmpOutput.getChannel().force(true);
+		} catch (IOException e) {
+			throw new RuntimeException("Error compacting log: " + file, e);
+		}
+		try {
+			Files.move(
+					tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			try {
+				Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException moveError) {
+				throw new RuntimeException("Error replacing log: " + file, moveError);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Error replacing log: " + file, e);
+		}
+		open();
+	}
+
+	void close() {
+		if (output != null) {
+			flush();
+			closeQuietly();
+		}
+	}
+
+	private void append(byte type, long key, byte[] value) {
+		int length = (value == null) ? 0 : value.length;
+		prepareHeader(type, key, length);
+		crc.reset();
+		crc.update(record.array(), 0, HEADER_SIZE);
+		if (value != null) {
+			crc.update(value);
+		}
+		try {
+			output.write(record.array(), 0, HEADER_SIZE);
+			if (value != null) {
+				output.write(value);
+			}
+			record.clear();
+			record.putInt((int) crc.getValue());
+			output.write(record.array(), 0, 4);
+		} catch (IOException e) {
+			throw new RuntimeException("Error writing log: " + file, e);
+		}
+		records++;
+	}
+
+	private void prepareHeader(byte type, long key, int length) {
+		record.clear();
+		record.put(type);
+		record.putLong(key);
+		record.putInt(length);
+	}
+
+	private void truncate(long length) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			if (channel.size() > length) {
+				channel.truncate(length);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Error truncating log: " + file, e);
+		}
+	}
+
+	private void open() {
+		File parent = file.getParentFile();
+		if (parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+		try {
+			fileOutput = new FileOutputStream(file, true);
+			output = new BufferedOutputStream(fileOutput, 65536);
+		} catch (IOException e) {
+			throw new RuntimeException("Error opening log: " + file, e);
+		}
+	}
+
+	private void closeQuietly() {
+		try {
+			if (fileOutput != null) {
+				fileOutput.close();
+			}
+		} catch (IOException e) {
+			logger.warn("Error closing log {}", file, e);
+		}
+		fileOutput = null;
+		output = null;
+	}
+}
@@ -0,0 +1,340 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+/**
+ * Docid index kept in memory-mapped files, so that it survives restarts without ever being rewritten and can grow far
+ * beyond the heap.
+ *
+ * <p>The table file is an open-addressing hash table with linear probing. Each slot holds the 64-bit fingerprint of an
+ * URL, the offset of the URL in the keys file and its docid; a docid of 0 marks a free slot. The keys file holds the
+ * URLs as length-prefixed UTF-8 and is only ever appended to. Lookups compare fingerprints first and only read the
+ * stored URL when they match. The table is doubled into a new file once it is three quarters full.
+ *
+ * <p>Writes reach the operating system as soon as they are made, so they survive a crash of the JVM. They are only
+ * forced to the disk by {@link #force()} and when the index is closed.
+ *
+ * <p>This class is not thread safe; callers are expected to guard it with their own lock. Only {@link #force()} may
+ * be called without holding that lock.
+ */
+final class MappedDocIdIndex implements DocIdIndex {
+	private static final long MAGIC = 0x6372346a44494458L;
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 64;
+	private static final int MAGIC_OFFSET = 0;
+	private static final int VERSION_OFFSET = 8;
+	private static final int CAPACITY_OFFSET = 12;
+	private static final int SIZE_OFFSET = 16;
+	private static final int MAX_DOC_ID_OFFSET = 20;
+	private static final int KEYS_END_OFFSET = 24;
+
+	/** fingerprint + key offset + docid */
+	private static final int SLOT_SIZE = 8 + 8 + 4;
+
+	/** Slots are mapped in regions, because a single mapping cannot exceed 2GB. */
+	private static final int REGION_SHIFT = 26;
+	private static final int SLOTS_PER_REGION = 1 << REGION_SHIFT;
+
+	private static final int KEY_SEGMENT_SIZE = 1 << 26;
+
+	private static final int INITIAL_CAPACITY = 1 << 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private final File tableFile;
+	private final File keysFile;
+	private final FileChannel keysChannel;
+	private final List<MappedByteBuffer> keySegments = new CopyOnWriteArrayList<>();
+
+	private volatile Table table;
+	private long keysEnd;
+
+	MappedDocIdIndex(File tableFile, File keysFile) {
+		this.tableFile = tableFile;
+		this.keysFile = keysFile;
+		try {
+			this.table = new Table(tableFile, INITIAL_CAPACITY);
+			this.keysChannel = FileChannel.open(
+					keysFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		} catch (IOException e) {
+			throw new RuntimeException("Error opening docid index: " + tableFile, e);
+		}
+		this.keysEnd = table.header.getLong(KEYS_END_OFFSET);
+	}
+
+	@Override
+	public int get(String url) {
+		int slot = find(UrlFingerprint.of(url), url);
+		return (slot < 0) ? -1 : table.docId(slot);
+	}
+
+	@Override
+	public void put(String url, int docId) {
+		if (size() + 1 > table.capacity / 4 * 3) {
+			grow();
+		}
+		long fingerprint = UrlFingerprint.of(url);
+		int slot = find(fingerprint, url);
+		if (slot >= 0) {
+			table.setDocId(slot, docId);
+		} else {
+			long keyOffset = appendKey(url);
+			if (docId > getMaxDocId()) {
+				table.header.putInt(MAX_DOC_ID_OFFSET, docId);
+			}
+			table.set(-slot - 1, fingerprint, keyOffset, docId);
+			table.header.putInt(SIZE_OFFSET, size() + 1);
+		}
+	}
+
+	@Override
+	public int size() {
+		return table.header.getInt(SIZE_OFFSET);
+	}
+
+	@Override
+	public int getMaxDocId() {
+		return table.header.getInt(MAX_DOC_ID_OFFSET);
+	}
+
+	@Override
+	public void forEachFingerprint(LongConsumer action) {
+		for (int slot = 0; slot < table.capacity; slot++) {
+			if (table.docId(slot) != 0) {
+				action.accept(table.fingerprint(slot));
+			}
+		}
+	}
+
+	@Override
+	public void force() {
+		for (MappedByteBuffer segment : keySegments) {
+			segment.force();
+		}
+		table.force();
+	}
+
+	@Override
+	public void close() {
+		try {
+			force();
+			keysChannel.close();
+			table.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Error closing docid index: " + tableFile, e);
+		}
+	}
+
+	/** @return the slot holding {@code url}, or {@code -(insertion slot) - 1} if it is absent */
+	private int find(long fingerprint, String url) {
+		int mask = table.capacity - 1;
+		int slot = (int) fingerprint & mask;
+		while (true) {
+			if (table.docId(slot) == 0) {
+				return -slot - 1;
+			}
+			if (table.fingerprint(slot) == fingerprint && keyEquals(table.keyOffset(slot), url)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private void grow() {
+		if (table.capacity >= MAX_CAPACITY) {
+			throw new IllegalStateException("Docid index " + tableFile + " is full");
+		}
+		File tmpFile = new File(tableFile.getParentFile(), tableFile.getName() + ".tmp");
+		try {
+			Files.deleteIfExists(tmpFile.toPath());
+			Table grown = new Table(tmpFile, table.capacity * 2);
+			int mask = grown.capacity - 1;
+			for (int slot = 0; slot < table.capacity; slot++) {
+				int docId = table.docId(slot);
+				if (docId != 0) {
+					long fingerprint = table.fingerprint(slot);
+					int target = (int) fingerprint & mask;
+					while (grown.docId(target) != 0) {
+						target = (target + 1) & mask;
+					}
+					grown.set(target, fingerprint, table.keyOffset(slot), docId);
+				}
+			}
+			grown.header.putInt(SIZE_OFFSET, size());
+			grown.header.putInt(MAX_DOC_ID_OFFSET, getMaxDocId());
+			grown.header.putLong(KEYS_END_OFFSET, keysEnd);
+			grown.force();
+			table.close();
+			try {
+				Files.move(
+						tmpFile.toPath(), tableFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile.toPath(), tableFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			table = grown;
+		} catch (IOException e) {
+			throw new RuntimeException("Error growing docid index: " + tableFile, e);
+		}
+	}
+
+	private long appendKey(String url) {
+		byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+		int recordSize = 4 + bytes.length;
+		if (recordSize > KEY_SEGMENT_SIZE) {
+			throw new IllegalArgumentException("URL is too long to be indexed: " + bytes.length + " bytes");
+		}
+		long offset = keysEnd;
+		if ((offset % KEY_SEGMENT_SIZE) + recordSize > KEY_SEGMENT_SIZE) {
+			// Records never span two segments
+			offset = (offset / KEY_SEGMENT_SIZE + 1) * KEY_SEGMENT_SIZE;
+		}
+		MappedByteBuffer segment = keySegment(offset);
+		int position = (int) (offset % KEY_SEGMENT_SIZE);
+		segment.putInt(position, bytes.length);
+		segment.put(position + 4, bytes);
+		keysEnd = offset + recordSize;
+		table.header.putLong(KEYS_END_OFFSET, keysEnd);
+		return offset;
+	}
+
+	private boolean keyEquals(long offset, String url) {
+		MappedByteBuffer segment = keySegment(offset);
+		int position = (int) (offset % KEY_SEGMENT_SIZE) + 4;
+		int length = segment.getInt(position - 4);
+		if (length == url.length()) {
+			int i = 0;
+			while (i < length) {
+				char c = url.charAt(i);
+				if (c >= 0x80) {
+					break;
+				}
+				if (segment.get(position + i) != c) {
+					return false;
+				}
+				i++;
+			}
+			if (i == length) {
+				return true;
+			}
+		}
+		byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (segment.get(position + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private MappedByteBuffer keySegment(long offset) {
+		int index = (int) (offset / KEY_SEGMENT_SIZE);
+		try {
+			while (keySegments.size() <= index) {
+				long position = (long) keySegments.size() * KEY_SEGMENT_SIZE;
+				keySegments.add(keysChannel.map(FileChannel.MapMode.READ_WRITE, position, KEY_SEGMENT_SIZE));
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Error mapping docid index keys: " + keysFile, e);
+		}
+		return keySegments.get(index);
+	}
+
+	private static final class Table {
+		private final FileChannel channel;
+		private final MappedByteBuffer header;
+		private final MappedByteBuffer[] regions;
+		private final int capacity;
+
+		/** Maps {@code file}, initializing it with {@code newCapacity} slots if it is empty. */
+		Table(File file, int newCapacity) throws IOException {
+			this.channel = FileChannel.open(
+					file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			boolean isNew = channel.size() == 0;
+			this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+			if (isNew) {
+				header.putLong(MAGIC_OFFSET, MAGIC);
+				header.putInt(VERSION_OFFSET, VERSION);
+				header.putInt(CAPACITY_OFFSET, newCapacity);
+			} else if (header.getLong(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+				channel.close();
+				throw new IOException("Not a docid index: " + file);
+			}
+			this.capacity = header.getInt(CAPACITY_OFFSET);
+
+			int regionCount = Math.max(1, capacity >>> REGION_SHIFT);
+			this.regions = new MappedByteBuffer[regionCount];
+			for (int i = 0; i < regionCount; i++) {
+				long position = HEADER_SIZE + (long) i * SLOTS_PER_REGION * SLOT_SIZE;
+				long size = (long) Math.min(capacity, SLOTS_PER_REGION) * SLOT_SIZE;
+				regions[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+			}
+		}
+
+		long fingerprint(int slot) {
+			return regions[slot >>> REGION_SHIFT].getLong(offset(slot));
+		}
+
+		long keyOffset(int slot) {
+			return regions[slot >>> REGION_SHIFT].getLong(offset(slot) + 8);
+		}
+
+		int docId(int slot) {
+			return regions[slot >>> REGION_SHIFT].getInt(offset(slot) + 16);
+		}
+
+		void set(int slot, long fingerprint, long keyOffset, int docId) {
+			MappedByteBuffer region = regions[slot >>> REGION_SHIFT];
+			int offset = offset(slot);
+			region.putLong(offset, fingerprint);
+			region.putLong(offset + 8, keyOffset);
+			// The docid marks the slot as used, so it is written last
+			region.putInt(offset + 16, docId);
+		}
+
+		void setDocId(int slot, int docId) {
+			regions[slot >>> REGION_SHIFT].putInt(offset(slot) + 16, docId);
+		}
+
+		void force() {
+			header.force();
+			for (MappedByteBuffer region : regions) {
+				region.force();
+			}
+		}
+
+		void close() throws IOException {
+			channel.close();
+		}
+
+		private static int offset(int slot) {
+			return (slot & (SLOTS_PER_REGION - 1)) * SLOT_SIZE;
+		}
+	}
+}
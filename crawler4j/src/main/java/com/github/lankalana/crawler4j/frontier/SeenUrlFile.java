@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Sorted file of the {@link UrlFingerprint}s of all the URLs seen by a crawl, behind {@link DuplicateUrlEliminator}.
+ * A batch of fingerprints is checked and added in one sequential pass that merges it with the file into a new file,
+ * so the cost per URL stays a few bytes of sequential I/O however large the file grows.
+ *
+ * <p>The file starts with the largest docid assigned when it was written, followed by the fingerprints in ascending
+ * order. It is replaced atomically, so a crash leaves the file of the last completed merge.
+ */
+final class SeenUrlFile {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final File file;
+	private final File mergedFile;
+	private volatile long count;
+	private long mergedCount;
+	private int lastDocId;
+
+	SeenUrlFile(File file) {
+		this.file = file;
+		this.mergedFile = new File(file.getParentFile(), file.getName() + ".tmp");
+		if (file.length() >= Long.BYTES) {
+			try (DataInputStream input = new DataInputStream(Files.newInputStream(file.toPath()))) {
+				lastDocId = (int) input.readLong();
+			} catch (IOException e) {
+				throw new RuntimeException("Error reading seen URLs: " + file, e);
+			}
+			count = file.length() / Long.BYTES - 1;
+		}
+	}
+
+	/** @return number of fingerprints in the file */
+	long size() {
+		return count;
+	}
+
+	/** @return the largest docid stored by the last {@link #commit(int)} */
+	int getLastDocId() {
+		return lastDocId;
+	}
+
+	/**
+	 * Looks {@code fingerprint} up with a binary search of the file, for the few URLs that are checked on their own
+	 * rather than in a batch.
+	 */
+	boolean contains(long fingerprint) {
+		if (count == 0) {
+			return false;
+		}
+		// The file is replaced rather than written over, so the one opened stays whole while it is searched
+		try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+			long low = 0;
+			long high = input.length() / Long.BYTES - 2;
+			while (low <= high) {
+				long middle = (low + high) >>> 1;
+				input.seek((middle + 1) * Long.BYTES);
+				long current = input.readLong();
+				if (current < fingerprint) {
+					low = middle + 1;
+				} else if (current > fingerprint) {
+					high = middle - 1;
+				} else {
+					return true;
+				}
+			}
+			return false;
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading seen URLs: " + file, e);
+		}
+	}
+
+	/**
+	 * Merges a batch into a new file, which replaces the current one on {@link #commit(int)}.
+	 *
+	 * @param batch fingerprints in ascending order, without duplicates
+	 * @param length number of fingerprints in {@code batch}
+	 * @return the fingerprints of the batch that were not in the file, in ascending order
+	 */
+	long[] merge(long[] batch, int length) {
+		long[] fresh = new long[length];
+		int freshCount = 0;
+		try (DataInputStream input = openForReading();
+				DataOutputStream output = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(mergedFile.toPath()), BUFFER_SIZE))) {
+			output.writeLong(lastDocId);
+			long remaining = count;
+			boolean hasCurrent = remaining > 0;
+			long current = hasCurrent ? input.readLong() : 0;
+			for (int i = 0; i < length; i++) {
+				long fingerprint = batch[i];
+				while (hasCurrent && current < fingerprint) {
+					output.writeLong(current);
+					hasCurrent = --remaining > 0;
+					current = hasCurrent ? input.readLong() : 0;
+				}
+				if (hasCurrent && current == fingerprint) {
+					continue;
+				}
+				output.writeLong(fingerprint);
+				fresh[freshCount++] = fingerprint;
+			}
+			while (hasCurrent) {
+				output.writeLong(current);
+				hasCurrent = --remaining > 0;
+				current = hasCurrent ? input.readLong() : 0;
+			}
+		} catch (EOFException e) {
+			throw new RuntimeException("Seen URLs file is truncated: " + file, e);
+		} catch (IOException e) {
+			throw new RuntimeException("Error merging seen URLs: " + file, e);
+		}
+		mergedCount = count + freshCount;
+		return Arrays.copyOf(fresh, freshCount);
+	}
+
+	/** Replaces the file by the one written by the last {@link #merge(long[], int)}, recording {@code lastDocId}. */
+	void commit(int lastDocId) {
+		try (RandomAccessFile merged = new RandomAccessFile(mergedFile, "rw")) {
+			merged.writeLong(lastDocId);
+		} catch (IOException e) {
+			throw new RuntimeException("Error writing seen URLs: " + mergedFile, e);
+		}
+		try {
+			try {
+				Files.move(
+						mergedFile.toPath(),
+						file.toPath(),
+						StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(mergedFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Error replacing seen URLs: " + file, e);
+		}
+		this.count = mergedCount;
+		this.lastDocId = lastDocId;
+	}
+
+	private DataInputStream openForReading() throws IOException {
+		if (count == 0) {
+			return null;
+		}
+		DataInputStream input =
+				new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE));
+		input.readLong();
+		return input;
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of the {@link UrlFingerprint}s of the URLs known to {@link DocIDServer}, so that most lookups of URLs
+ * that were never seen are answered without probing the docid index. It is sized for a 1% false positive rate at the
+ * expected number of URLs, that is about 1.2 bytes per URL, and keeps count of its actual false positive rate.
+ */
+final class SeenUrlFilter {
+	private static final int HASH_COUNT = 7;
+	private static final double BITS_PER_URL = 9.6;
+
+	private final AtomicLongArray words;
+	private final long bitCount;
+
+	private final LongAdder negatives = new LongAdder();
+	private final LongAdder falsePositives = new LongAdder();
+
+	/** @param expectedUrls number of URLs the crawl is expected to discover */
+	SeenUrlFilter(long expectedUrls) {
+		long wordCount = Math.max(1, (long) Math.ceil(expectedUrls * BITS_PER_URL / Long.SIZE));
+		if (wordCount > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many expected URLs for the seen-URL filter: " + expectedUrls);
+		}
+		words = new AtomicLongArray((int) wordCount);
+		bitCount = wordCount * Long.SIZE;
+	}
+
+	void add(long fingerprint) {
+		long hash = normalize(fingerprint);
+		long step = UrlFingerprint.mix(hash) | 1;
+		for (int i = 0; i < HASH_COUNT; i++, hash += step) {
+			long bit = Long.remainderUnsigned(hash, bitCount);
+			long mask = 1L << bit;
+			int word = (int) (bit >>> 6);
+			if ((words.get(word) & mask) == 0) {
+				words.getAndAccumulate(word, mask, (value, set) -> value | set);
+			}
+		}
+	}
+
+	/** @return false if the URL with this fingerprint was certainly never added, true if it may have been */
+	boolean mightContain(long fingerprint) {
+		long hash = normalize(fingerprint);
+		long step = UrlFingerprint.mix(hash) | 1;
+		for (int i = 0; i < HASH_COUNT; i++, hash += step) {
+			long bit = Long.remainderUnsigned(hash, bitCount);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				negatives.increment();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Records that a URL this filter {@link #mightContain(long) might contain} was not in the index. */
+	void recordFalsePositive() {
+		falsePositives.increment();
+	}
+
+	/** @return the share of the lookups of unseen URLs that the filter did not answer, 0 if there were none yet */
+	double getFalsePositiveRate() {
+		long falsePositiveCount = falsePositives.sum();
+		long lookups = negatives.sum() + falsePositiveCount;
+		return (lookups == 0) ? 0 : (double) falsePositiveCount / lookups;
+	}
+
+	/** The fingerprint index stores a fingerprint of 0 as 1, so both are filtered alike. */
+	private static long normalize(long fingerprint) {
+		return (fingerprint == 0) ? 1 : fingerprint;
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.frontier;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Docid index held on the heap, used when the crawl is not resumable. Each stripe is an open-addressing table of URLs
+ * and docids.
+ */
+final class StripedDocIdIndex extends AbstractStripedDocIdIndex<StripedDocIdIndex.UrlStripe> {
+
+	StripedDocIdIndex() {
+		this(Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	/** @param concurrency number of threads expected to write at the same time */
+	StripedDocIdIndex(int concurrency) {
+		super(new UrlStripe[stripeCount(concurrency)], UrlStripe::new);
+	}
+
+	/** The mixed string hash fills both halves, so it chooses the stripe and the slot like a 32-bit hash would. */
+	@Override
+	long hash(String url) {
+		int h = mix(url);
+		return ((long) h << 32) | (h & 0xFFFFFFFFL);
+	}
+
+	private static int mix(String url) {
+		int h = url.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	static final class UrlStripe extends Stripe {
+		Table table = new Table(INITIAL_STRIPE_CAPACITY);
+
+		@Override
+		int find(String url, long hash) {
+			return table.find(url, (int) hash);
+		}
+
+		@Override
+		int capacity() {
+			return table.urls.length;
+		}
+
+		@Override
+		void grow() {
+			Table larger = new Table(table.urls.length * 2);
+			for (int i = 0; i < table.urls.length; i++) {
+				String url = table.urls[i];
+				if (url != null) {
+					larger.insert(url, mix(url), table.docIds[i]);
+				}
+			}
+			table = larger;
+		}
+
+		@Override
+		boolean insert(String url, long hash, int docId) {
+			return table.insert(url, (int) hash, docId);
+		}
+
+		@Override
+		void forEachFingerprint(LongConsumer action) {
+			for (String url : table.urls) {
+				if (url != null) {
+					action.accept(UrlFingerprint.of(url));
+				}
+			}
+		}
+	}
+
+	private static final class Table {
+		final String[] urls;
+		final int[] docIds;
+
+		Table(int capacity) {
+			urls = new String[capacity];
+			docIds = new int[capacity];
+		}
+
+		int find(String url, int hash) {
+			int mask = urls.length - 1;
+			for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+				String key = urls[slot];
+				if (key == null) {
+					return -1;
+				}
+				if (key.equals(url)) {
+					return docIds[slot];
+				}
+			}
+		}
+
+		/** @return true if {@code url} was added, false if its docid was replaced */
+		boolean insert(String url, int hash, int docId) {
+			int mask = urls.length - 1;
+			int slot = hash & mask;
+			while (urls[slot] != null) {
+				if (urls[slot].equals(url)) {
+					docIds[slot] = docId;
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			docIds[slot] = docId;
+			urls[slot] = url;
+			return true;
+		}
+	}
+}
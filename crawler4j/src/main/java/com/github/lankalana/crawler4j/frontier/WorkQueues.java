@@ -18,29 +18,86 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.TreeMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.github.lankalana.crawler4j.url.WebURL;
 
-/** @author Yasser Ganjisaffar */
-public class WorkQueues {
-	private final FileStore<TreeMap<Long, byte[]>> store;
+/**
+ * Ordered queue of URLs. In resumable mode every change is appended to a log next to the in-memory index, so the
+ * cost of persisting an operation does not depend on the size of the queue. Given a {@link Checkpointer}, the log is
+ * only flushed and compacted at checkpoints.
+ *
+ * @author Yasser Ganjisaffar
+ */
+public class WorkQueues implements Checkpointable {
+	private static final Logger logger = LoggerFactory.getLogger(WorkQueues.class);
+
+	private final LogStore store;
 	private final TreeMap<Long, byte[]> urlsDB;
 	private final boolean resumable;
+	private final Checkpointer checkpointer;
 
 	private final WebURLSerializer webURLSerializer;
 
 	protected final Object mutex = new Object();
 
 	public WorkQueues(File storageFolder, String dbName, boolean resumable) {
+		this(storageFolder, dbName, resumable, null);
+	}
+
+	/**
+	 * @param checkpointer if not null, and the queue is resumable, the log is only persisted at the checkpoints of this
+	 *     checkpointer, which the queue has to be {@link Checkpointer#register(Checkpointable) registered} with
+	 */
+	public WorkQueues(File storageFolder, String dbName, boolean resumable, Checkpointer checkpointer) {
 		this.resumable = resumable;
-		File dbFile = new File(storageFolder, dbName + ".db");
-		this.store = new FileStore<>(dbFile);
-		this.urlsDB = resumable ? store.load(TreeMap::new) : new TreeMap<>();
+		this.checkpointer = resumable ? checkpointer : null;
+		this.urlsDB = new TreeMap<>();
 		this.webURLSerializer = new WebURLSerializer();
+		if (resumable) {
+			this.store = new LogStore(new File(storageFolder, dbName + ".log"));
+			File legacyFile = new File(storageFolder, dbName + ".db");
+			if (!store.exists() && legacyFile.exists()) {
+				urlsDB.putAll(new FileStore<TreeMap<Long, byte[]>>(legacyFile).load(TreeMap::new));
+				store.load(new TreeMap<>());
+				store.compact(urlsDB);
+				if (!legacyFile.delete()) {
+					logger.warn("Could not delete {} after converting it to {}.log", legacyFile, dbName);
+				}
+			} else {
+				store.load(urlsDB);
+			}
+		} else {
+			this.store = null;
+		}
 	}
 
 	protected void commit() {
+		if (checkpointer != null) {
+			checkpointer.mutated();
+		} else if (resumable) {
+			compactOrFlush();
+		}
+	}
+
+	@Override
+	public void checkpoint(boolean fsync) {
 		if (resumable) {
-			store.save(urlsDB);
+			synchronized (mutex) {
+				compactOrFlush();
+			}
+			if (fsync) {
+				store.sync();
+			}
+		}
+	}
+
+	private void compactOrFlush() {
+		if (store.needsCompaction(urlsDB.size())) {
+			store.compact(urlsDB);
+		} else {
+			store.flush();
 		}
 	}
 
@@ -60,13 +117,40 @@ public class WorkQueues {
 		}
 	}
 
+	/**
+	 * Removes and returns up to {@code max} URLs that can be crawled now.
+	 *
+	 * @param max maximum number of URLs to return
+	 * @return the removed URLs
+	 */
+	public List<WebURL> poll(int max) {
+		synchronized (mutex) {
+			List<WebURL> results = get(max);
+			delete(results.size());
+			return results;
+		}
+	}
+
+	/**
+	 * @return the number of milliseconds until {@link #poll(int)} can return URLs, 0 if it can right away or -1 if the
+	 *     queue is empty
+	 */
+	public long getDelayUntilReady() {
+		synchronized (mutex) {
+			return urlsDB.isEmpty() ? -1 : 0;
+		}
+	}
+
 	public void delete(int count) {
 		synchronized (mutex) {
 			int matches = 0;
 			Iterator<Long> iterator = urlsDB.keySet().iterator();
 			while (matches < count && iterator.hasNext()) {
-				iterator.next();
+				long key = iterator.next();
 				iterator.remove();
+				if (resumable) {
+					store.delete(key);
+				}
 				matches++;
 			}
 			commit();
@@ -93,7 +177,12 @@ public class WorkQueues {
 
 	public void put(WebURL url) {
 		synchronized (mutex) {
-			urlsDB.put(getDatabaseEntryKey(url), webURLSerializer.toBytes(url));
+			long key = getDatabaseEntryKey(url);
+			byte[] value = webURLSerializer.toBytes(url);
+			urlsDB.put(key, value);
+			if (resumable) {
+				store.put(key, value);
+			}
 			commit();
 		}
 	}
@@ -106,7 +195,27 @@ public class WorkQueues {
 
 	public void close() {
 		synchronized (mutex) {
-			commit();
+			if (resumable) {
+				store.close();
+			}
+		}
+	}
+
+	/**
+	 * Removes the URL stored under {@code key} without committing the change.
+	 *
+	 * @return the removed URL, or null if there was none
+	 */
+	protected WebURL removeEntry(long key) {
+		synchronized (mutex) {
+			byte[] value = urlsDB.remove(key);
+			if (value == null) {
+				return null;
+			}
+			if (resumable) {
+				store.delete(key);
+			}
+			return webURLSerializer.fromBytes(value);
 		}
 	}
 
@@ -114,6 +223,9 @@ public class WorkQueues {
 		synchronized (mutex) {
 			boolean removed = urlsDB.remove(key) != null;
 			if (removed) {
+				if (resumable) {
+					store.delete(key);
+				}
 				commit();
 			}
 			return removed;
@@ -17,6 +17,11 @@ import java.util.Set;
 
 import com.github.lankalana.crawler4j.url.WebURL;
 
+/**
+ * The data parsed from a binary page. Content larger than {@link
+ * com.github.lankalana.crawler4j.crawler.CrawlConfig#getContentSpoolThreshold()} is not set here, so that it is never
+ * held on the heap; read it from {@link com.github.lankalana.crawler4j.crawler.Page#getContentStream()} instead.
+ */
 public class BinaryParseData implements ParseData {
 
 	private Set<WebURL> outgoingUrls = new HashSet<>();
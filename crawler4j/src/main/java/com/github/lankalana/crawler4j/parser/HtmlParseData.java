@@ -14,9 +14,17 @@ package com.github.lankalana.crawler4j.parser;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import com.github.lankalana.crawler4j.url.WebURL;
 
+/**
+ * The data parsed from an HTML page. The HTML, text and meta tags may be computed on demand: a parser can set a
+ * {@link Supplier} for them instead of a value, and it is called the first time the value is read. Crawlers that only
+ * follow links then never pay for decoding the whole page again or walking its text.
+ *
+ * <p>The lazily computed values are guarded by the lock of the parse data, so that it may be handed to other threads.
+ */
 public class HtmlParseData implements ParseData {
 
 	private String html;
@@ -24,23 +32,56 @@ public class HtmlParseData implements ParseData {
 	private String title;
 	private Map<String, String> metaTags;
 
+	private Supplier<String> htmlSupplier;
+	private Supplier<String> textSupplier;
+	private Supplier<Map<String, String>> metaTagsSupplier;
+
 	private Set<WebURL> outgoingUrls;
 	private String contentCharset;
 
-	public String getHtml() {
+	/**
+	 * @return the HTML of the page. Parsers decode it from the content of the page on the first call, so with {@link
+	 *     com.github.lankalana.crawler4j.crawler.CrawlConfig#isPoolContentBuffers() pooled} or {@link
+	 *     com.github.lankalana.crawler4j.crawler.CrawlConfig#getContentSpoolThreshold() spooled} content it must first
+	 *     be called while the page is visited. Once the page is done its content is released, and this returns null
+	 *     unless {@link com.github.lankalana.crawler4j.crawler.Page#getContentData()} was called before.
+	 */
+	public synchronized String getHtml() {
+		if (htmlSupplier != null) {
+			html = htmlSupplier.get();
+			htmlSupplier = null;
+		}
 		return html;
 	}
 
-	public void setHtml(String html) {
+	public synchronized void setHtml(String html) {
 		this.html = html;
+		this.htmlSupplier = null;
+	}
+
+	/** @param htmlSupplier Computes the HTML the first time it is read */
+	public synchronized void setHtmlSupplier(Supplier<String> htmlSupplier) {
+		this.html = null;
+		this.htmlSupplier = htmlSupplier;
 	}
 
-	public String getText() {
+	public synchronized String getText() {
+		if (textSupplier != null) {
+			text = textSupplier.get();
+			textSupplier = null;
+		}
 		return text;
 	}
 
-	public void setText(String text) {
+	public synchronized void setText(String text) {
 		this.text = text;
+		this.textSupplier = null;
+	}
+
+	/** @param textSupplier Computes the text the first time it is read */
+	public synchronized void setTextSupplier(Supplier<String> textSupplier) {
+		this.text = null;
+		this.textSupplier = textSupplier;
 	}
 
 	public String getTitle() {
@@ -51,16 +92,27 @@ public class HtmlParseData implements ParseData {
 		this.title = title;
 	}
 
-	public Map<String, String> getMetaTags() {
+	public synchronized Map<String, String> getMetaTags() {
+		if (metaTagsSupplier != null) {
+			metaTags = metaTagsSupplier.get();
+			metaTagsSupplier = null;
+		}
 		return metaTags;
 	}
 
-	public void setMetaTags(Map<String, String> metaTags) {
+	public synchronized void setMetaTags(Map<String, String> metaTags) {
 		this.metaTags = metaTags;
+		this.metaTagsSupplier = null;
+	}
+
+	/** @param metaTagsSupplier Computes the meta tags the first time they are read */
+	public synchronized void setMetaTagsSupplier(Supplier<Map<String, String>> metaTagsSupplier) {
+		this.metaTags = null;
+		this.metaTagsSupplier = metaTagsSupplier;
 	}
 
 	public String getMetaTagValue(String metaTag) {
-		return metaTags.getOrDefault(metaTag, "");
+		return getMetaTags().getOrDefault(metaTag, "");
 	}
 
 	@Override
@@ -75,7 +127,7 @@ public class HtmlParseData implements ParseData {
 
 	@Override
 	public String toString() {
-		return text;
+		return getText();
 	}
 
 	public void setContentCharset(String contentCharset) {
@@ -1,8 +1,8 @@
 package com.github.lankalana.crawler4j.parser;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -18,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import com.github.lankalana.crawler4j.crawler.CrawlConfig;
 import com.github.lankalana.crawler4j.crawler.Page;
 import com.github.lankalana.crawler4j.crawler.exceptions.ParseException;
+import com.github.lankalana.crawler4j.url.BaseURL;
 import com.github.lankalana.crawler4j.url.URLCanonicalizer;
 import com.github.lankalana.crawler4j.url.WebURL;
 
@@ -34,24 +35,11 @@ public class JsoupHtmlParser implements com.github.lankalana.crawler4j.parser.Ht
 	public HtmlParseData parse(Page page, String contextURL) throws ParseException {
 		HtmlParseData parsedData = new HtmlParseData();
 
-		Document document;
-
-		try (InputStream inputStream = new ByteArrayInputStream(page.getContentData())) {
-			String charsetName = page.getContentCharset();
-			if (charsetName != null && charsetName.isEmpty()) {
-				charsetName = null;
-			}
-			document = Jsoup.parse(inputStream, charsetName, contextURL);
-		} catch (Exception e) {
-			logger.error(
-					"{}, while parsing: {}", e.getMessage(), page.getWebURL().getURL());
-			throw new ParseException("could not parse [" + page.getWebURL().getURL() + "]", e);
-		}
+		Document document = parseDocument(page, contextURL);
 
 		String contentCharset = chooseEncoding(page, document);
 		parsedData.setContentCharset(contentCharset);
 
-		parsedData.setText(extractBodyText(document));
 		parsedData.setTitle(document.title());
 		parsedData.setMetaTags(extractMetaTags(document));
 
@@ -61,31 +49,58 @@ public class JsoupHtmlParser implements com.github.lankalana.crawler4j.parser.Ht
 			if (baseUrl != null) {
 				contextURL = baseUrl;
 			}
-			Set<WebURL> outgoingUrls = getOutgoingUrls(contextURL, outgoingLinks, contentCharset);
+			Set<WebURL> outgoingUrls = getOutgoingUrls(config, contextURL, outgoingLinks, contentCharset);
 			parsedData.setOutgoingUrls(outgoingUrls);
 
-			String htmlCharset = page.getContentCharset();
-			if (htmlCharset == null || htmlCharset.isEmpty()) {
-				if (contentCharset != null && !contentCharset.isEmpty()) {
-					parsedData.setHtml(new String(page.getContentData(), contentCharset));
-				} else {
-					parsedData.setHtml(new String(page.getContentData()));
-				}
-			} else {
-				parsedData.setHtml(new String(page.getContentData(), htmlCharset));
+			// The text and html are only worked out if the crawler reads them. The body is detached, so that parse data
+			// kept with its text unread doesn't hold on to the rest of the document.
+			Element body = document.body();
+			body.remove();
+			parsedData.setTextSupplier(() -> body.text().trim());
+
+			String htmlCharsetName = page.getContentCharset();
+			if (htmlCharsetName == null || htmlCharsetName.isEmpty()) {
+				htmlCharsetName = contentCharset;
 			}
+			Charset htmlCharset = (htmlCharsetName == null || htmlCharsetName.isEmpty())
+					? Charset.defaultCharset()
+					: Charset.forName(htmlCharsetName);
+			// Read through the page, so that a pooled buffer is decoded without being copied first
+			parsedData.setHtmlSupplier(() -> {
+				ByteBuffer content = page.getContentBuffer();
+				return (content != null) ? htmlCharset.decode(content).toString() : null;
+			});
 
 			return parsedData;
-		} catch (UnsupportedEncodingException e) {
+		} catch (UnsupportedEncodingException | IllegalArgumentException e) {
 			logger.error("error parsing the html: " + page.getWebURL().getURL(), e);
 			throw new ParseException("could not parse [" + page.getWebURL().getURL() + "]", e);
 		}
 	}
 
-	private Set<WebURL> getOutgoingUrls(
-			String contextURL, List<ExtractedUrlAnchorPair> outgoingLinks, String contentCharset)
+	private Document parseDocument(Page page, String contextURL) throws ParseException {
+		try (InputStream inputStream = page.getContentStream()) {
+			String charsetName = page.getContentCharset();
+			if (charsetName != null && charsetName.isEmpty()) {
+				charsetName = null;
+			}
+			return Jsoup.parse(inputStream, charsetName, contextURL);
+		} catch (Exception e) {
+			logger.error(
+					"{}, while parsing: {}", e.getMessage(), page.getWebURL().getURL());
+			throw new ParseException("could not parse [" + page.getWebURL().getURL() + "]", e);
+		}
+	}
+
+	static Set<WebURL> getOutgoingUrls(
+			CrawlConfig config, String contextURL, List<ExtractedUrlAnchorPair> outgoingLinks, String contentCharset)
 			throws UnsupportedEncodingException {
 		Set<WebURL> outgoingUrls = new HashSet<>();
+		// Prefer page's content charset to encode href url
+		Charset hrefCharset = ((contentCharset == null) || contentCharset.isEmpty())
+				? StandardCharsets.UTF_8
+				: Charset.forName(contentCharset);
+		BaseURL base = new BaseURL(contextURL);
 
 		int urlCount = 0;
 		for (ExtractedUrlAnchorPair urlAnchorPair : outgoingLinks) {
@@ -99,11 +114,7 @@ public class JsoupHtmlParser implements com.github.lankalana.crawler4j.parser.Ht
 			if (!hrefLoweredCase.contains("javascript:")
 					&& !hrefLoweredCase.contains("mailto:")
 					&& !hrefLoweredCase.contains("@")) {
-				// Prefer page's content charset to encode href url
-				Charset hrefCharset = ((contentCharset == null) || contentCharset.isEmpty())
-						? StandardCharsets.UTF_8
-						: Charset.forName(contentCharset);
-				String url = URLCanonicalizer.getCanonicalURL(href, contextURL, hrefCharset);
+				String url = URLCanonicalizer.getCanonicalURL(href, base, hrefCharset);
 				if (url != null) {
 					WebURL webURL = new WebURL();
 					webURL.setURL(url);
@@ -121,10 +132,6 @@ public class JsoupHtmlParser implements com.github.lankalana.crawler4j.parser.Ht
 		return outgoingUrls;
 	}
 
-	private String extractBodyText(Document document) {
-		return document.body().text().trim();
-	}
-
 	private Map<String, String> extractMetaTags(Document document) {
 		Map<String, String> metaTags = new HashMap<>();
 		Elements metaElements = document.select("meta[http-equiv], meta[name]");
@@ -226,7 +233,7 @@ public class JsoupHtmlParser implements com.github.lankalana.crawler4j.parser.Ht
 		outgoing.add(pair);
 	}
 
-	private String normalizeAnchorText(String anchor) {
+	static String normalizeAnchorText(String anchor) {
 		if (anchor == null) {
 			return "";
 		}
@@ -12,6 +12,8 @@
  */
 package com.github.lankalana.crawler4j.parser;
 
+import java.nio.charset.Charset;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,7 +48,15 @@ public class Parser {
 		if (Util.hasBinaryContent(page.getContentType())) { // BINARY
 			BinaryParseData parseData = new BinaryParseData();
 			if (config.isIncludeBinaryContentInCrawling()) {
-				parseData.setBinaryContent(page.getContentData());
+				if (page.isContentSpooled()) {
+					// Spooled content is left in its file, to be streamed from the page
+					logger.debug(
+							"Binary content of {} is spooled ({} bytes), not set in its parse data",
+							page.getWebURL().getURL(),
+							page.getContentLength());
+				} else {
+					parseData.setBinaryContent(page.getContentData());
+				}
 				page.setParseData(parseData);
 			} else {
 				throw new NotAllowedContentException();
@@ -54,11 +64,7 @@ public class Parser {
 		} else if (Util.hasCssTextContent(page.getContentType())) { // text/css
 			try {
 				CssParseData parseData = new CssParseData();
-				if (page.getContentCharset() == null) {
-					parseData.setTextContent(new String(page.getContentData()));
-				} else {
-					parseData.setTextContent(new String(page.getContentData(), page.getContentCharset()));
-				}
+				parseData.setTextContent(decodeContent(page));
 				parseData.setOutgoingUrls(page.getWebURL());
 				page.setParseData(parseData);
 			} catch (Exception e) {
@@ -71,11 +77,7 @@ public class Parser {
 		} else if (Util.hasPlainTextContent(page.getContentType())) { // plain Text
 			try {
 				TextParseData parseData = new TextParseData();
-				if (page.getContentCharset() == null) {
-					parseData.setTextContent(new String(page.getContentData()));
-				} else {
-					parseData.setTextContent(new String(page.getContentData(), page.getContentCharset()));
-				}
+				parseData.setTextContent(decodeContent(page));
 				parseData.setOutgoingUrls(net.extractUrls(parseData.getTextContent()));
 				page.setParseData(parseData);
 			} catch (Exception e) {
@@ -96,4 +98,12 @@ public class Parser {
 			page.setParseData(parsedData);
 		}
 	}
+
+	/** Decodes the content of a page from its buffer, without copying the bytes first. */
+	private static String decodeContent(Page page) {
+		Charset charset = (page.getContentCharset() == null)
+				? Charset.defaultCharset()
+				: Charset.forName(page.getContentCharset());
+		return charset.decode(page.getContentBuffer()).toString();
+	}
 }
@@ -0,0 +1,523 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.crawler.Page;
+import com.github.lankalana.crawler4j.crawler.exceptions.ParseException;
+import com.github.lankalana.crawler4j.url.WebURL;
+
+/**
+ * An {@link HtmlParser} that extracts the outgoing links, meta tags, {@code <base>} and title of a page in a single
+ * pass over its markup, without building a document tree; the text is only scanned for if it is read. It finds the
+ * same links as {@link JsoupHtmlParser}, in document order, at a fraction of the cost, which suits crawls that mostly
+ * discover links. It does not repair malformed markup the way a full HTML parser does, so pages that rely on that may
+ * yield slightly different text.
+ *
+ * <p>To use it, pass it to the {@link Parser} given to the controller:
+ *
+ * <pre>
+ * Parser parser = new Parser(config, new StreamingHtmlParser(config));
+ * </pre>
+ */
+public class StreamingHtmlParser implements HtmlParser {
+	private static final Logger logger = LoggerFactory.getLogger(StreamingHtmlParser.class);
+
+	/** How far into the page to look for a {@code <meta>} declaring the charset */
+	private static final int CHARSET_SNIFF_LENGTH = 1024;
+
+	/** Elements that do not separate the words of the text around them */
+	private static final Set<String> INLINE_TAGS = Set.of(
+			"a", "abbr", "b", "bdi", "bdo", "cite", "code", "data", "dfn", "em", "font", "i", "img", "kbd", "label",
+			"mark", "q", "s", "samp", "small", "span", "strike", "strong", "sub", "sup", "time", "tt", "u", "var");
+
+	private final CrawlConfig config;
+
+	public StreamingHtmlParser(CrawlConfig config) {
+		this.config = config;
+	}
+
+	@Override
+	public HtmlParseData parse(Page page, String contextURL) throws ParseException {
+		HtmlParseData parsedData = new HtmlParseData();
+		try {
+			ByteBuffer content = page.getContentBuffer();
+			String contentCharset = page.getContentCharset();
+			if (contentCharset == null || contentCharset.isEmpty()) {
+				contentCharset = detectBom(content);
+				if (contentCharset != null) {
+					content.position(StandardCharsets.UTF_8.name().equals(contentCharset) ? 3 : 2);
+				} else {
+					contentCharset = sniffMetaCharset(content);
+				}
+			}
+			String html = Charset.forName(contentCharset).decode(content).toString();
+
+			Scanner scanner = new Scanner(html, false);
+			scanner.scan();
+
+			parsedData.setContentCharset(contentCharset);
+			parsedData.setHtml(html);
+			// The text is only worked out if the crawler reads it, by scanning the same decoded html again
+			parsedData.setTextSupplier(() -> {
+				Scanner textScanner = new Scanner(html, true);
+				textScanner.scan();
+				return textScanner.text.toString().trim();
+			});
+			parsedData.setTitle(scanner.title == null ? "" : scanner.title);
+			parsedData.setMetaTags(scanner.metaTags);
+			if (scanner.baseUrl != null) {
+				contextURL = scanner.baseUrl;
+			}
+			parsedData.setOutgoingUrls(
+					JsoupHtmlParser.getOutgoingUrls(config, contextURL, scanner.links, contentCharset));
+			return parsedData;
+		} catch (Exception e) {
+			logger.error("{}, while parsing: {}", e.getMessage(), page.getWebURL().getURL());
+			throw new ParseException("could not parse [" + page.getWebURL().getURL() + "]", e);
+		}
+	}
+
+	private static String detectBom(ByteBuffer content) {
+		if (content.remaining() >= 3
+				&& (content.get(0) & 0xFF) == 0xEF
+				&& (content.get(1) & 0xFF) == 0xBB
+				&& (content.get(2) & 0xFF) == 0xBF) {
+			return StandardCharsets.UTF_8.name();
+		}
+		if (content.remaining() >= 2) {
+			if ((content.get(0) & 0xFF) == 0xFE && (content.get(1) & 0xFF) == 0xFF) {
+				return StandardCharsets.UTF_16BE.name();
+			}
+			if ((content.get(0) & 0xFF) == 0xFF && (content.get(1) & 0xFF) == 0xFE) {
+				return StandardCharsets.UTF_16LE.name();
+			}
+		}
+		return null;
+	}
+
+	/** @return the charset declared by a {@code <meta>} near the start of the page, or UTF-8 */
+	private static String sniffMetaCharset(ByteBuffer content) {
+		int length = Math.min(content.remaining(), CHARSET_SNIFF_LENGTH);
+		String head = StandardCharsets.ISO_8859_1.decode(content.slice(0, length)).toString().toLowerCase(Locale.ROOT);
+		int meta = head.indexOf("<meta");
+		while (meta >= 0) {
+			int end = head.indexOf('>', meta);
+			if (end < 0) {
+				break;
+			}
+			int pos = head.indexOf("charset=", meta);
+			if (pos >= 0 && pos < end) {
+				pos += "charset=".length();
+				while (pos < end && (head.charAt(pos) == '"' || head.charAt(pos) == '\'' || head.charAt(pos) == ' ')) {
+					pos++;
+				}
+				int start = pos;
+				while (pos < end && isCharsetChar(head.charAt(pos))) {
+					pos++;
+				}
+				String charset = head.substring(start, pos);
+				if (!charset.isEmpty() && Charset.isSupported(charset)) {
+					return Charset.forName(charset).name();
+				}
+			}
+			meta = head.indexOf("<meta", end);
+		}
+		return StandardCharsets.UTF_8.name();
+	}
+
+	private static boolean isCharsetChar(char ch) {
+		return (ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9') || ch == '-' || ch == '_' || ch == '.' || ch == ':';
+	}
+
+	private static boolean isWhitespace(char ch) {
+		return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r' || ch == '\f';
+	}
+
+	private static boolean isLetter(char ch) {
+		return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z');
+	}
+
+	private static String unescape(String value, boolean inAttribute) {
+		return (value.indexOf('&') < 0) ? value : org.jsoup.parser.Parser.unescapeEntities(value, inAttribute);
+	}
+
+	/** Walks the markup of one page once, collecting what the page data needs as it goes. */
+	private static final class Scanner {
+		private final String html;
+		private final int length;
+		private final boolean collectText;
+		private int pos;
+
+		private final List<ExtractedUrlAnchorPair> links = new ArrayList<>();
+		private final Map<String, String> metaTags = new HashMap<>();
+		/** The text of the page, only collected if asked for */
+		private final StringBuilder text = new StringBuilder();
+		private String title;
+		private String baseUrl;
+
+		private boolean inHead;
+		private boolean refreshSeen;
+		private boolean locationSeen;
+		private ExtractedUrlAnchorPair openAnchor;
+		private final StringBuilder anchorText = new StringBuilder();
+
+		Scanner(String html, boolean collectText) {
+			this.html = html;
+			this.length = html.length();
+			this.collectText = collectText;
+		}
+
+		void scan() {
+			while (pos < length) {
+				int tagStart = html.indexOf('<', pos);
+				if (tagStart < 0) {
+					appendText(pos, length);
+					break;
+				}
+				appendText(pos, tagStart);
+				pos = tagStart;
+				if (!readTag()) {
+					// A stray '<' is text
+					appendText(tagStart, tagStart + 1);
+					pos = tagStart + 1;
+				}
+			}
+			closeAnchor();
+		}
+
+		/** Reads the markup at {@code pos}, which is a '<'. @return false if it is not markup after all */
+		private boolean readTag() {
+			int next = pos + 1;
+			if (next >= length) {
+				return false;
+			}
+			char ch = html.charAt(next);
+			if (ch == '!') {
+				if (html.startsWith("--", next + 1)) {
+					int end = html.indexOf("-->", next + 3);
+					pos = (end < 0) ? length : end + 3;
+				} else {
+					skipPast('>', next);
+				}
+				return true;
+			} else if (ch == '?') {
+				skipPast('>', next);
+				return true;
+			} else if (ch == '/') {
+				int nameStart = next + 1;
+				if (nameStart < length && isLetter(html.charAt(nameStart))) {
+					int nameEnd = readName(nameStart);
+					skipPast('>', nameEnd);
+					endTag(html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT));
+				} else {
+					skipPast('>', next);
+				}
+				return true;
+			} else if (isLetter(ch)) {
+				int nameEnd = readName(next);
+				startTag(html.substring(next, nameEnd).toLowerCase(Locale.ROOT), nameEnd);
+				return true;
+			}
+			return false;
+		}
+
+		private void startTag(String name, int attributesStart) {
+			Map<String, String> attributes = readAttributes(attributesStart);
+			if (!INLINE_TAGS.contains(name)) {
+				separateWords();
+			}
+			switch (name) {
+				case "a":
+					closeAnchor();
+					openAnchor = addLink(attributes.get("href"), name, attributes);
+					if (openAnchor != null) {
+						anchorText.setLength(0);
+					}
+					break;
+				case "area":
+				case "link":
+					ExtractedUrlAnchorPair pair = addLink(attributes.get("href"), name, attributes);
+					if (pair != null) {
+						setAnchorFromAttributes(pair, "", attributes);
+					}
+					break;
+				case "img":
+				case "iframe":
+				case "frame":
+				case "embed":
+					addLink(attributes.get("src"), name, null);
+					break;
+				case "script":
+				case "style":
+					if (name.equals("script")) {
+						addLink(attributes.get("src"), name, null);
+					}
+					skipRawText(name);
+					break;
+				case "title":
+					String titleText = normalizeWhitespace(unescape(skipRawText(name), false));
+					if (title == null) {
+						title = titleText;
+					}
+					break;
+				case "textarea":
+					appendText(unescape(skipRawText(name), false));
+					break;
+				case "meta":
+					readMeta(attributes);
+					break;
+				case "base":
+					String href = attributes.get("href");
+					if (baseUrl == null && href != null && !href.isEmpty()) {
+						baseUrl = href;
+					}
+					break;
+				case "head":
+					inHead = true;
+					break;
+				case "body":
+					inHead = false;
+					break;
+				default:
+					break;
+			}
+		}
+
+		private void endTag(String name) {
+			if (name.equals("a")) {
+				closeAnchor();
+			} else if (name.equals("head")) {
+				inHead = false;
+			}
+			if (!INLINE_TAGS.contains(name)) {
+				separateWords();
+			}
+		}
+
+		private ExtractedUrlAnchorPair addLink(String href, String tag, Map<String, String> attributes) {
+			if (href == null || href.isEmpty()) {
+				return null;
+			}
+			ExtractedUrlAnchorPair pair = new ExtractedUrlAnchorPair();
+			pair.setHref(href);
+			pair.setTag(tag);
+			if (attributes != null) {
+				pair.setAttributes(attributes);
+			}
+			links.add(pair);
+			return pair;
+		}
+
+		private void closeAnchor() {
+			if (openAnchor != null) {
+				setAnchorFromAttributes(openAnchor, anchorText.toString(), openAnchor.getAttributes());
+				openAnchor = null;
+			}
+		}
+
+		private void setAnchorFromAttributes(ExtractedUrlAnchorPair pair, String text, Map<String, String> attributes) {
+			String anchor = JsoupHtmlParser.normalizeAnchorText(text);
+			if (anchor.isEmpty()) {
+				anchor = JsoupHtmlParser.normalizeAnchorText(attributes.get("title"));
+			}
+			if (anchor.isEmpty() && attributes.containsKey("alt")) {
+				anchor = JsoupHtmlParser.normalizeAnchorText(attributes.get("alt"));
+			}
+			if (!anchor.isEmpty()) {
+				pair.setAnchor(anchor);
+			}
+		}
+
+		private void readMeta(Map<String, String> attributes) {
+			String key = attributes.containsKey("http-equiv") ? attributes.get("http-equiv") : attributes.get("name");
+			String content = attributes.get("content");
+			if (key == null || key.isEmpty() || content == null || content.isEmpty()) {
+				return;
+			}
+			String keyLower = key.toLowerCase();
+			metaTags.put(keyLower, content);
+			if ("refresh".equals(keyLower) && !refreshSeen) {
+				int urlPos = content.toLowerCase().indexOf("url=");
+				if (urlPos != -1) {
+					addLink(content.substring(urlPos + 4), "meta", null);
+					refreshSeen = true;
+				}
+			} else if ("location".equals(keyLower) && !locationSeen) {
+				addLink(content, "meta", null);
+				locationSeen = true;
+			}
+		}
+
+		private int readName(int start) {
+			int end = start;
+			while (end < length) {
+				char ch = html.charAt(end);
+				if (isWhitespace(ch) || ch == '/' || ch == '>') {
+					break;
+				}
+				end++;
+			}
+			return end;
+		}
+
+		/** Reads the attributes of a start tag up to its closing '>'. The first of duplicate attributes is kept. */
+		private Map<String, String> readAttributes(int start) {
+			Map<String, String> attributes = new HashMap<>();
+			int p = start;
+			while (p < length) {
+				char ch = html.charAt(p);
+				if (ch == '>') {
+					p++;
+					break;
+				}
+				if (isWhitespace(ch) || ch == '/') {
+					p++;
+					continue;
+				}
+				int nameStart = p;
+				while (p < length) {
+					ch = html.charAt(p);
+					if (isWhitespace(ch) || ch == '/' || ch == '>' || (ch == '=' && p > nameStart)) {
+						break;
+					}
+					p++;
+				}
+				String name = html.substring(nameStart, p).toLowerCase(Locale.ROOT);
+				while (p < length && isWhitespace(html.charAt(p))) {
+					p++;
+				}
+				String value = "";
+				if (p < length && html.charAt(p) == '=') {
+					p++;
+					while (p < length && isWhitespace(html.charAt(p))) {
+						p++;
+					}
+					if (p < length && (html.charAt(p) == '"' || html.charAt(p) == '\'')) {
+						char quote = html.charAt(p);
+						int valueEnd = html.indexOf(quote, p + 1);
+						if (valueEnd < 0) {
+							valueEnd = length;
+						}
+						value = html.substring(p + 1, valueEnd);
+						p = Math.min(length, valueEnd + 1);
+					} else {
+						int valueStart = p;
+						while (p < length && !isWhitespace(html.charAt(p)) && html.charAt(p) != '>') {
+							p++;
+						}
+						value = html.substring(valueStart, p);
+					}
+				}
+				attributes.putIfAbsent(name, unescape(value, true));
+			}
+			pos = p;
+			return attributes;
+		}
+
+		/** Skips the content of a raw text element such as a script, and its end tag. @return the content */
+		private String skipRawText(String name) {
+			int search = pos;
+			while (true) {
+				int end = html.indexOf("</", search);
+				if (end < 0) {
+					String content = html.substring(pos);
+					pos = length;
+					return content;
+				}
+				int afterName = end + 2 + name.length();
+				if (html.regionMatches(true, end + 2, name, 0, name.length())
+						&& (afterName >= length
+								|| isWhitespace(html.charAt(afterName))
+								|| html.charAt(afterName) == '/'
+								|| html.charAt(afterName) == '>')) {
+					String content = html.substring(pos, end);
+					skipPast('>', afterName);
+					return content;
+				}
+				search = end + 2;
+			}
+		}
+
+		private void skipPast(char ch, int from) {
+			int end = html.indexOf(ch, from);
+			pos = (end < 0) ? length : end + 1;
+		}
+
+		private void appendText(int start, int end) {
+			if (start >= end || ((inHead || !collectText) && openAnchor == null)) {
+				return;
+			}
+			int amp = html.indexOf('&', start);
+			if (amp >= 0 && amp < end) {
+				appendText(unescape(html.substring(start, end), false));
+			} else {
+				appendText(html, start, end);
+			}
+		}
+
+		private void appendText(String value) {
+			appendText(value, 0, value.length());
+		}
+
+		private void appendText(String value, int start, int end) {
+			if (collectText && !inHead) {
+				appendNormalized(text, value, start, end);
+			}
+			if (openAnchor != null) {
+				appendNormalized(anchorText, value, start, end);
+			}
+		}
+
+		private void separateWords() {
+			if (collectText && !inHead && text.length() > 0 && text.charAt(text.length() - 1) != ' ') {
+				text.append(' ');
+			}
+			if (openAnchor != null && anchorText.length() > 0 && anchorText.charAt(anchorText.length() - 1) != ' ') {
+				anchorText.append(' ');
+			}
+		}
+
+		private static void appendNormalized(StringBuilder builder, String value, int start, int end) {
+			for (int i = start; i < end; i++) {
+				char ch = value.charAt(i);
+				if (isWhitespace(ch)) {
+					if (builder.length() > 0 && builder.charAt(builder.length() - 1) != ' ') {
+						builder.append(' ');
+					}
+				} else {
+					builder.append(ch);
+				}
+			}
+		}
+
+		private static String normalizeWhitespace(String value) {
+			StringBuilder builder = new StringBuilder(value.length());
+			appendNormalized(builder, value, 0, value.length());
+			return builder.toString().trim();
+		}
+	}
+}
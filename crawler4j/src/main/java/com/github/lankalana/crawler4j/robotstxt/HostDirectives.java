@@ -20,7 +20,7 @@ import java.util.concurrent.TimeUnit;
 public class HostDirectives {
 	// If we fetched the directives for this host more than
 	// 24 hours, we have to re-fetch it.
-	private static final long EXPIRATION_DELAY = TimeUnit.MILLISECONDS.convert(1, TimeUnit.DAYS);
+	static final long EXPIRATION_DELAY = TimeUnit.MILLISECONDS.convert(1, TimeUnit.DAYS);
 
 	public static final int ALLOWED = 1;
 	public static final int DISALLOWED = 2;
@@ -35,7 +35,15 @@ public class HostDirectives {
 	private String userAgent;
 
 	public HostDirectives(RobotstxtConfig configuration) {
-		timeFetched = System.currentTimeMillis();
+		this(configuration, System.currentTimeMillis());
+	}
+
+	/**
+	 * @param timeFetched the time, in milliseconds since the epoch, the robots.txt these directives come from was
+	 *     fetched
+	 */
+	public HostDirectives(RobotstxtConfig configuration, long timeFetched) {
+		this.timeFetched = timeFetched;
 		config = configuration;
 		userAgent = config.getUserAgentName().toLowerCase();
 		rules = new TreeSet<UserAgentDirectives>(new UserAgentDirectives.UserAgentComparator(userAgent));
@@ -45,6 +53,10 @@ public class HostDirectives {
 		return ((System.currentTimeMillis() - timeFetched) > EXPIRATION_DELAY);
 	}
 
+	public long getTimeFetched() {
+		return timeFetched;
+	}
+
 	/**
 	 * Check if the host directives allows visiting path.
 	 *
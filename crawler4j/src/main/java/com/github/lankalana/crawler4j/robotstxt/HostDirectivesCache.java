@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.robotstxt;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A bounded least recently used cache of the directives of each host. The hosts are spread over independently locked
+ * segments, each an access ordered {@link LinkedHashMap} that drops its eldest entry when full, so lookups from many
+ * crawler threads rarely contend and eviction takes constant time. Eviction is least recently used per segment, which
+ * approximates it over the whole cache.
+ */
+public class HostDirectivesCache {
+	private static final int MAX_SEGMENTS = 16;
+
+	private final Segment[] segments;
+
+	public HostDirectivesCache(int capacity) {
+		int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, capacity / 16));
+		segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			// Spread the remainder so that the segment capacities add up to the capacity
+			int segmentCapacity = capacity / segmentCount + ((i < capacity % segmentCount) ? 1 : 0);
+			segments[i] = new Segment(Math.max(1, segmentCapacity));
+		}
+	}
+
+	/** @return the directives of {@code host}, or null if they are not cached */
+	public HostDirectives get(String host) {
+		Segment segment = segmentFor(host);
+		synchronized (segment) {
+			return segment.get(host);
+		}
+	}
+
+	public void put(String host, HostDirectives directives) {
+		Segment segment = segmentFor(host);
+		synchronized (segment) {
+			segment.put(host, directives);
+		}
+	}
+
+	/** Removes the directives of {@code host} if they are still {@code directives}. */
+	public void remove(String host, HostDirectives directives) {
+		Segment segment = segmentFor(host);
+		synchronized (segment) {
+			segment.remove(host, directives);
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	public void clear() {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return a {@link Map} view of the cache, for code written against the map the cache used to be. Lookups and
+	 *     changes go through to the cache; iterating the view iterates a copy.
+	 */
+	public Map<String, HostDirectives> asMap() {
+		return new MapView();
+	}
+
+	private Segment segmentFor(String host) {
+		int hash = host.hashCode();
+		hash ^= hash >>> 16;
+		return segments[(hash & Integer.MAX_VALUE) % segments.length];
+	}
+
+	private final class MapView extends AbstractMap<String, HostDirectives> {
+
+		@Override
+		public HostDirectives get(Object key) {
+			return (key instanceof String) ? HostDirectivesCache.this.get((String) key) : null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public HostDirectives put(String key, HostDirectives value) {
+			HostDirectives previous = HostDirectivesCache.this.get(key);
+			HostDirectivesCache.this.put(key, value);
+			return previous;
+		}
+
+		@Override
+		public HostDirectives remove(Object key) {
+			HostDirectives previous = get(key);
+			if (previous != null) {
+				HostDirectivesCache.this.remove((String) key, previous);
+			}
+			return previous;
+		}
+
+		@Override
+		public int size() {
+			return HostDirectivesCache.this.size();
+		}
+
+		@Override
+		public void clear() {
+			HostDirectivesCache.this.clear();
+		}
+
+		@Override
+		public Set<Entry<String, HostDirectives>> entrySet() {
+			Map<String, HostDirectives> copy = new LinkedHashMap<>();
+			for (Segment segment : segments) {
+				synchronized (segment) {
+					copy.putAll(segment);
+				}
+			}
+			return Collections.unmodifiableMap(copy).entrySet();
+		}
+	}
+
+	private static final class Segment extends LinkedHashMap<String, HostDirectives> {
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, HostDirectives> eldest) {
+			return size() > capacity;
+		}
+	}
+}
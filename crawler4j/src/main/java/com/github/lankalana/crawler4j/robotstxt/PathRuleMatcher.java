@@ -0,0 +1,230 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.robotstxt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The allow and disallow rules of a user agent, compiled once so that a path is checked in a single pass without
+ * allocating. Rules without an inner wildcard, the vast majority, are stored in a character trie: walking the path
+ * down the trie visits every such rule that matches it. The few rules with an inner {@code *} are matched by a small
+ * glob matcher, longest first.
+ *
+ * <p>As in {@link PathRule#robotsPatternToRegexp(String)}, a {@code *} at the end of a pattern matches zero or more
+ * characters, any other {@code *} one or more, a {@code $} at the end anchors the pattern to the end of the path and
+ * the empty pattern only matches the empty path. The longest matching pattern wins; when an allow and a disallow
+ * pattern of the same length match, the path is allowed.
+ */
+final class PathRuleMatcher {
+	/** A glob token matching any sequence of characters */
+	private static final int STAR = -1;
+	/** A glob token matching any single character */
+	private static final int ANY = -2;
+
+	private final Node root = new Node();
+	private final List<GlobRule> globRules = new ArrayList<>();
+	private GlobRule[] sortedGlobRules = new GlobRule[0];
+	private int size;
+
+	/**
+	 * @param type Either HostDirectives.ALLOWED or HostDirectives.DISALLOWED
+	 * @param pattern The pattern of the rule, as written in robots.txt
+	 */
+	void add(int type, String pattern) {
+		size++;
+		int length = pattern.length();
+		List<Integer> tokens = new ArrayList<>(length + 1);
+		boolean terminated = false;
+		boolean literal = true;
+		for (int pos = 0; pos < length; ++pos) {
+			char ch = pattern.charAt(pos);
+			if (ch == '\\' && pos < length - 1 && (pattern.charAt(pos + 1) == '*' || pattern.charAt(pos + 1) == '$')) {
+				tokens.add((int) pattern.charAt(++pos));
+			} else if (ch == '*') {
+				if (pos == length - 1) {
+					// A terminating * may match 0 or more characters
+					tokens.add(STAR);
+					terminated = true;
+				} else {
+					// A non-terminating * may match 1 or more characters
+					tokens.add(ANY);
+					tokens.add(STAR);
+					literal = false;
+				}
+			} else if (ch == '$' && pos == length - 1) {
+				terminated = true;
+			} else {
+				tokens.add((int) ch);
+			}
+		}
+		if (length == 0) {
+			terminated = true;
+		} else if (!terminated) {
+			// Patterns match prefixes of the path unless anchored
+			tokens.add(STAR);
+		}
+
+		if (!literal) {
+			int[] compiled = new int[tokens.size()];
+			for (int i = 0; i < compiled.length; i++) {
+				compiled[i] = tokens.get(i);
+			}
+			globRules.add(new GlobRule(type, length, compiled));
+			sortedGlobRules = globRules.toArray(new GlobRule[0]);
+			// Longest first, allow before disallow, so that the first match cannot be beaten by the rest
+			Arrays.sort(sortedGlobRules, Comparator.comparingInt((GlobRule rule) -> -rule.length)
+					.thenComparingInt(rule -> (rule.type == HostDirectives.ALLOWED) ? 0 : 1));
+			return;
+		}
+
+		Node node = root;
+		boolean prefix = !tokens.isEmpty() && tokens.get(tokens.size() - 1) == STAR;
+		int literalLength = prefix ? tokens.size() - 1 : tokens.size();
+		for (int i = 0; i < literalLength; i++) {
+			node = node.getOrAddChild((char) tokens.get(i).intValue());
+		}
+		if (prefix) {
+			if (isBetter(length, type, node.prefixLength, node.prefixType)) {
+				node.prefixLength = length;
+				node.prefixType = type;
+			}
+		} else if (isBetter(length, type, node.exactLength, node.exactType)) {
+			node.exactLength = length;
+			node.exactType = type;
+		}
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** @return One of HostDirectives.ALLOWED, DISALLOWED or UNDEFINED */
+	int checkAccess(String path) {
+		int bestLength = -1;
+		int bestType = HostDirectives.UNDEFINED;
+
+		Node node = root;
+		int pathLength = path.length();
+		for (int i = 0; ; i++) {
+			if (isBetter(node.prefixLength, node.prefixType, bestLength, bestType)) {
+				bestLength = node.prefixLength;
+				bestType = node.prefixType;
+			}
+			if (i == pathLength) {
+				if (isBetter(node.exactLength, node.exactType, bestLength, bestType)) {
+					bestLength = node.exactLength;
+					bestType = node.exactType;
+				}
+				break;
+			}
+			node = node.getChild(path.charAt(i));
+			if (node == null) {
+				break;
+			}
+		}
+
+		for (GlobRule rule : sortedGlobRules) {
+			if (!isBetter(rule.length, rule.type, bestLength, bestType)) {
+				break;
+			}
+			if (rule.matches(path)) {
+				return rule.type;
+			}
+		}
+		return bestType;
+	}
+
+	private static boolean isBetter(int length, int type, int bestLength, int bestType) {
+		if (length < 0) {
+			return false;
+		}
+		return length > bestLength
+				|| (length == bestLength && type == HostDirectives.ALLOWED && bestType != HostDirectives.ALLOWED);
+	}
+
+	private static final class Node {
+		private char[] labels = new char[0];
+		private Node[] children = new Node[0];
+		private int prefixLength = -1;
+		private int prefixType;
+		private int exactLength = -1;
+		private int exactType;
+
+		Node getChild(char label) {
+			int index = Arrays.binarySearch(labels, label);
+			return (index >= 0) ? children[index] : null;
+		}
+
+		Node getOrAddChild(char label) {
+			int index = Arrays.binarySearch(labels, label);
+			if (index >= 0) {
+				return children[index];
+			}
+			int insertAt = -index - 1;
+			char[] newLabels = new char[labels.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(labels, 0, newLabels, 0, insertAt);
+			System.arraycopy(children, 0, newChildren, 0, insertAt);
+			System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+			System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+			Node child = new Node();
+			newLabels[insertAt] = label;
+			newChildren[insertAt] = child;
+			labels = newLabels;
+			children = newChildren;
+			return child;
+		}
+	}
+
+	private static final class GlobRule {
+		private final int type;
+		private final int length;
+		private final int[] tokens;
+
+		GlobRule(int type, int length, int[] tokens) {
+			this.type = type;
+			this.length = length;
+			this.tokens = tokens;
+		}
+
+		/** Matches the whole path, backtracking to the last {@code *} on a mismatch. */
+		boolean matches(String path) {
+			int token = 0;
+			int pos = 0;
+			int starToken = -1;
+			int starPos = -1;
+			int pathLength = path.length();
+			while (pos < pathLength) {
+				if (token < tokens.length && (tokens[token] == ANY || tokens[token] == path.charAt(pos))) {
+					token++;
+					pos++;
+				} else if (token < tokens.length && tokens[token] == STAR) {
+					starToken = token++;
+					starPos = pos;
+				} else if (starToken >= 0) {
+					token = starToken + 1;
+					pos = ++starPos;
+				} else {
+					return false;
+				}
+			}
+			while (token < tokens.length && tokens[token] == STAR) {
+				token++;
+			}
+			return token == tokens.length;
+		}
+	}
+}
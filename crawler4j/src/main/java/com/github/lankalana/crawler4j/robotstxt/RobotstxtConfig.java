@@ -34,6 +34,13 @@ public class RobotstxtConfig {
 	/** The maximum number of hosts for which their robots.txt is cached. */
 	private int cacheSize = 500;
 
+	/**
+	 * Number of background threads fetching the robots.txt of newly discovered hosts. With 0 the robots.txt is
+	 * fetched by the crawler thread that needs it; otherwise links to a host whose robots.txt is still being fetched
+	 * are held back until it arrives, while the crawler thread moves on.
+	 */
+	private int prefetchThreads = 0;
+
 	public boolean isEnabled() {
 		return enabled;
 	}
@@ -58,6 +65,14 @@ public class RobotstxtConfig {
 		this.cacheSize = cacheSize;
 	}
 
+	public int getPrefetchThreads() {
+		return prefetchThreads;
+	}
+
+	public void setPrefetchThreads(int prefetchThreads) {
+		this.prefetchThreads = prefetchThreads;
+	}
+
 	public void setIgnoreUADiscrimination(boolean ignore) {
 		this.ignoreUADiscrimination = ignore;
 	}
@@ -31,7 +31,15 @@ public class RobotstxtParser {
 			new HashSet<String>(Arrays.asList("allow", "disallow", "user-agent", "crawl-delay", "host", "sitemap"));
 
 	public static HostDirectives parse(String content, RobotstxtConfig config) {
-		HostDirectives directives = new HostDirectives(config);
+		return parse(content, config, System.currentTimeMillis());
+	}
+
+	/**
+	 * Parses a robots.txt file fetched at {@code timeFetched}, in milliseconds since the epoch, for example one read
+	 * back from the storage of a resumed crawl.
+	 */
+	public static HostDirectives parse(String content, RobotstxtConfig config, long timeFetched) {
+		HostDirectives directives = new HostDirectives(config, timeFetched);
 		StringTokenizer st = new StringTokenizer(content, "\n\r");
 
 		Set<String> userAgents = new HashSet<String>();
@@ -12,10 +12,20 @@
  */
 package com.github.lankalana.crawler4j.robotstxt;
 
+import java.io.File;
 import java.io.IOException;
-import java.net.*;
-import java.util.HashMap;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.HttpStatus;
 import org.apache.http.NoHttpResponseException;
@@ -35,21 +45,55 @@ public class RobotstxtServer {
 
 	private static final Logger logger = LoggerFactory.getLogger(RobotstxtServer.class);
 
+	private static final String STORE_NAME = "RobotsTxt.log";
+
 	protected RobotstxtConfig config;
 
 	protected CrawlConfig crawlConfig;
 
-	protected final Map<String, HostDirectives> host2directivesCache = new HashMap<>();
+	protected final HostDirectivesCache directivesCache;
+
+	/**
+	 * @deprecated Use {@link #directivesCache}; this is a {@link HostDirectivesCache#asMap() map view} of it, kept for
+	 *     subclasses written against the map.
+	 */
+	@Deprecated
+	protected final Map<String, HostDirectives> host2directivesCache;
+
+	/** The fetched robots.txt files of a resumable crawl, null otherwise. */
+	private volatile RobotstxtStore store;
+
+	/** The robots.txt fetches in progress, shared by everyone looking up the same host meanwhile. */
+	private final ConcurrentMap<String, CompletableFuture<HostDirectives>> pendingFetches = new ConcurrentHashMap<>();
+
+	private final ExecutorService prefetchExecutor;
 
 	protected PageFetcher pageFetcher;
 
 	public RobotstxtServer(RobotstxtConfig config, PageFetcher pageFetcher) {
 		this.config = config;
 		this.pageFetcher = pageFetcher;
+		this.directivesCache = new HostDirectivesCache(config.getCacheSize());
+		this.host2directivesCache = directivesCache.asMap();
+		if (config.isEnabled() && config.getPrefetchThreads() > 0) {
+			AtomicInteger threadNumber = new AtomicInteger();
+			prefetchExecutor = Executors.newFixedThreadPool(config.getPrefetchThreads(), runnable -> {
+				Thread thread = new Thread(runnable, "Robots prefetcher " + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else {
+			prefetchExecutor = null;
+		}
 	}
 
-	private static String getHost(URL url) {
-		return url.getHost().toLowerCase();
+	private static boolean isValid(WebURL url) {
+		return url.getScheme() != null && url.getHost() != null && !url.getHost().isEmpty();
+	}
+
+	private static String getRobotsTxtUrl(WebURL url) {
+		String port = ((url.getPort() == url.getDefaultPort()) || (url.getPort() == -1)) ? "" : (":" + url.getPort());
+		return url.getScheme() + "://" + url.getHost() + port + "/robots.txt";
 	}
 
 	/**
@@ -62,38 +106,181 @@ public class RobotstxtServer {
 		if (!config.isEnabled()) {
 			return true;
 		}
-		try {
-			URL url = URI.create(webURL.getURL()).toURL();
-			String host = getHost(url);
-			String path = url.getPath();
+		if (isValid(webURL)) {
+			return getDirectives(webURL).allows(webURL.getPath());
+		}
+		logger.error("Bad URL in Robots.txt: " + webURL.getURL());
 
-			HostDirectives directives = host2directivesCache.get(host);
+		logger.warn("RobotstxtServer: default: allow", webURL.getURL());
+		return true;
+	}
 
-			if (directives != null && directives.needsRefetch()) {
-				synchronized (host2directivesCache) {
-					host2directivesCache.remove(host);
-					directives = null;
-				}
-			}
+	/**
+	 * Like {@link #allows(WebURL)}, but if the robots.txt of the host is not known yet and prefetching is enabled (see
+	 * {@link RobotstxtConfig#setPrefetchThreads(int)}) it is fetched in the background and the returned future is
+	 * completed once it arrives. Without prefetching the returned future is always completed.
+	 *
+	 * @throws InterruptedException
+	 * @throws IOException
+	 */
+	public CompletableFuture<Boolean> allowsAsync(WebURL webURL) throws IOException, InterruptedException {
+		if (prefetchExecutor == null) {
+			return CompletableFuture.completedFuture(allows(webURL));
+		}
+		if (!isValid(webURL)) {
+			logger.error("Bad URL in Robots.txt: " + webURL.getURL());
+			return CompletableFuture.completedFuture(true);
+		}
+		String path = webURL.getPath();
+		HostDirectives directives = getCachedDirectives(webURL.getHost());
+		if (directives != null) {
+			return CompletableFuture.completedFuture(directives.allows(path));
+		}
+		return prefetch(webURL.getHost(), getRobotsTxtUrl(webURL)).thenApply(fetched -> fetched.allows(path));
+	}
+
+	/**
+	 * Starts fetching the robots.txt of the host of {@code webURL} in the background, unless it is known or already
+	 * being fetched. Does nothing if prefetching is disabled.
+	 */
+	public void prefetch(WebURL webURL) {
+		if (prefetchExecutor == null) {
+			return;
+		}
+		if (!isValid(webURL)) {
+			logger.debug("Not prefetching robots.txt of bad URL: {}", webURL.getURL());
+		} else if (getCachedDirectives(webURL.getHost()) == null) {
+			prefetch(webURL.getHost(), getRobotsTxtUrl(webURL));
+		}
+	}
+
+	/** @return the number of robots.txt files being fetched right now */
+	public int getNumberOfPendingFetches() {
+		return pendingFetches.size();
+	}
+
+	/** Stops the background prefetching and closes the storage of the fetched robots.txt files. */
+	public void shutDown() {
+		if (prefetchExecutor != null) {
+			prefetchExecutor.shutdownNow();
+		}
+		RobotstxtStore currentStore = store;
+		if (currentStore != null) {
+			currentStore.close();
+		}
+	}
+
+	/**
+	 * Keeps the fetched robots.txt files in {@code storageFolder}, and uses those kept by a previous run, so that a
+	 * resumed crawl does not fetch them all again.
+	 */
+	public void setStorageFolder(File storageFolder) {
+		store = new RobotstxtStore(new File(storageFolder, STORE_NAME));
+	}
+
+	private HostDirectives getCachedDirectives(String host) {
+		HostDirectives directives = directivesCache.get(host);
+		if (directives == null) {
+			directives = loadDirectives(host);
+		}
+		if (directives != null && directives.needsRefetch()) {
+			directivesCache.remove(host, directives);
+			return null;
+		}
+		return directives;
+	}
+
+	private HostDirectives loadDirectives(String host) {
+		RobotstxtStore currentStore = store;
+		if (currentStore == null) {
+			return null;
+		}
+		RobotstxtStore.Entry entry = currentStore.get(host);
+		if (entry == null) {
+			return null;
+		}
+		HostDirectives directives = RobotstxtParser.parse(entry.content, config, entry.timeFetched);
+		directivesCache.put(host, directives);
+		return directives;
+	}
+
+	/** Returns the directives of the host of {@code url}, fetching them if needed, once per host at a time. */
+	private HostDirectives getDirectives(WebURL url) throws IOException, InterruptedException {
+		String host = url.getHost();
+		HostDirectives directives = getCachedDirectives(host);
+		if (directives != null) {
+			return directives;
+		}
+
+		CompletableFuture<HostDirectives> fetch = new CompletableFuture<>();
+		CompletableFuture<HostDirectives> pending = pendingFetches.putIfAbsent(host, fetch);
+		if (pending != null) {
+			return await(pending);
+		}
+		try {
+			// The fetch that just finished may have cached the directives after the first look
+			directives = getCachedDirectives(host);
 			if (directives == null) {
-				directives = fetchDirectives(url);
+				directives = fetchDirectives(host, getRobotsTxtUrl(url));
 			}
-			return directives.allows(path);
-		} catch (MalformedURLException e) {
-			logger.error("Bad URL in Robots.txt: " + webURL.getURL(), e);
+			fetch.complete(directives);
+			return directives;
+		} catch (IOException | InterruptedException | RuntimeException e) {
+			fetch.completeExceptionally(e);
+			throw e;
+		} finally {
+			pendingFetches.remove(host, fetch);
 		}
+	}
 
-		logger.warn("RobotstxtServer: default: allow", webURL.getURL());
-		return true;
+	private CompletableFuture<HostDirectives> prefetch(String host, String robotsTxtUrl) {
+		CompletableFuture<HostDirectives> fetch = new CompletableFuture<>();
+		CompletableFuture<HostDirectives> pending = pendingFetches.putIfAbsent(host, fetch);
+		if (pending != null) {
+			return pending;
+		}
+		try {
+			prefetchExecutor.execute(() -> {
+				try {
+					HostDirectives directives = getCachedDirectives(host);
+					fetch.complete((directives == null) ? fetchDirectives(host, robotsTxtUrl) : directives);
+				} catch (Exception e) {
+					fetch.completeExceptionally(e);
+				} finally {
+					pendingFetches.remove(host, fetch);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			pendingFetches.remove(host, fetch);
+			fetch.completeExceptionally(e);
+		}
+		return fetch;
 	}
 
-	private HostDirectives fetchDirectives(URL url) throws IOException, InterruptedException {
+	private static HostDirectives await(CompletableFuture<HostDirectives> pending)
+			throws IOException, InterruptedException {
+		try {
+			return pending.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof InterruptedException) {
+				throw new InterruptedException(cause.getMessage());
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private HostDirectives fetchDirectives(String host, String url) throws IOException, InterruptedException {
 		WebURL robotsTxtUrl = new WebURL();
-		String host = getHost(url);
-		String port = ((url.getPort() == url.getDefaultPort()) || (url.getPort() == -1)) ? "" : (":" + url.getPort());
-		String proto = url.getProtocol();
-		robotsTxtUrl.setURL(proto + "://" + host + port + "/robots.txt");
+		robotsTxtUrl.setURL(url);
 		HostDirectives directives = null;
+		String content = null;
 		PageFetchResult fetchResult = null;
 		try {
 			for (int redir = 0; redir < 3; ++redir) {
@@ -126,7 +313,6 @@ public class RobotstxtServer {
 				// https://developers.google.com/search/reference/robots_txt
 				fetchResult.fetchContent(page, 500 * 1024);
 				if (Util.hasPlainTextContent(page.getContentType())) {
-					String content;
 					if (page.getContentCharset() == null) {
 						content = new String(page.getContentData());
 					} else {
@@ -135,7 +321,7 @@ public class RobotstxtServer {
 					directives = RobotstxtParser.parse(content, config);
 				} else if (page.getContentType().contains("html")) { // TODO This one should be upgraded to remove all
 					// html tags
-					String content = new String(page.getContentData());
+					content = new String(page.getContentData());
 					directives = RobotstxtParser.parse(content, config);
 				} else {
 					logger.warn(
@@ -174,20 +360,11 @@ public class RobotstxtServer {
 			// We still need to have this object to keep track of the time we fetched it
 			directives = new HostDirectives(config);
 		}
-		synchronized (host2directivesCache) {
-			if (host2directivesCache.size() == config.getCacheSize()) {
-				String minHost = null;
-				long minAccessTime = Long.MAX_VALUE;
-				for (Map.Entry<String, HostDirectives> entry : host2directivesCache.entrySet()) {
-					long entryAccessTime = entry.getValue().getLastAccessTime();
-					if (entryAccessTime < minAccessTime) {
-						minAccessTime = entryAccessTime;
-						minHost = entry.getKey();
-					}
-				}
-				host2directivesCache.remove(minHost);
-			}
-			host2directivesCache.put(host, directives);
+		directivesCache.put(host, directives);
+		RobotstxtStore currentStore = store;
+		if (currentStore != null) {
+			// A missing robots.txt is kept as an empty one, which allows everything just like the directives above
+			currentStore.put(host, directives.getTimeFetched(), (content == null) ? "" : content);
 		}
 		return directives;
 	}
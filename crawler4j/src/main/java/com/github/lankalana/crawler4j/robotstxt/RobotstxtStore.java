@@ -0,0 +1,287 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.robotstxt;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only file of the robots.txt files fetched during a resumable crawl, so that a resumed crawl does not fetch
+ * them again. Only the offset of the latest record of each host is kept in memory; the content is read back and
+ * parsed when the host is looked up. Expired and superseded records are dropped when the file is compacted on open.
+ *
+ * <p>Lookups read the file with positional reads under a shared lock, so that the cache misses of crawler threads
+ * don't wait for each other; only storing a robots.txt and closing the file take the lock exclusively.
+ */
+final class RobotstxtStore {
+	private static final Logger logger = LoggerFactory.getLogger(RobotstxtStore.class);
+
+	/** host length + content length + fetch time */
+	private static final int HEADER_SIZE = 4 + 4 + 8;
+
+	private static final int MAX_HOST_LENGTH = 1024;
+	private static final int MAX_CONTENT_LENGTH = 16 * 1024 * 1024;
+
+	private static final int COMPACTION_MIN_RECORDS = 1000;
+	private static final int COMPACTION_RATIO = 2;
+
+	/** A robots.txt as stored, not yet parsed. */
+	static final class Entry {
+		final long timeFetched;
+		final String content;
+
+		Entry(long timeFetched, String content) {
+			this.timeFetched = timeFetched;
+			this.content = content;
+		}
+	}
+
+	private final File file;
+	private final Map<String, Long> offsets = new HashMap<>();
+	private final CRC32 crc = new CRC32();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private FileChannel channel;
+	private long end;
+	private long records;
+
+	RobotstxtStore(File file) {
+		this.file = file;
+		load();
+		if (records > COMPACTION_MIN_RECORDS && records > (long) COMPACTION_RATIO * offsets.size()) {
+			compact();
+		}
+	}
+
+	/** @return the robots.txt last stored for {@code host}, or null if there is none */
+	Entry get(String host) {
+		lock.readLock().lock();
+		try {
+			Long offset = offsets.get(host);
+			if (offset == null || channel == null) {
+				return null;
+			}
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(header, offset);
+			header.flip();
+			int hostLength = header.getInt();
+			int contentLength = header.getInt();
+			long timeFetched = header.getLong();
+			ByteBuffer content = ByteBuffer.allocate(contentLength);
+			readFully(content, offset + HEADER_SIZE + hostLength);
+			return new Entry(timeFetched, new String(content.array(), StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			logger.warn("Error reading the stored robots.txt of {}", host, e);
+			return null;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	void put(String host, long timeFetched, String content) {
+		byte[] hostBytes = host.getBytes(StandardCharsets.UTF_8);
+		byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+		if (hostBytes.length > MAX_HOST_LENGTH || contentBytes.length > MAX_CONTENT_LENGTH) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			if (channel == null) {
+				return;
+			}
+			long offset = end;
+			end += append(channel, end, hostBytes, contentBytes, timeFetched);
+			offsets.put(host, offset);
+			records++;
+		} catch (IOException e) {
+			logger.warn("Error storing the robots.txt of {}", host, e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	void close() {
+		lock.writeLock().lock();
+		try {
+			if (channel == null) {
+				return;
+			}
+			try {
+				channel.force(false);
+				channel.close();
+			} catch (IOException e) {
+				logger.warn("Error closing {}", file, e);
+			}
+			channel = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Indexes the file and cuts off a record torn by a crash. Records that have expired are left out. */
+	private void load() {
+		long now = System.currentTimeMillis();
+		long loadedLength = 0;
+		if (file.exists()) {
+			try (DataInputStream input =
+					new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), 65536))) {
+				while (true) {
+					int hostLength;
+					try {
+						hostLength = input.readInt();
+					} catch (EOFException e) {
+						break;
+					}
+					int contentLength = input.readInt();
+					long timeFetched = input.readLong();
+					if (hostLength < 0
+							|| hostLength > MAX_HOST_LENGTH
+							|| contentLength < 0
+							|| contentLength > MAX_CONTENT_LENGTH) {
+						throw new IOException("Invalid record header");
+					}
+					byte[] body = new byte[hostLength + contentLength];
+					input.readFully(body);
+					int checksum = input.readInt();
+					if (checksum(hostLength, contentLength, timeFetched, body) != checksum) {
+						throw new IOException("Checksum mismatch");
+					}
+
+					String host = new String(body, 0, hostLength, StandardCharsets.UTF_8);
+					if (now - timeFetched > HostDirectives.EXPIRATION_DELAY) {
+						offsets.remove(host);
+					} else {
+						offsets.put(host, loadedLength);
+					}
+					records++;
+					loadedLength += HEADER_SIZE + body.length + 4;
+				}
+			} catch (IOException e) {
+				logger.warn("{} is damaged after {} records, discarding the rest: {}", file, records, e.getMessage());
+			}
+		}
+		try {
+			File parent = file.getParentFile();
+			if (parent != null && !parent.exists()) {
+				parent.mkdirs();
+			}
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			if (channel.size() > loadedLength) {
+				channel.truncate(loadedLength);
+			}
+			end = loadedLength;
+		} catch (IOException e) {
+			logger.error("Error opening {}, fetched robots.txt files will not be kept", file, e);
+			channel = null;
+		}
+	}
+
+	/** Rewrites the file with only the latest record of each host. */
+	private void compact() {
+		File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+		Map<String, Long> compactedOffsets = new HashMap<>();
+		try (FileChannel tmpChannel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			long position = 0;
+			for (String host : offsets.keySet()) {
+				Entry entry = get(host);
+				if (entry != null) {
+					compactedOffsets.put(host, position);
+					position += append(tmpChannel, position, host.getBytes(StandardCharsets.UTF_8),
+							entry.content.getBytes(StandardCharsets.UTF_8), entry.timeFetched);
+				}
+			}
+			tmpChannel.force(true);
+			close();
+			try {
+				Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+			offsets.clear();
+			offsets.putAll(compactedOffsets);
+			end = position;
+			records = compactedOffsets.size();
+		} catch (IOException e) {
+			logger.warn("Error compacting {}", file, e);
+			if (channel == null) {
+				offsets.clear();
+				records = 0;
+				load();
+			}
+		}
+	}
+
+	private int append(FileChannel target, long position, byte[] host, byte[] content, long timeFetched)
+			throws IOException {
+		ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + host.length + content.length + 4);
+		record.putInt(host.length);
+		record.putInt(content.length);
+		record.putLong(timeFetched);
+		record.put(host);
+		record.put(content);
+		int bodyOffset = HEADER_SIZE;
+		crc.reset();
+		crc.update(record.array(), 0, HEADER_SIZE);
+		crc.update(record.array(), bodyOffset, host.length + content.length);
+		record.putInt((int) crc.getValue());
+		record.flip();
+		int length = record.remaining();
+		while (record.hasRemaining()) {
+			position += target.write(record, position);
+		}
+		return length;
+	}
+
+	private int checksum(int hostLength, int contentLength, long timeFetched, byte[] body) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(hostLength);
+		header.putInt(contentLength);
+		header.putLong(timeFetched);
+		crc.reset();
+		crc.update(header.array(), 0, HEADER_SIZE);
+		crc.update(body);
+		return (int) crc.getValue();
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new EOFException();
+			}
+			position += read;
+		}
+	}
+}
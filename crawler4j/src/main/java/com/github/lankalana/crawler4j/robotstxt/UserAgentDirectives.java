@@ -2,11 +2,9 @@ package com.github.lankalana.crawler4j.robotstxt;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,50 +20,7 @@ public class UserAgentDirectives {
 	private List<String> sitemap = null;
 	private String preferredHost = null;
 	private Double crawlDelay = null;
-	private Set<PathRule> pathRules = new HashSet<>();
-
-	/**
-	 * Comparator used to order the list of matching path rules in such a way that the most specific match (= longest)
-	 * match comes first.
-	 */
-	static class PathComparator implements Comparator<PathRule> {
-		/** The path to compare the path rules with */
-		String path;
-
-		/** Initialize with the path */
-		PathComparator(String path) {
-			this.path = path;
-		}
-
-		/**
-		 * Compare two paths. If lhs matches and rhs does not, this will return -1 If rhs matches and lhs does not, this
-		 * will return 1 If both match or both do not match,, this will return the result of a numeric comparison of the
-		 * length of both patterns, where the longest (=most specific) one will come first.
-		 */
-		@Override
-		public int compare(PathRule lhs, PathRule rhs) {
-			boolean p1Match = lhs.matches(path);
-			boolean p2Match = rhs.matches(path);
-
-			// Matching patterns come first
-			if (p1Match && !p2Match) {
-				return -1;
-			} else if (p2Match && !p1Match) {
-				return 1;
-			}
-
-			// Most specific pattern first
-			String p1 = lhs.pattern.toString();
-			String p2 = rhs.pattern.toString();
-
-			if (p1.length() != p2.length()) {
-				return Integer.compare(p2.length(), p1.length());
-			}
-
-			// Just order alphabetically if the patterns are of the same length
-			return p1.compareTo(p2);
-		}
-	}
+	private final PathRuleMatcher pathRules = new PathRuleMatcher();
 
 	/**
 	 * Create a UserAgentDirectives clause
@@ -108,18 +63,8 @@ public class UserAgentDirectives {
 			return HostDirectives.UNDEFINED;
 		}
 
-		// Order the rules based on their match with the path
-		Set<PathRule> rules = new TreeSet<>(new PathComparator(path));
-		rules.addAll(pathRules);
-
-		// Return the verdict of the best matching rule
-		for (PathRule rule : rules) {
-			if (rule.matches(path)) {
-				return rule.type;
-			}
-		}
-
-		return HostDirectives.UNDEFINED;
+		// Return the verdict of the longest matching rule
+		return pathRules.checkAccess(path);
 	}
 
 	public static class UserAgentComparator implements Comparator<UserAgentDirectives> {
@@ -189,9 +134,9 @@ public class UserAgentDirectives {
 		} else if ("host".equals(rule)) {
 			this.preferredHost = value;
 		} else if ("allow".equals(rule)) {
-			this.pathRules.add(new PathRule(HostDirectives.ALLOWED, value));
+			this.pathRules.add(HostDirectives.ALLOWED, value);
 		} else if ("disallow".equals(rule)) {
-			this.pathRules.add(new PathRule(HostDirectives.DISALLOWED, value));
+			this.pathRules.add(HostDirectives.DISALLOWED, value);
 		} else {
 			logger.error("Invalid key in robots.txt passed to UserAgentRules: {}", rule);
 		}
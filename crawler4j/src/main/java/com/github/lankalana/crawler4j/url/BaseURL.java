@@ -0,0 +1,544 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.url;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The URL of a page, parsed once so that all the links found on the page can be canonicalized against it with
+ * {@link URLCanonicalizer#getCanonicalURL(String, BaseURL, Charset)}.
+ *
+ * <p>Links that are plain http or https URLs are canonicalized here in a single pass over their characters into a
+ * reused buffer, without going through {@link java.net.URL} and {@link java.net.URI}. These are links without empty
+ * path segments, path parameters, user info or non-ASCII characters. Anything else is left to the general
+ * canonicalizer, so the result is always the same as its result. An instance is not thread safe; use one per page.
+ */
+public final class BaseURL {
+	private static final int MAX_QUERY_PARAMETERS = 32;
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private final String url;
+
+	/** Whether relative links can be resolved against this URL here, rather than by the general canonicalizer */
+	private final boolean resolvable;
+
+	private final boolean https;
+	private final String host;
+	private final int port;
+	private final String path;
+	private final String directory;
+	private final String query;
+
+	private final StringBuilder buffer = new StringBuilder(128);
+	private final int[] parameters = new int[MAX_QUERY_PARAMETERS * 4];
+
+	/** @param url The URL of the page; may be null if links have to be absolute */
+	public BaseURL(String url) {
+		this.url = url;
+
+		String spec = (url == null) ? "" : url.trim();
+		int end = spec.indexOf('#');
+		if (end < 0) {
+			end = spec.length();
+		}
+		int colon = indexOf(spec, ':', 0, end);
+		int locationStart = colon + 3;
+		if (colon < 0 || !isHttp(spec, 0, colon) || !spec.startsWith("//", colon + 1)) {
+			resolvable = false;
+			https = false;
+			host = null;
+			port = -1;
+			path = null;
+			directory = null;
+			query = null;
+			return;
+		}
+
+		// Split the URL the way UrlResolver does
+		int start = locationStart;
+		int locationEnd = indexOf(spec, '/', locationStart, end);
+		if (locationEnd >= 0) {
+			start = locationEnd;
+		}
+		int questionMark = indexOf(spec, '?', start, end);
+		String baseQuery = null;
+		if (questionMark >= 0) {
+			if (locationEnd < 0) {
+				locationEnd = questionMark;
+				start = questionMark;
+			}
+			baseQuery = spec.substring(questionMark + 1, end);
+			end = questionMark;
+		}
+		String basePath = null;
+		if (locationEnd < 0) {
+			locationEnd = end;
+		} else if (start < end) {
+			basePath = spec.substring(start, end);
+		}
+
+		https = (colon == 5);
+		int authorityEnd = parseAuthority(spec, locationStart, locationEnd);
+		host = (authorityEnd < 0) ? null : spec.substring(locationStart, authorityEnd).toLowerCase();
+		port = (authorityEnd < 0) ? -1 : parsePort(spec, authorityEnd, locationEnd, https);
+		path = basePath;
+		query = baseQuery;
+		// Replaced as appendSegments does for the link, so that the directory is canonical as well
+		directory = (basePath == null)
+				? "/"
+				: basePath.substring(0, basePath.lastIndexOf('/') + 1).replace("%7E", "~");
+		resolvable = authorityEnd >= 0
+				&& port >= -1
+				&& (basePath == null
+						|| (indexOf(basePath, ';', 0, basePath.length()) < 0
+								&& !basePath.startsWith("/..")
+								&& isPlainPath(basePath, 1, basePath.length())));
+	}
+
+	public String getURL() {
+		return url;
+	}
+
+	/**
+	 * @return the canonical form of {@code href}, the same as URLCanonicalizer would return, or null if the link is not
+	 *     simple enough to be canonicalized here
+	 */
+	String canonicalize(String href, Charset charset) {
+		if (href == null) {
+			return null;
+		}
+		int start = 0;
+		int end = href.length();
+		while (start < end && href.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && href.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		int hash = indexOf(href, '#', start, end);
+		if (hash >= 0) {
+			end = hash;
+		}
+
+		int colon = indexOf(href, ':', start, end);
+		if (colon > start) {
+			int scheme = schemeEnd(href, start, colon);
+			if (scheme == colon) {
+				// An absolute link
+				if (!isHttp(href, start, colon) || !href.startsWith("//", colon + 1)) {
+					return null;
+				}
+				return canonicalizeAbsolute(href, colon + 3, end, colon - start == 5, charset);
+			} else if (scheme < 0) {
+				return null;
+			}
+		}
+		if (!resolvable) {
+			return null;
+		}
+		if (href.startsWith("//", start)) {
+			return canonicalizeAbsolute(href, start + 2, end, https, charset);
+		}
+
+		int questionMark = indexOf(href, '?', start, end);
+		int pathEnd = (questionMark < 0) ? end : questionMark;
+		if (indexOf(href, ';', start, pathEnd) >= 0) {
+			return null;
+		}
+
+		buffer.setLength(0);
+		appendOrigin(https, host, port);
+		int pathStart = buffer.length();
+		if (start == pathEnd) {
+			// No path, the one of the page is kept, and its query unless there is one
+			if (path != null) {
+				appendPath(path, 1, path.length());
+			}
+		} else if (href.charAt(start) == '/') {
+			if (href.startsWith("/..", start) || !appendPath(href, start + 1, pathEnd)) {
+				return null;
+			}
+		} else {
+			buffer.append(directory);
+			if (!appendSegments(href, start, pathEnd, pathStart + 1)) {
+				return null;
+			}
+		}
+		if (buffer.length() == pathStart) {
+			buffer.append('/');
+		}
+
+		if (questionMark >= 0) {
+			if (!appendQuery(href, questionMark + 1, end, charset)) {
+				return null;
+			}
+		} else if (start == pathEnd && query != null) {
+			if (!appendQuery(query, 0, query.length(), charset)) {
+				return null;
+			}
+		}
+		return buffer.toString();
+	}
+
+	/** Canonicalizes a link with an authority starting at {@code start}, split the way {@link java.net.URL} does. */
+	private String canonicalizeAbsolute(String href, int start, int end, boolean secure, Charset charset) {
+		int questionMark = indexOf(href, '?', start, end);
+		int pathEnd = (questionMark < 0) ? end : questionMark;
+		int locationEnd = indexOf(href, '/', start, pathEnd);
+		if (locationEnd < 0) {
+			locationEnd = pathEnd;
+		}
+		int authorityEnd = parseAuthority(href, start, locationEnd);
+		if (authorityEnd < 0) {
+			return null;
+		}
+		int linkPort = parsePort(href, authorityEnd, locationEnd, secure);
+		if (linkPort < -1) {
+			return null;
+		}
+
+		buffer.setLength(0);
+		appendOrigin(secure, href.substring(start, authorityEnd).toLowerCase(), linkPort);
+		if (locationEnd == pathEnd) {
+			buffer.append('/');
+		} else if (indexOf(href, ';', locationEnd, pathEnd) >= 0
+				|| href.startsWith("/..", locationEnd)
+				|| !appendPath(href, locationEnd + 1, pathEnd)) {
+			return null;
+		}
+		if (questionMark >= 0 && !appendQuery(href, questionMark + 1, end, charset)) {
+			return null;
+		}
+		return buffer.toString();
+	}
+
+	private void appendOrigin(boolean secure, String originHost, int originPort) {
+		buffer.append(secure ? "https://" : "http://").append(originHost);
+		if (originPort >= 0) {
+			buffer.append(':').append(originPort);
+		}
+	}
+
+	/** Appends an absolute path, whose leading slash is just before {@code start}. */
+	private boolean appendPath(String s, int start, int end) {
+		buffer.append('/');
+		return appendSegments(s, start, end, buffer.length());
+	}
+
+	/**
+	 * Appends path segments, resolving dot segments and replacing "%7E" with "~" as the general canonicalizer does.
+	 *
+	 * @param root Where the path starts in the buffer, just after its leading slash
+	 * @return false if the path has empty segments, characters that need escaping, or dot segments at its root that the
+	 *     general canonicalizer treats specially
+	 */
+	private boolean appendSegments(String s, int start, int end, int root) {
+		int segmentStart = buffer.length();
+		for (int i = start; i <= end; i++) {
+			char ch = (i < end) ? s.charAt(i) : '/';
+			if (ch == '/') {
+				boolean last = (i == end);
+				int length = buffer.length() - segmentStart;
+				boolean dots = length > 0 && length <= 2 && buffer.charAt(segmentStart) == '.'
+						&& buffer.charAt(buffer.length() - 1) == '.';
+				if (length == 0 && !last) {
+					return false;
+				} else if (dots && length == 1) {
+					buffer.setLength(segmentStart);
+				} else if (dots) {
+					if (segmentStart == root) {
+						if (last) {
+							return false;
+						}
+						buffer.setLength(root);
+					} else {
+						buffer.setLength(buffer.lastIndexOf("/", segmentStart - 2) + 1);
+					}
+				} else {
+					if (segmentStart == root
+							&& length > 2
+							&& buffer.charAt(root) == '.'
+							&& buffer.charAt(root + 1) == '.') {
+						return false;
+					}
+					if (!last) {
+						buffer.append('/');
+					}
+				}
+				segmentStart = buffer.length();
+			} else if (ch == '%') {
+				if (i + 2 >= end || !isHex(s.charAt(i + 1)) || !isHex(s.charAt(i + 2))) {
+					return false;
+				}
+				if (s.charAt(i + 1) == '7' && s.charAt(i + 2) == 'E') {
+					buffer.append('~');
+				} else {
+					buffer.append(s, i, i + 3);
+				}
+				i += 2;
+			} else if (isPathChar(ch)) {
+				buffer.append(ch);
+			} else {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Appends the query with its parameters in their original order, later values of a parameter replacing earlier
+	 * ones, session ids dropped and names and values percent encoded.
+	 *
+	 * @return false if the query needs more than ASCII to be encoded
+	 */
+	private boolean appendQuery(String s, int start, int end, Charset charset) {
+		if (start == end) {
+			return true;
+		}
+		if (!StandardCharsets.UTF_8.equals(charset)
+				&& !StandardCharsets.ISO_8859_1.equals(charset)
+				&& !StandardCharsets.US_ASCII.equals(charset)) {
+			return false;
+		}
+
+		int count = 0;
+		int pairStart = start;
+		while (pairStart <= end) {
+			int pairEnd = indexOf(s, '&', pairStart, end);
+			if (pairEnd < 0) {
+				pairEnd = end;
+			}
+			if (pairEnd > pairStart) {
+				int equals = indexOf(s, '=', pairStart, pairEnd);
+				int nameEnd = (equals < 0) ? pairEnd : equals;
+				int valueStart = (equals < 0) ? pairEnd : equals + 1;
+				int existing = -1;
+				for (int i = 0; i < count; i++) {
+					int offset = i * 4;
+					int nameLength = parameters[offset + 1] - parameters[offset];
+					if (nameLength == nameEnd - pairStart
+							&& s.regionMatches(parameters[offset], s, pairStart, nameLength)) {
+						existing = offset;
+						break;
+					}
+				}
+				if (existing >= 0) {
+					parameters[existing + 2] = valueStart;
+					parameters[existing + 3] = pairEnd;
+				} else {
+					if (count == MAX_QUERY_PARAMETERS) {
+						return false;
+					}
+					int offset = count++ * 4;
+					parameters[offset] = pairStart;
+					parameters[offset + 1] = nameEnd;
+					parameters[offset + 2] = valueStart;
+					parameters[offset + 3] = pairEnd;
+				}
+			}
+			pairStart = pairEnd + 1;
+		}
+
+		int mark = buffer.length();
+		buffer.append('?');
+		int queryStart = buffer.length();
+		for (int i = 0; i < count; i++) {
+			int offset = i * 4;
+			if (isSessionId(s, parameters[offset], parameters[offset + 1])) {
+				continue;
+			}
+			if (buffer.length() > queryStart) {
+				buffer.append('&');
+			}
+			if (!appendEncoded(s, parameters[offset], parameters[offset + 1])) {
+				return false;
+			}
+			if (parameters[offset + 3] > parameters[offset + 2]) {
+				buffer.append('=');
+				if (!appendEncoded(s, parameters[offset + 2], parameters[offset + 3])) {
+					return false;
+				}
+			}
+		}
+		if (buffer.length() == queryStart) {
+			buffer.setLength(mark);
+		}
+		return true;
+	}
+
+	/** Decodes and encodes again a query parameter name or value, when it is all ASCII. */
+	private boolean appendEncoded(String s, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char ch = s.charAt(i);
+			if (ch == '%') {
+				if (i + 2 >= end || !isHex(s.charAt(i + 1)) || !isHex(s.charAt(i + 2)) || s.charAt(i + 1) > '7') {
+					return false;
+				}
+				ch = (char) Integer.parseInt(s.substring(i + 1, i + 3), 16);
+				i += 2;
+			} else if (ch < ' ' || ch >= 0x80) {
+				return false;
+			}
+			if ((ch >= 'a' && ch <= 'z')
+					|| (ch >= 'A' && ch <= 'Z')
+					|| (ch >= '0' && ch <= '9')
+					|| ch == '.'
+					|| ch == '-'
+					|| ch == '_'
+					|| ch == '~') {
+				buffer.append(ch);
+			} else {
+				buffer.append('%').append(HEX[ch >> 4]).append(HEX[ch & 0xF]);
+			}
+		}
+		return true;
+	}
+
+	private static boolean isSessionId(String s, int start, int end) {
+		int length = end - start;
+		if (length != 9 && length != 10 && length != 12) {
+			return false;
+		}
+		String name = s.substring(start, end).toLowerCase();
+		return "jsessionid".equals(name) || "phpsessid".equals(name) || "aspsessionid".equals(name);
+	}
+
+	/** @return the end of the host, or -1 if the authority is not a plain host with an optional port */
+	private static int parseAuthority(String s, int start, int end) {
+		int i = start;
+		while (i < end) {
+			char ch = s.charAt(i);
+			if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '.'
+					|| ch == '-') {
+				i++;
+			} else {
+				break;
+			}
+		}
+		if (i == start || (i < end && s.charAt(i) != ':')) {
+			return -1;
+		}
+		return i;
+	}
+
+	/** @return -1 for the default port, the port otherwise, or -2 if the port is not valid */
+	private static int parsePort(String s, int colon, int end, boolean secure) {
+		if (colon == end) {
+			return -1;
+		}
+		int digits = end - colon - 1;
+		if (digits < 1 || digits > 5) {
+			return -2;
+		}
+		int value = 0;
+		for (int i = colon + 1; i < end; i++) {
+			char ch = s.charAt(i);
+			if (ch < '0' || ch > '9') {
+				return -2;
+			}
+			value = value * 10 + (ch - '0');
+		}
+		if (value > 65535) {
+			return -2;
+		}
+		return (value == (secure ? 443 : 80)) ? -1 : value;
+	}
+
+	/**
+	 * @return {@code colon} if the characters before it form a scheme name as UrlResolver sees them, a smaller index
+	 *     if they do not, or -1 if this cannot be told without looking beyond ASCII
+	 */
+	private static int schemeEnd(String s, int start, int colon) {
+		for (int i = start; i < colon; i++) {
+			char ch = s.charAt(i);
+			if (ch >= 0x80) {
+				return -1;
+			}
+			boolean letter = (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z');
+			if (!letter && (i == start || !((ch >= '0' && ch <= '9') || ch == '.' || ch == '+' || ch == '-'))) {
+				return i;
+			}
+		}
+		return colon;
+	}
+
+	private static boolean isHttp(String s, int start, int colon) {
+		int length = colon - start;
+		return (length == 4 && s.regionMatches(true, start, "http", 0, 4))
+				|| (length == 5 && s.regionMatches(true, start, "https", 0, 5));
+	}
+
+	private static boolean isPlainPath(String s, int start, int end) {
+		int segmentStart = start;
+		for (int i = start; i < end; i++) {
+			char ch = s.charAt(i);
+			if (ch == '/') {
+				if (i == segmentStart || isDotSegment(s, segmentStart, i)) {
+					return false;
+				}
+				segmentStart = i + 1;
+			} else if (ch == '%') {
+				if (i + 2 >= end || !isHex(s.charAt(i + 1)) || !isHex(s.charAt(i + 2))) {
+					return false;
+				}
+				i += 2;
+			} else if (!isPathChar(ch)) {
+				return false;
+			}
+		}
+		return !isDotSegment(s, segmentStart, end);
+	}
+
+	private static boolean isDotSegment(String s, int start, int end) {
+		int length = end - start;
+		return (length == 1 && s.charAt(start) == '.')
+				|| (length == 2 && s.charAt(start) == '.' && s.charAt(start + 1) == '.');
+	}
+
+	private static boolean isPathChar(char ch) {
+		if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')) {
+			return true;
+		}
+		switch (ch) {
+			case '-':
+			case '.':
+			case '_':
+			case '~':
+			case '!':
+			case '$':
+			case '&':
+			case '\'':
+			case '(':
+			case ')':
+			case '*':
+			case '+':
+			case ',':
+			case '=':
+			case ':':
+			case '@':
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private static boolean isHex(char ch) {
+		return (ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'f') || (ch >= 'A' && ch <= 'F');
+	}
+
+	private static int indexOf(String s, char ch, int start, int end) {
+		int index = s.indexOf(ch, start);
+		return (index < end) ? index : -1;
+	}
+}
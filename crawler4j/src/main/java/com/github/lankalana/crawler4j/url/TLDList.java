@@ -0,0 +1,331 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.url;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.IDN;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+
+import de.malkusch.whoisServerList.publicSuffixList.PublicSuffixListFactory;
+
+/**
+ * The public suffix list (https://publicsuffix.org/) compiled into a trie of domain labels, used to find the registered
+ * domain of a host: the public suffix of the host plus one label, such as 'example.co.uk' for 'www.example.co.uk'.
+ *
+ * <p>A lookup walks the labels of the host from right to left, without copying them, and its result is cached per
+ * host so that all the Urls of a host share the same domain string.
+ */
+public class TLDList {
+	private static final Logger logger = LoggerFactory.getLogger(TLDList.class);
+
+	private static final int MAX_CACHED_HOSTS = 100_000;
+
+	private static final byte RULE = 1;
+	private static final byte WILDCARD = 2;
+	private static final byte EXCEPTION = 4;
+
+	private static volatile TLDList instance;
+	private static String instanceSource;
+
+	/** Flags of each node of the trie. Node 0 is the root. */
+	private final byte[] flags;
+
+	/** Open addressing table of the edges of the trie, keyed by parent node and label. */
+	private final int[] edgeParents;
+	private final String[] edgeLabels;
+	private final int[] edgeChildren;
+	private final int mask;
+
+	private final Map<String, String> domains = new ConcurrentHashMap<>();
+
+	/**
+	 * Compiles a public suffix list.
+	 *
+	 * @param stream The list, in the format of https://publicsuffix.org/list/public_suffix_list.dat
+	 */
+	public TLDList(InputStream stream) throws IOException {
+		List<Byte> nodeFlags = new ArrayList<>();
+		nodeFlags.add((byte) 0);
+		Map<String, Integer> edges = new HashMap<>();
+		List<String> edgeKeys = new ArrayList<>();
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			line = line.trim();
+			int space = line.indexOf(' ');
+			if (space >= 0) {
+				line = line.substring(0, space);
+			}
+			if (line.isEmpty() || line.startsWith("//")) {
+				continue;
+			}
+			String rule = line.toLowerCase();
+			addRule(rule, nodeFlags, edges, edgeKeys);
+			String asciiRule = toAscii(rule);
+			if (asciiRule != null && !asciiRule.equals(rule)) {
+				addRule(asciiRule, nodeFlags, edges, edgeKeys);
+			}
+		}
+
+		flags = new byte[nodeFlags.size()];
+		for (int i = 0; i < flags.length; i++) {
+			flags[i] = nodeFlags.get(i);
+		}
+		int capacity = Integer.highestOneBit(Math.max(16, edges.size() * 2) - 1) << 1;
+		mask = capacity - 1;
+		edgeParents = new int[capacity];
+		edgeLabels = new String[capacity];
+		edgeChildren = new int[capacity];
+		for (String key : edgeKeys) {
+			int separator = key.indexOf('/');
+			int parent = Integer.parseInt(key.substring(0, separator));
+			String label = key.substring(separator + 1);
+			int slot = hash(parent, label, 0, label.length()) & mask;
+			while (edgeLabels[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			edgeParents[slot] = parent;
+			edgeLabels[slot] = label;
+			edgeChildren[slot] = edges.get(key);
+		}
+	}
+
+	/** @return the list set up by the last {@link #configure(CrawlConfig)}, or the one embedded in the library */
+	public static TLDList getInstance() {
+		TLDList list = instance;
+		if (list == null) {
+			synchronized (TLDList.class) {
+				list = instance;
+				if (list == null) {
+					list = loadEmbedded();
+					instance = list;
+					instanceSource = null;
+				}
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Loads the list the crawl is configured with: the local file or the online list if {@link
+	 * CrawlConfig#isOnlineTldListUpdate()} is set, the list embedded in the public-suffix-list library otherwise. A
+	 * list is only loaded again if the configuration names another one.
+	 */
+	public static synchronized void configure(CrawlConfig config) {
+		String source = null;
+		if (config.isOnlineTldListUpdate()) {
+			source = (config.getPublicSuffixLocalFile() != null)
+					? config.getPublicSuffixLocalFile()
+					: config.getPublicSuffixSourceUrl();
+		}
+		if (instance != null && (source == null ? instanceSource == null : source.equals(instanceSource))) {
+			return;
+		}
+		TLDList list = null;
+		if (source != null) {
+			list = load(config, source);
+		}
+		if (list == null) {
+			list = loadEmbedded();
+			source = null;
+		}
+		instance = list;
+		instanceSource = source;
+	}
+
+	private static TLDList load(CrawlConfig config, String source) {
+		try {
+			if (config.getPublicSuffixLocalFile() != null) {
+				try (InputStream stream = new FileInputStream(source)) {
+					logger.debug("Loading the public suffix list from: {}", source);
+					return new TLDList(stream);
+				}
+			}
+			URLConnection connection = URI.create(source).toURL().openConnection();
+			connection.setConnectTimeout(config.getConnectionTimeout());
+			connection.setReadTimeout(config.getSocketTimeout());
+			try (InputStream stream = connection.getInputStream()) {
+				logger.debug("Downloading the public suffix list from: {}", source);
+				return new TLDList(stream);
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			logger.warn("Couldn't load the public suffix list from {}, using the embedded one: {}", source,
+					e.getMessage());
+			return null;
+		}
+	}
+
+	private static TLDList loadEmbedded() {
+		String file = new PublicSuffixListFactory().getDefaults().getProperty(
+				PublicSuffixListFactory.PROPERTY_LIST_FILE);
+		try (InputStream stream = (file == null) ? null : PublicSuffixListFactory.class.getResourceAsStream(file)) {
+			if (stream != null) {
+				return new TLDList(stream);
+			}
+			logger.error("The embedded public suffix list {} was not found", file);
+		} catch (IOException e) {
+			logger.error("Couldn't read the embedded public suffix list " + file, e);
+		}
+		return new TLDList();
+	}
+
+	/** An empty list, in which the public suffix of each host is its last label. */
+	private TLDList() {
+		flags = new byte[1];
+		mask = 0;
+		edgeParents = new int[1];
+		edgeLabels = new String[1];
+		edgeChildren = new int[1];
+	}
+
+	/**
+	 * @param host A host name in lower case
+	 * @return the registered domain of the host, such as 'example.co.uk' for 'www.example.co.uk', or the host itself
+	 *     if it is an IP address or a public suffix
+	 */
+	public String getRegisteredDomain(String host) {
+		if (host == null || host.isEmpty()) {
+			return host;
+		}
+		String domain = domains.get(host);
+		if (domain == null) {
+			int start = getRegisteredDomainStart(host);
+			domain = (start == 0) ? host : host.substring(start);
+			if (domains.size() >= MAX_CACHED_HOSTS) {
+				domains.clear();
+			}
+			domains.put(host, domain);
+		}
+		return domain;
+	}
+
+	private int getRegisteredDomainStart(String host) {
+		if (host.charAt(0) == '[' || isIPv4(host)) {
+			return 0;
+		}
+		int labelEnd = host.length();
+		// The default rule '*' makes the last label a public suffix
+		int suffixStart = host.lastIndexOf('.', labelEnd - 1) + 1;
+		int node = 0;
+		while (labelEnd > 0) {
+			int labelStart = host.lastIndexOf('.', labelEnd - 1) + 1;
+			int child = getChild(node, host, labelStart, labelEnd);
+			if (child >= 0 && (flags[child] & EXCEPTION) != 0) {
+				// An exception rule makes its parent the public suffix
+				suffixStart = labelEnd + 1;
+				break;
+			}
+			if ((flags[node] & WILDCARD) != 0 || (child >= 0 && (flags[child] & RULE) != 0)) {
+				suffixStart = labelStart;
+			}
+			if (child < 0) {
+				break;
+			}
+			node = child;
+			labelEnd = labelStart - 1;
+		}
+		if (suffixStart <= 0) {
+			return 0;
+		}
+		return host.lastIndexOf('.', suffixStart - 2) + 1;
+	}
+
+	private int getChild(int parent, String host, int start, int end) {
+		int length = end - start;
+		int slot = hash(parent, host, start, end) & mask;
+		String label;
+		while ((label = edgeLabels[slot]) != null) {
+			if (edgeParents[slot] == parent && label.length() == length && host.startsWith(label, start)) {
+				return edgeChildren[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private static int hash(int parent, String s, int start, int end) {
+		int h = parent;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + s.charAt(i);
+		}
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean isIPv4(String host) {
+		int lastLabel = host.lastIndexOf('.') + 1;
+		if (lastLabel == host.length()) {
+			return false;
+		}
+		for (int i = lastLabel; i < host.length(); i++) {
+			if (host.charAt(i) < '0' || host.charAt(i) > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void addRule(String rule, List<Byte> nodeFlags, Map<String, Integer> edges, List<String> edgeKeys) {
+		byte flag = RULE;
+		if (rule.startsWith("!")) {
+			flag = EXCEPTION;
+			rule = rule.substring(1);
+		}
+		int node = 0;
+		int labelEnd = rule.length();
+		while (labelEnd > 0) {
+			int labelStart = rule.lastIndexOf('.', labelEnd - 1) + 1;
+			String label = rule.substring(labelStart, labelEnd);
+			if (labelStart == 0 && label.equals("*")) {
+				flag = WILDCARD;
+				break;
+			}
+			String key = node + "/" + label;
+			Integer child = edges.get(key);
+			if (child == null) {
+				child = nodeFlags.size();
+				nodeFlags.add((byte) 0);
+				edges.put(key, child);
+				edgeKeys.add(key);
+			}
+			node = child;
+			labelEnd = labelStart - 1;
+		}
+		nodeFlags.set(node, (byte) (nodeFlags.get(node) | flag));
+	}
+
+	private static String toAscii(String rule) {
+		try {
+			return IDN.toASCII(rule, IDN.ALLOW_UNASSIGNED);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
@@ -44,7 +44,29 @@ public class URLCanonicalizer {
 
 	public static String getCanonicalURL(String href, String context, Charset charset)
 			throws UnsupportedEncodingException {
+		return getCanonicalURL(href, new BaseURL(context), charset);
+	}
 
+	/**
+	 * Canonicalizes a link found on a page. Simple links, which are most of them, are canonicalized by the base URL in a
+	 * single pass; the others are resolved and normalized through {@link URL} and {@link URI}.
+	 *
+	 * @param href The link
+	 * @param base The URL of the page, parsed once for all its links
+	 * @param charset Charset of the page, used to encode the query
+	 * @return The canonical URL, or null if the link is not a valid URL
+	 */
+	public static String getCanonicalURL(String href, BaseURL base, Charset charset)
+			throws UnsupportedEncodingException {
+		String canonicalURL = base.canonicalize(href, charset);
+		if (canonicalURL != null) {
+			return canonicalURL;
+		}
+		return resolveAndNormalize(href, base.getURL(), charset);
+	}
+
+	static String resolveAndNormalize(String href, String context, Charset charset)
+			throws UnsupportedEncodingException {
 		try {
 			URL canonicalURL = new URL(UrlResolver.resolveUrl((context == null) ? "" : context, href));
 
@@ -27,7 +27,12 @@ public class WebURL implements Serializable {
 	private String parentUrl;
 	private short depth;
 	private String registeredDomain;
+	private String scheme;
+	private String host;
+	private int port = -1;
 	private String path;
+	private int queryStart = -1;
+	private int queryEnd = -1;
 	private String anchor;
 	private byte priority;
 	private String tag;
@@ -47,18 +52,80 @@ public class WebURL implements Serializable {
 		return url;
 	}
 
+	/**
+	 * Sets the Url and splits it, once, into the scheme, host, port, path and query returned by the getters of this
+	 * class, so that the crawler does not need to parse it again.
+	 */
 	public void setURL(String url) {
 		this.url = url;
 
-		int domainStartIdx = url.indexOf("//") + 2;
-		int domainEndIdx = url.indexOf('/', domainStartIdx);
-		domainEndIdx = (domainEndIdx > domainStartIdx) ? domainEndIdx : url.length();
-		String domain = url.substring(domainStartIdx, domainEndIdx);
-		registeredDomain = domain;
-		path = url.substring(domainEndIdx);
-		int pathEndIdx = path.indexOf('?');
-		if (pathEndIdx >= 0) {
-			path = path.substring(0, pathEndIdx);
+		int schemeEnd = url.indexOf("://");
+		int authorityStart = (schemeEnd < 0) ? 0 : schemeEnd + 3;
+		if (schemeEnd == 4 && url.regionMatches(true, 0, "http", 0, 4)) {
+			scheme = "http";
+		} else if (schemeEnd == 5 && url.regionMatches(true, 0, "https", 0, 5)) {
+			scheme = "https";
+		} else {
+			scheme = (schemeEnd < 0) ? null : url.substring(0, schemeEnd).toLowerCase();
+		}
+
+		int length = url.length();
+		int fragmentStart = url.indexOf('#', authorityStart);
+		int end = (fragmentStart < 0) ? length : fragmentStart;
+		int authorityEnd = authorityStart;
+		while (authorityEnd < end && url.charAt(authorityEnd) != '/' && url.charAt(authorityEnd) != '?') {
+			authorityEnd++;
+		}
+		parseAuthority(url.substring(authorityStart, authorityEnd));
+		registeredDomain = TLDList.getInstance().getRegisteredDomain(host);
+
+		int questionMark = url.indexOf('?', authorityEnd);
+		if (questionMark >= 0 && questionMark < end) {
+			path = url.substring(authorityEnd, questionMark);
+			queryStart = questionMark + 1;
+			queryEnd = end;
+		} else {
+			path = url.substring(authorityEnd, end);
+			queryStart = -1;
+			queryEnd = -1;
+		}
+	}
+
+	/** Splits user info, host and port of {@code authority}. */
+	private void parseAuthority(String authority) {
+		int hostStart = authority.lastIndexOf('@') + 1;
+		int hostEnd;
+		int portStart;
+		if (authority.startsWith("[", hostStart)) {
+			int bracket = authority.indexOf(']', hostStart);
+			hostEnd = (bracket < 0) ? authority.length() : bracket + 1;
+			portStart = (hostEnd < authority.length() && authority.charAt(hostEnd) == ':') ? hostEnd + 1 : -1;
+		} else {
+			int colon = authority.indexOf(':', hostStart);
+			hostEnd = (colon < 0) ? authority.length() : colon;
+			portStart = (colon < 0) ? -1 : colon + 1;
+		}
+
+		boolean lowerCase = true;
+		for (int i = hostStart; i < hostEnd && lowerCase; i++) {
+			char ch = authority.charAt(i);
+			lowerCase = ch < 'A' || ch > 'Z';
+		}
+		if (hostStart == 0 && hostEnd == authority.length() && lowerCase) {
+			host = authority;
+		} else {
+			String hostName = authority.substring(hostStart, hostEnd);
+			host = lowerCase ? hostName : hostName.toLowerCase();
+		}
+
+		port = -1;
+		if (portStart > 0 && portStart < authority.length() && authority.length() - portStart <= 5) {
+			int value = 0;
+			for (int i = portStart; i < authority.length() && value >= 0; i++) {
+				char ch = authority.charAt(i);
+				value = (ch >= '0' && ch <= '9') ? value * 10 + (ch - '0') : -1;
+			}
+			port = value;
 		}
 	}
 
@@ -103,6 +170,48 @@ public class WebURL implements Serializable {
 		return registeredDomain;
 	}
 
+	/**
+	 * @return Sub-domain of this Url. For 'http://www.example.com/sample.htm', sub-domain is 'www'. For
+	 *     'http://www.my.company.co.uk' the sub-domain is 'www.my'. It is empty if the host is the domain itself.
+	 */
+	public String getSubDomain() {
+		if (host == null || registeredDomain == null || host.length() <= registeredDomain.length()) {
+			return "";
+		}
+		return host.substring(0, host.length() - registeredDomain.length() - 1);
+	}
+
+	/** @return scheme of this Url in lower case, such as 'http', or null if it has none */
+	public String getScheme() {
+		return scheme;
+	}
+
+	/**
+	 * @return host name of this Url in lower case, without user info and port. For 'http://www.example.com:8080/', the
+	 *     host is 'www.example.com'.
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/** @return port of this Url, or -1 if it does not name one */
+	public int getPort() {
+		return port;
+	}
+
+	/** @return default port of the scheme of this Url if it is http or https, -1 otherwise */
+	public int getDefaultPort() {
+		if ("http".equals(scheme)) {
+			return 80;
+		}
+		return "https".equals(scheme) ? 443 : -1;
+	}
+
+	/** @return query of this Url, without the '?', or null if it has none */
+	public String getQuery() {
+		return (queryStart < 0) ? null : url.substring(queryStart, queryEnd);
+	}
+
 	/** @return path of this Url. For 'http://www.example.com/sample.htm', registeredDomain will be 'sample.htm' */
 	public String getPath() {
 		return path;
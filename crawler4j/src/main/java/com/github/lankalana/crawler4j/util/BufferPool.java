@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.lankalana.crawler4j.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of byte arrays in power of two size classes, from {@link #MIN_BUFFER_SIZE} up to a maximum, so that the
+ * buffers pages are downloaded into are reused instead of being allocated for each page.
+ *
+ * <p>The pool keeps a bounded number of free buffers in all, whatever their size. Larger requests and buffers
+ * returned to a full pool are left to the garbage collector.
+ */
+public class BufferPool {
+
+	/** The smallest buffer the pool hands out. */
+	public static final int MIN_BUFFER_SIZE = 4096;
+
+	private final int maxBufferSize;
+	private final int maxFreeBuffers;
+	private final List<ArrayBlockingQueue<byte[]>> sizeClasses = new ArrayList<>();
+	private final AtomicInteger freeBuffers = new AtomicInteger();
+
+	/**
+	 * @param maxBufferSize The size of the largest pooled buffer, rounded up to a power of two
+	 * @param maxFreeBuffers The number of free buffers the pool keeps in all, such as the number of crawler threads
+	 */
+	public BufferPool(int maxBufferSize, int maxFreeBuffers) {
+		this.maxBufferSize = sizeClassOf(Math.max(maxBufferSize, MIN_BUFFER_SIZE));
+		this.maxFreeBuffers = Math.max(1, maxFreeBuffers);
+		for (int size = MIN_BUFFER_SIZE; size <= this.maxBufferSize && size > 0; size <<= 1) {
+			sizeClasses.add(new ArrayBlockingQueue<>(this.maxFreeBuffers));
+		}
+	}
+
+	/**
+	 * @param minSize The number of bytes the buffer must hold
+	 * @return a buffer of at least minSize bytes, whose content is undefined
+	 */
+	public byte[] borrow(int minSize) {
+		if (minSize > maxBufferSize) {
+			return new byte[minSize];
+		}
+		int size = sizeClassOf(Math.max(minSize, MIN_BUFFER_SIZE));
+		byte[] buffer = sizeClasses.get(indexOf(size)).poll();
+		if (buffer == null) {
+			return new byte[size];
+		}
+		freeBuffers.decrementAndGet();
+		return buffer;
+	}
+
+	/** Returns a buffer to the pool. The caller must not use it afterwards. */
+	public void release(byte[] buffer) {
+		int size = buffer.length;
+		if (size < MIN_BUFFER_SIZE || size > maxBufferSize || Integer.bitCount(size) != 1) {
+			return;
+		}
+		// The slot is reserved before the buffer is queued, so that racing releases never exceed the bound
+		if (freeBuffers.incrementAndGet() > maxFreeBuffers || !sizeClasses.get(indexOf(size)).offer(buffer)) {
+			freeBuffers.decrementAndGet();
+		}
+	}
+
+	/** @return the number of free buffers in the pool */
+	public int getFreeBuffers() {
+		return freeBuffers.get();
+	}
+
+	private static int sizeClassOf(int size) {
+		int sizeClass = Integer.highestOneBit(size);
+		return (sizeClass == size || sizeClass == (1 << 30)) ? sizeClass : sizeClass << 1;
+	}
+
+	private static int indexOf(int sizeClass) {
+		return Integer.numberOfTrailingZeros(sizeClass) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+	}
+}
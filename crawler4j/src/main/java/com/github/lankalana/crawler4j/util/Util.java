@@ -14,6 +14,9 @@ package com.github.lankalana.crawler4j.util;
 
 /** @author Yasser Ganjisaffar */
 public class Util {
+	/** The number of leading bytes {@link #sniffBinaryContentType(byte[], int)} looks at. */
+	public static final int SNIFF_LENGTH = 8;
+
 	private Util() {}
 
 	public static boolean hasBinaryContent(String contentType) {
@@ -36,4 +39,59 @@ public class Util {
 
 		return typeStr.contains("css");
 	}
+
+	/**
+	 * Recognizes the common binary formats from the magic numbers at the start of their content, for responses that
+	 * don't name their content type.
+	 *
+	 * @param head The first bytes of the content
+	 * @param length The number of valid bytes in head
+	 * @return the content type of a recognized binary format, or null
+	 */
+	public static String sniffBinaryContentType(byte[] head, int length) {
+		if (startsWith(head, length, 0x89, 'P', 'N', 'G')) {
+			return "image/png";
+		}
+		if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+			return "image/jpeg";
+		}
+		if (startsWith(head, length, 'G', 'I', 'F', '8')) {
+			return "image/gif";
+		}
+		if (startsWith(head, length, '%', 'P', 'D', 'F', '-')) {
+			return "application/pdf";
+		}
+		if (startsWith(head, length, 'P', 'K', 0x03, 0x04)) {
+			return "application/zip";
+		}
+		if (startsWith(head, length, 0x1F, 0x8B)) {
+			return "application/gzip";
+		}
+		if (startsWith(head, length, 'R', 'I', 'F', 'F')) {
+			return "application/octet-stream";
+		}
+		if (startsWith(head, length, 'O', 'g', 'g', 'S')) {
+			return "audio/ogg";
+		}
+		if (startsWith(head, length, 'I', 'D', '3') || startsWith(head, length, 0xFF, 0xFB)) {
+			return "audio/mpeg";
+		}
+		if (length >= 8 && startsWith(head, length, 0, 0, 0) && head[4] == 'f' && head[5] == 't' && head[6] == 'y'
+				&& head[7] == 'p') {
+			return "video/mp4";
+		}
+		return null;
+	}
+
+	private static boolean startsWith(byte[] head, int length, int... magic) {
+		if (length < magic.length) {
+			return false;
+		}
+		for (int i = 0; i < magic.length; i++) {
+			if ((head[i] & 0xFF) != magic[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
 }
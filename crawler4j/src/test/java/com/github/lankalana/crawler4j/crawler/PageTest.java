@@ -1,16 +1,33 @@
 package com.github.lankalana.crawler4j.crawler;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.http.entity.BasicHttpEntity;
 import org.apache.http.message.BasicHeader;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.github.lankalana.crawler4j.url.WebURL;
+import com.github.lankalana.crawler4j.util.BufferPool;
 
 public class PageTest {
 
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
 	@Test
 	public void testDefaultCharsetFallback() throws Exception {
 		BasicHttpEntity entity = new BasicHttpEntity();
@@ -25,4 +42,74 @@ public class PageTest {
 
 		assertEquals("UTF-8", page.getContentCharset());
 	}
+
+	@Test
+	public void testLoadsIntoPooledBuffers() throws Exception {
+		byte[] content = new byte[10_000];
+		Arrays.fill(content, (byte) 'a');
+		BufferPool pool = new BufferPool(16_384, 3);
+
+		// Without a content length the buffer grows from the smallest size class
+		Page page = new Page(new WebURL());
+		page.setBufferPool(pool);
+		page.load(newEntity(content, -1), 16_384);
+		assertFalse(page.isTruncated());
+		ByteBuffer view = page.getContentBuffer();
+		assertTrue(view.isReadOnly());
+		assertEquals(content.length, view.remaining());
+		assertArrayEquals(content, page.getContentData());
+
+		// The 4 KiB and 8 KiB buffers it grew out of went back to the pool too
+		page.releaseContent();
+		assertEquals(3, pool.getFreeBuffers());
+		assertArrayEquals(content, page.getContentData());
+
+		page = new Page(new WebURL());
+		page.setBufferPool(pool);
+		page.load(newEntity(content, content.length), 4_000);
+		assertTrue(page.isTruncated());
+		assertEquals(4_000, page.getContentBuffer().remaining());
+		page.releaseContent();
+		assertEquals(3, pool.getFreeBuffers());
+	}
+
+	@Test
+	public void testSpoolsLargeContentToAFile() throws Exception {
+		byte[] content = new byte[10_000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+		File spoolFolder = temp.newFolder("spool");
+
+		Page page = new Page(new WebURL());
+		page.setSpoolFolder(spoolFolder, 1_000);
+		page.load(newEntity(content, -1), 8_000);
+		assertTrue(page.isContentSpooled());
+		assertTrue(page.isTruncated());
+		assertEquals(8_000, page.getContentLength());
+		assertEquals(1, spoolFolder.list().length);
+		assertEquals(8_000, page.getContentBuffer().remaining());
+		assertEquals((byte) 7_999, page.getContentBuffer().get(7_999));
+		try (ReadableByteChannel channel = page.getContentChannel()) {
+			assertTrue(channel instanceof FileChannel);
+		}
+		try (InputStream stream = page.getContentStream()) {
+			assertArrayEquals(Arrays.copyOf(content, 8_000), stream.readAllBytes());
+		}
+
+		page.releaseContent();
+		assertEquals(0, spoolFolder.list().length);
+
+		// Content up to the threshold stays in memory
+		page.load(newEntity(Arrays.copyOf(content, 1_000), -1), 8_000);
+		assertFalse(page.isContentSpooled());
+		assertArrayEquals(Arrays.copyOf(content, 1_000), page.getContentData());
+	}
+
+	private static BasicHttpEntity newEntity(byte[] content, long length) {
+		BasicHttpEntity entity = new BasicHttpEntity();
+		entity.setContent(new ByteArrayInputStream(content));
+		entity.setContentLength(length);
+		return entity;
+	}
 }
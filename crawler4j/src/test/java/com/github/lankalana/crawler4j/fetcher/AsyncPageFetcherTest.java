@@ -0,0 +1,115 @@
+package com.github.lankalana.crawler4j.fetcher;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.crawler.Page;
+import com.github.lankalana.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
+import com.github.lankalana.crawler4j.url.WebURL;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class AsyncPageFetcherTest {
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(new WireMockConfiguration().dynamicPort());
+
+	@Test
+	public void testManyFetchesInFlight() throws Exception {
+		stubFor(get(urlEqualTo("/some/index.html"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withHeader("Content-Type", "text/html; charset=UTF-8")
+						.withBody("<html><body>Hello</body></html>")
+						.withFixedDelay(200)));
+
+		CrawlConfig config = new CrawlConfig();
+		config.setPolitenessDelay(0);
+		AsyncPageFetcher pageFetcher = new AsyncPageFetcher(config);
+		try {
+			long start = System.currentTimeMillis();
+			List<CompletableFuture<PageFetchResult>> futures = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				futures.add(pageFetcher.fetchPageAsync(newUrl("/some/index.html")));
+			}
+			for (CompletableFuture<PageFetchResult> future : futures) {
+				PageFetchResult result = future.get();
+				Assert.assertEquals(200, result.getStatusCode());
+
+				Page page = new Page(newUrl("/some/index.html"));
+				Assert.assertTrue(result.fetchContent(page, config.getMaxDownloadSize()));
+				Assert.assertEquals("<html><body>Hello</body></html>", new String(page.getContentData(), "UTF-8"));
+				Assert.assertEquals("UTF-8", page.getContentCharset());
+			}
+			// Sequential fetches would take at least 20 * 200 milliseconds
+			Assert.assertTrue(System.currentTimeMillis() - start < 20 * 200);
+		} finally {
+			pageFetcher.shutDown();
+		}
+	}
+
+	@Test
+	public void testRedirectsAndOversizedPages() throws Exception {
+		stubFor(get(urlEqualTo("/moved.html"))
+				.willReturn(aResponse().withStatus(301).withHeader("Location", "/some/index.html")));
+		stubFor(get(urlEqualTo("/big.html"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withHeader("Content-Type", "text/html")
+						.withHeader("Content-Length", "2048")
+						.withBody(new byte[2048])
+						.withGzipDisabled(true)));
+		stubFor(get(urlEqualTo("/chunked.html"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withHeader("Content-Type", "text/html")
+						.withBody(new byte[2048])
+						.withGzipDisabled(true)
+						.withChunkedDribbleDelay(4, 40)));
+
+		CrawlConfig config = new CrawlConfig();
+		config.setPolitenessDelay(0);
+		config.setMaxDownloadSize(1024);
+		AsyncPageFetcher pageFetcher = new AsyncPageFetcher(config);
+		try {
+			PageFetchResult result = pageFetcher.fetchPage(newUrl("/moved.html"));
+			Assert.assertEquals(301, result.getStatusCode());
+			Assert.assertEquals(
+					"http://localhost:" + wireMockRule.port() + "/some/index.html", result.getMovedToUrl());
+
+			try {
+				pageFetcher.fetchPage(newUrl("/big.html"));
+				Assert.fail("The page is bigger than the maximum download size");
+			} catch (PageBiggerThanMaxSizeException e) {
+				Assert.assertEquals(2048, e.getPageSize());
+			}
+
+			// Without a Content-Length the size is only known while reading, so the content is truncated instead
+			result = pageFetcher.fetchPage(newUrl("/chunked.html"));
+			Assert.assertEquals(200, result.getStatusCode());
+			Page page = new Page(newUrl("/chunked.html"));
+			Assert.assertTrue(result.fetchContent(page, config.getMaxDownloadSize()));
+			Assert.assertTrue(page.isTruncated());
+			Assert.assertEquals(1024, page.getContentData().length);
+		} finally {
+			pageFetcher.shutDown();
+		}
+	}
+
+	private WebURL newUrl(String path) {
+		WebURL webUrl = new WebURL();
+		webUrl.setURL("http://localhost:" + wireMockRule.port() + path);
+		return webUrl;
+	}
+}
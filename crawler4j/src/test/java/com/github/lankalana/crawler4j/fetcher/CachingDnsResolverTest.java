@@ -0,0 +1,100 @@
+package com.github.lankalana.crawler4j.fetcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.conn.DnsResolver;
+import org.junit.Test;
+
+public class CachingDnsResolverTest {
+
+	@Test
+	public void testCachesAddressesAndFailures() throws Exception {
+		CountingResolver counting = new CountingResolver();
+		CachingDnsResolver resolver = new CachingDnsResolver(counting, 60_000, 60_000, 0);
+
+		assertEquals("127.0.0.1", resolver.resolve("known.example")[0].getHostAddress());
+		assertEquals("127.0.0.1", resolver.resolve("known.example")[0].getHostAddress());
+		assertEquals(1, counting.queries("known.example"));
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				resolver.resolve("unknown.example");
+				fail("The host should not resolve");
+			} catch (UnknownHostException e) {
+				// Expected
+			}
+		}
+		assertEquals(1, counting.queries("unknown.example"));
+		assertEquals(2, resolver.getHitCount());
+		assertEquals(2, resolver.getMissCount());
+	}
+
+	@Test
+	public void testEntriesExpire() throws Exception {
+		CountingResolver counting = new CountingResolver();
+		CachingDnsResolver resolver = new CachingDnsResolver(counting, 50, 0, 0);
+
+		resolver.resolve("known.example");
+		Thread.sleep(100);
+		resolver.resolve("known.example");
+		assertEquals(2, counting.queries("known.example"));
+
+		// Without a negative TTL failures are not cached
+		for (int i = 0; i < 2; i++) {
+			try {
+				resolver.resolve("unknown.example");
+			} catch (UnknownHostException e) {
+				// Expected
+			}
+		}
+		assertEquals(2, counting.queries("unknown.example"));
+	}
+
+	@Test
+	public void testPrefetchResolvesInTheBackground() throws Exception {
+		CountingResolver counting = new CountingResolver();
+		CachingDnsResolver resolver = new CachingDnsResolver(counting, 60_000, 60_000, 2);
+		try {
+			resolver.prefetch("known.example");
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (!resolver.isCached("known.example") && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertTrue(resolver.isCached("known.example"));
+			resolver.resolve("known.example");
+			resolver.prefetch("known.example");
+			assertEquals(1, counting.queries("known.example"));
+			assertEquals(1, resolver.getHitCount());
+			assertEquals(0, resolver.getMissCount());
+		} finally {
+			resolver.shutDown();
+		}
+	}
+
+	/** Resolves 'known.example' to the loopback address and counts the queries of each host. */
+	private static class CountingResolver implements DnsResolver {
+		private final ConcurrentMap<String, AtomicInteger> queries = new ConcurrentHashMap<>();
+
+		@Override
+		public InetAddress[] resolve(String host) throws UnknownHostException {
+			queries.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet();
+			if (host.equals("known.example")) {
+				return new InetAddress[] {InetAddress.getByName("127.0.0.1")};
+			}
+			throw new UnknownHostException(host);
+		}
+
+		int queries(String host) {
+			AtomicInteger count = queries.get(host);
+			return (count == null) ? 0 : count.get();
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.lankalana.crawler4j.fetcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+
+import org.apache.http.client.utils.DateUtils;
+import org.junit.Test;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.url.WebURL;
+
+public class PolitenessSchedulerTest {
+
+	@Test
+	public void testDelayIsTrackedPerHost() {
+		PolitenessScheduler scheduler = new PolitenessScheduler(new CrawlConfig());
+
+		assertEquals(0, scheduler.reserve("a.example.com", 1000));
+		assertEquals(0, scheduler.reserve("b.example.com", 1000));
+		long wait = scheduler.reserve("a.example.com", 1000);
+		assertTrue(wait > 900 && wait <= 1000);
+		wait = scheduler.reserve("a.example.com", 1000);
+		assertTrue(wait > 1900 && wait <= 2000);
+	}
+
+	@Test
+	public void testPolitenessKey() {
+		CrawlConfig config = new CrawlConfig();
+		PolitenessScheduler scheduler = new PolitenessScheduler(config);
+
+		assertEquals("www.example.com", scheduler.getPolitenessKey(newUrl("http://www.example.com:8080/page")));
+		assertEquals("www.example.com", scheduler.getPolitenessKey(newUrl("http://user@www.example.com/")));
+
+		config.setPolitenessGrouping(PolitenessScheduler.Grouping.IP);
+		assertEquals("127.0.0.1", scheduler.getPolitenessKey(newUrl("http://127.0.0.1/page")));
+	}
+
+	@Test
+	public void testAdaptiveDelayGrowsAndBacksOff() {
+		CrawlConfig config = new CrawlConfig();
+		config.setPolitenessDelay(100);
+		config.setAdaptivePoliteness(true);
+		config.setMinAdaptivePolitenessDelay(50);
+		PolitenessScheduler scheduler = new PolitenessScheduler(config);
+		WebURL url = newUrl("http://www.example.com/");
+
+		assertEquals(100, scheduler.getDelay("www.example.com"));
+		for (int i = 0; i < 5; i++) {
+			scheduler.onResponse(url, 200, 100, null);
+		}
+		// 10 requests per second plus 5 increases of 1
+		assertEquals(67, scheduler.getDelay("www.example.com"));
+		for (int i = 0; i < 20; i++) {
+			scheduler.onResponse(url, 200, 100, null);
+		}
+		assertEquals(50, scheduler.getDelay("www.example.com"));
+
+		scheduler.onResponse(url, 503, 100, null);
+		assertEquals(100, scheduler.getDelay("www.example.com"));
+		scheduler.onTimeout(url);
+		assertEquals(200, scheduler.getDelay("www.example.com"));
+		// A latency spike halves the rate too
+		scheduler.onResponse(url, 200, 1000, null);
+		assertEquals(400, scheduler.getDelay("www.example.com"));
+		assertEquals(100, scheduler.getDelay("other.example.com"));
+	}
+
+	@Test
+	public void testRetryAfterHoldsTheHostBack() {
+		CrawlConfig config = new CrawlConfig();
+		config.setAdaptivePoliteness(true);
+		PolitenessScheduler scheduler = new PolitenessScheduler(config);
+
+		long now = System.currentTimeMillis();
+		scheduler.onResponse(newUrl("http://www.example.com/"), 429, 100, "120");
+		long next = scheduler.getNextFetchTime("www.example.com");
+		assertTrue(next >= now + 120_000 && next <= now + 121_000);
+
+		assertEquals(0, PolitenessScheduler.parseRetryAfter("soon"));
+		assertEquals(60 * 60 * 1000, PolitenessScheduler.parseRetryAfter(String.valueOf(Long.MAX_VALUE / 10)));
+		assertEquals(0, PolitenessScheduler.parseRetryAfter(String.valueOf(Long.MIN_VALUE)));
+		assertEquals(0, PolitenessScheduler.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+		assertTrue(PolitenessScheduler.parseRetryAfter(DateUtils.formatDate(new Date(now + 60_000))) > 50_000);
+	}
+
+	private static WebURL newUrl(String url) {
+		WebURL webUrl = new WebURL();
+		webUrl.setURL(url);
+		return webUrl;
+	}
+}
@@ -0,0 +1,78 @@
+package com.github.lankalana.crawler4j.frontier;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.url.WebURL;
+
+public class CheckpointerTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void testStateIsWrittenOnShutdown() throws Exception {
+		File folder = temp.getRoot();
+		CrawlConfig config = new CrawlConfig();
+		config.setResumableCrawling(true);
+		config.setAsyncCheckpointing(true);
+		config.setCheckpointIntervalMillis(0);
+		config.setCheckpointFsync(true);
+
+		Checkpointer checkpointer = new Checkpointer(config);
+		DocIDServer docIdServer = new DocIDServer(folder, config, checkpointer);
+		Frontier frontier = new Frontier(folder, config, checkpointer);
+		checkpointer.register(docIdServer);
+		checkpointer.start();
+		for (int i = 0; i < 100; i++) {
+			WebURL url = new WebURL();
+			url.setURL("http://www.example.com/" + i);
+			url.setDocid(docIdServer.getNewDocID(url.getURL()));
+			frontier.schedule(url);
+		}
+		checkpointer.close();
+		frontier.close();
+		docIdServer.close();
+
+		config.setAsyncCheckpointing(false);
+		frontier = new Frontier(folder, config);
+		assertEquals(100, frontier.getQueueLength());
+		assertEquals(100, frontier.getNumberOfScheduledPages());
+		frontier.close();
+	}
+
+	@Test
+	public void testMutationThresholdTriggersCheckpoint() throws Exception {
+		File folder = temp.getRoot();
+		CrawlConfig config = new CrawlConfig();
+		config.setResumableCrawling(true);
+		config.setAsyncCheckpointing(true);
+		config.setCheckpointIntervalMillis(0);
+		config.setCheckpointMutationThreshold(10);
+
+		Checkpointer checkpointer = new Checkpointer(config);
+		Counters counters = new Counters(folder, config, checkpointer);
+		checkpointer.register(counters);
+		checkpointer.start();
+		for (int i = 0; i < 10; i++) {
+			counters.increment("Test");
+		}
+
+		CrawlConfig readerConfig = new CrawlConfig();
+		readerConfig.setResumableCrawling(true);
+		long deadline = System.currentTimeMillis() + 5000;
+		long persisted = 0;
+		while (persisted != 10 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+			persisted = new Counters(folder, readerConfig).getValue("Test");
+		}
+		assertEquals(10, persisted);
+		checkpointer.close();
+	}
+}
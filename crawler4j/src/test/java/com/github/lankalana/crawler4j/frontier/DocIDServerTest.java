@@ -0,0 +1,350 @@
+package com.github.lankalana.crawler4j.frontier;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.url.WebURL;
+
+public class DocIDServerTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void testDocIdsSurviveRestart() throws Exception {
+		File folder = temp.getRoot();
+		CrawlConfig config = new CrawlConfig();
+		config.setResumableCrawling(true);
+
+		DocIDServer server = new DocIDServer(folder, config);
+		assertEquals(1, server.getNewDocID("http://www.example.com/"));
+		assertEquals(2, server.getNewDocID("http://www.example.com/café"));
+		assertEquals(1, server.getNewDocID("http://www.example.com/"));
+		server.addUrlAndDocId("http://www.example.com/added", 10);
+		server.close();
+
+		server = new DocIDServer(folder, config);
+		assertEquals(3, server.getDocCount());
+		assertEquals(1, server.getDocId("http://www.example.com/"));
+		assertEquals(2, server.getDocId("http://www.example.com/café"));
+		assertEquals(-1, server.getDocId("http://www.example.com/cafe"));
+		assertEquals(11, server.getNewDocID("http://www.example.com/new"));
+		server.close();
+	}
+
+	@Test
+	public void testIndexGrowsBeyondInitialCapacity() throws Exception {
+		CrawlConfig config = new CrawlConfig();
+		config.setResumableCrawling(true);
+
+		DocIDServer server = new DocIDServer(temp.getRoot(), config);
+		int count = 200_000;
+		for (int i = 1; i <= count; i++) {
+			assertEquals(i, server.getNewDocID("http://www.example.com/page/" + i));
+		}
+		assertEquals(count, server.getDocCount());
+		for (int i = 1; i <= count; i++) {
+			assertEquals(i, server.getDocId("http://www.example.com/page/" + i));
+		}
+		assertTrue(server.isSeenBefore("http://www.example.com/page/1"));
+		assertFalse(server.isSeenBefore("http://www.example.com/page/0"));
+		server.close();
+	}
+
+	@Test
+	public void testBatchesAssignDocIdsLikeSingleCalls() throws Exception {
+		CrawlConfig config = new CrawlConfig();
+		config.setResumableCrawling(true);
+
+		DocIDServer server = new DocIDServer(temp.getRoot(), config);
+		assertEquals(1, server.getNewDocID("http://www.example.com/b"));
+		assertArrayEquals(
+				new int[] {-1, 1, -1},
+				server.getDocIds(Arrays.asList(
+						"http://www.example.com/a", "http://www.example.com/b", "http://www.example.com/c")));
+		assertArrayEquals(
+				new int[] {2, -1, 3, -1},
+				server.assignNewDocIDs(Arrays.asList(
+						"http://www.example.com/a",
+						"http://www.example.com/b",
+						"http://www.example.com/c",
+						"http://www.example.com/a")));
+		assertArrayEquals(new int[0], server.assignNewDocIDs(Arrays.asList()));
+		assertEquals(3, server.getDocCount());
+		assertEquals(4, server.getNewDocID("http://www.example.com/d"));
+		server.close();
+	}
+
+	@Test
+	public void testOnlyNewlyAssignedDocIdsAreReported() throws Exception {
+		for (CrawlConfig config : new CrawlConfig[] {new CrawlConfig(), resumableConfig()}) {
+			DocIDServer server = new DocIDServer(temp.newFolder(), config);
+			assertEquals(1, server.assignNewDocID("http://www.example.com/b"));
+			assertEquals(-1, server.assignNewDocID("http://www.example.com/b"));
+			assertArrayEquals(
+					new int[] {2, -1, 3, -1},
+					server.assignNewDocIDs(Arrays.asList(
+							"http://www.example.com/a",
+							"http://www.example.com/b",
+							"http://www.example.com/c",
+							"http://www.example.com/a")));
+			assertEquals(3, server.getNewDocID("http://www.example.com/c"));
+			server.close();
+		}
+	}
+
+	@Test
+	public void testConcurrentThreadsAssignEachDocIdOnce() throws Exception {
+		DocIDServer server = new DocIDServer(temp.getRoot(), new CrawlConfig());
+		int urlCount = 20_000;
+		int threadCount = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		List<Future<int[]>> results = new ArrayList<>();
+		for (int t = 0; t < threadCount; t++) {
+			results.add(executor.submit(() -> {
+				int[] docIds = new int[urlCount];
+				for (int i = 0; i < urlCount; i++) {
+					docIds[i] = server.getNewDocID("http://www.example.com/page/" + i);
+				}
+				return docIds;
+			}));
+		}
+		int[] expected = results.get(0).get();
+		for (Future<int[]> result : results) {
+			assertArrayEquals(expected, result.get());
+		}
+		executor.shutdown();
+
+		Set<Integer> distinct = new HashSet<>();
+		for (int docId : expected) {
+			assertTrue(docId >= 1 && docId <= urlCount);
+			distinct.add(docId);
+		}
+		assertEquals(urlCount, distinct.size());
+		assertEquals(urlCount, server.getDocCount());
+		assertEquals(expected[42], server.getDocId("http://www.example.com/page/42"));
+
+		server.addUrlAndDocId("http://www.example.com/added", urlCount + 10);
+		assertEquals(urlCount + 11, server.getNewDocID("http://www.example.com/new"));
+		server.close();
+	}
+
+	@Test
+	public void testFingerprintedUrlsAreSeenLikeWholeUrls() throws Exception {
+		CrawlConfig config = new CrawlConfig();
+		config.setFingerprintSeenUrls(true);
+
+		DocIDServer server = new DocIDServer(temp.getRoot(), config);
+		assertEquals(1, server.getNewDocID("http://www.example.com/"));
+		assertEquals(2, server.getNewDocID("http://www.example.com/café"));
+		assertEquals(1, server.getNewDocID("http://www.example.com/"));
+		assertEquals(-1, server.getDocId("http://www.example.com/cafe"));
+		server.addUrlAndDocId("http://www.example.com/added", 10);
+		assertEquals(10, server.getDocId("http://www.example.com/added"));
+		assertEquals(3, server.getDocCount());
+		server.close();
+	}
+
+	@Test
+	public void testFingerprintsTake16To32BytesPerUrl() {
+		FingerprintDocIdIndex index = new FingerprintDocIdIndex();
+		int count = 1_000_000;
+		for (int i = 1; i <= count; i++) {
+			index.put("http://www.example.com/page/" + i, i);
+		}
+		assertEquals(count, index.size());
+		assertEquals(count, index.getMaxDocId());
+		assertEquals(4242, index.get("http://www.example.com/page/4242"));
+		long bytes = index.getMemoryUsage();
+		assertTrue(bytes >= 16L * count && bytes <= 32L * count);
+	}
+
+	/**
+	 * Compares the heap taken per URL by the whole-URL and the fingerprint index, measured after GC. Run it on its own,
+	 * e.g. with -Xmx2g, since other allocations in the JVM skew the figures.
+	 */
+	@Ignore("Benchmark")
+	@Test
+	public void benchmarkHeapPerUrl() throws Exception {
+		int count = 2_000_000;
+		long stripedBytes = measureHeap(new StripedDocIdIndex(), count);
+		long fingerprintBytes = measureHeap(new FingerprintDocIdIndex(), count);
+		System.out.printf("%d URLs: whole URLs %d bytes/URL, fingerprints %d bytes/URL%n",
+				count, stripedBytes / count, fingerprintBytes / count);
+		assertTrue(fingerprintBytes < stripedBytes);
+	}
+
+	/** @return the bytes of heap {@code index} takes once it holds {@code count} URLs of about 60 characters */
+	private static long measureHeap(ConcurrentDocIdIndex index, int count) throws InterruptedException {
+		long before = usedHeapAfterGc();
+		for (int i = 1; i <= count; i++) {
+			index.put("http://www.example.com/some/section/of/the/site/page-" + i + ".html", i);
+		}
+		long after = usedHeapAfterGc();
+		assertEquals(count, index.size());
+		return after - before;
+	}
+
+	private static long usedHeapAfterGc() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(100);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	@Test
+	public void testSeenUrlFilterIsRebuiltOnResume() throws Exception {
+		File folder = temp.getRoot();
+		CrawlConfig config = new CrawlConfig();
+		config.setResumableCrawling(true);
+		config.setSeenUrlFilterExpectedUrls(10_000);
+
+		DocIDServer server = new DocIDServer(folder, config);
+		for (int i = 1; i <= 1000; i++) {
+			assertEquals(i, server.getNewDocID("http://www.example.com/page/" + i));
+		}
+		server.close();
+
+		server = new DocIDServer(folder, config);
+		for (int i = 1; i <= 1000; i++) {
+			assertEquals(i, server.getDocId("http://www.example.com/page/" + i));
+		}
+		for (int i = 1; i <= 10_000; i++) {
+			assertFalse(server.isSeenBefore("http://www.example.com/other/" + i));
+		}
+		assertTrue(server.getSeenUrlFilterFalsePositiveRate() < 0.01);
+		server.close();
+	}
+
+	@Test
+	public void testBatchesReleaseOnlyNewUrlsAcrossRestarts() throws Exception {
+		File folder = temp.getRoot();
+		CrawlConfig config = new CrawlConfig();
+		config.setResumableCrawling(true);
+		config.setSeenUrlBatchSize(4);
+
+		List<WebURL> released = new ArrayList<>();
+		DocIDServer server = new DocIDServer(folder, config);
+		server.setNewUrlsConsumer(released::addAll);
+		assertTrue(server.isBatchingSeenUrls());
+		assertEquals(1, server.getNewDocID("http://www.example.com/seed"));
+
+		server.submitUrls(webUrls("http://www.example.com/a", "http://www.example.com/seed"));
+		assertEquals(3, server.getNumberOfSubmittedUrls());
+		assertTrue(released.isEmpty());
+		server.submitUrls(webUrls("http://www.example.com/b", "http://www.example.com/a"));
+		assertEquals(Arrays.asList("http://www.example.com/a", "http://www.example.com/b"), urlsOf(released));
+		assertEquals(2, released.get(0).getDocid());
+		assertEquals(3, released.get(1).getDocid());
+
+		released.clear();
+		server.submitUrls(webUrls("http://www.example.com/b", "http://www.example.com/c"));
+		assertEquals(1, server.flushSubmittedUrls());
+		assertEquals(Arrays.asList("http://www.example.com/c"), urlsOf(released));
+		assertEquals(0, server.getNumberOfSubmittedUrls());
+		server.close();
+
+		released.clear();
+		server = new DocIDServer(folder, config);
+		server.setNewUrlsConsumer(released::addAll);
+		server.submitUrls(webUrls("http://www.example.com/a", "http://www.example.com/c", "http://www.example.com/d"));
+		assertEquals(1, server.flushSubmittedUrls());
+		assertEquals(Arrays.asList("http://www.example.com/d"), urlsOf(released));
+		assertEquals(5, released.get(0).getDocid());
+		server.close();
+	}
+
+	@Test
+	public void testBatchedUrlsAreSeenBeforeTheirDocIdsAreIndexed() throws Exception {
+		File folder = temp.getRoot();
+		CrawlConfig config = resumableConfig();
+		config.setSeenUrlBatchSize(2);
+
+		List<WebURL> released = new ArrayList<>();
+		DocIDServer server = new DocIDServer(folder, config);
+		server.setNewUrlsConsumer(released::addAll);
+		server.submitUrls(webUrls("http://www.example.com/a"));
+		assertTrue(server.isSeenBefore("http://www.example.com/a"));
+		assertTrue(server.isRecentlySeen("http://www.example.com/a"));
+		server.submitUrls(webUrls("http://www.example.com/b"));
+		assertEquals(2, released.size());
+		assertEquals(-1, server.getDocId("http://www.example.com/b"));
+		assertTrue(server.isSeenBefore("http://www.example.com/b"));
+		assertFalse(server.isSeenBefore("http://www.example.com/c"));
+		assertFalse(server.isRecentlySeen("http://www.example.com/c"));
+		server.close();
+
+		server = new DocIDServer(folder, config);
+		assertFalse(server.isRecentlySeen("http://www.example.com/a"));
+		assertTrue(server.isSeenBefore("http://www.example.com/a"));
+		assertTrue(server.isSeenBefore("http://www.example.com/b"));
+		assertFalse(server.isSeenBefore("http://www.example.com/c"));
+		server.close();
+	}
+
+	@Test
+	public void testSeenUrlsAreKeptOnlyOnceTheReleasedUrlsAreTaken() throws Exception {
+		File folder = temp.getRoot();
+		CrawlConfig config = resumableConfig();
+		config.setSeenUrlBatchSize(1);
+
+		DocIDServer server = new DocIDServer(folder, config);
+		server.setNewUrlsConsumer(urls -> {
+			throw new IllegalStateException("Crashed before scheduling " + urls);
+		});
+		// The error is logged, as halting on errors is not configured
+		server.submitUrls(webUrls("http://www.example.com/a"));
+		server.close();
+
+		List<WebURL> released = new ArrayList<>();
+		server = new DocIDServer(folder, config);
+		server.setNewUrlsConsumer(released::addAll);
+		server.submitUrls(webUrls("http://www.example.com/a"));
+		assertEquals(Arrays.asList("http://www.example.com/a"), urlsOf(released));
+		server.close();
+	}
+
+	private static CrawlConfig resumableConfig() {
+		CrawlConfig config = new CrawlConfig();
+		config.setResumableCrawling(true);
+		return config;
+	}
+
+	private static List<WebURL> webUrls(String... urls) {
+		List<WebURL> webUrls = new ArrayList<>();
+		for (String url : urls) {
+			WebURL webUrl = new WebURL();
+			webUrl.setURL(url);
+			webUrls.add(webUrl);
+		}
+		return webUrls;
+	}
+
+	private static List<String> urlsOf(List<WebURL> webUrls) {
+		List<String> urls = new ArrayList<>();
+		for (WebURL webUrl : webUrls) {
+			urls.add(webUrl.getURL());
+		}
+		return urls;
+	}
+}
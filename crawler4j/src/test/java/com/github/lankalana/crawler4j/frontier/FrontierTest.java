@@ -0,0 +1,58 @@
+package com.github.lankalana.crawler4j.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.url.WebURL;
+
+public class FrontierTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void testWaitingVirtualThreadsAreWokenUp() throws Exception {
+		Frontier frontier = new Frontier(temp.getRoot(), new CrawlConfig());
+		int crawlers = 1000;
+		AtomicInteger fetched = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(crawlers);
+		for (int i = 0; i < crawlers; i++) {
+			Thread.ofVirtual().start(() -> {
+				List<WebURL> urls = new ArrayList<>();
+				frontier.getNextURLs(1, urls);
+				fetched.addAndGet(urls.size());
+				done.countDown();
+			});
+		}
+
+		List<WebURL> urls = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			WebURL url = new WebURL();
+			url.setURL("http://www.example.com/" + i);
+			url.setDocid(i + 1);
+			urls.add(url);
+		}
+		frontier.scheduleAll(urls);
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (fetched.get() < 10 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(10, fetched.get());
+
+		frontier.finish();
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(10, fetched.get());
+		frontier.close();
+	}
+}
@@ -0,0 +1,103 @@
+package com.github.lankalana.crawler4j.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.url.WebURL;
+
+public class HostQueuesTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void testOnlyReadyHostsAreReturned() throws Exception {
+		CrawlConfig config = new CrawlConfig();
+		config.setPolitenessDelay(10_000);
+		HostQueues queues = new HostQueues(temp.getRoot(), "Queue", config, null);
+		queues.put(newUrl("http://a.example.com/1", 1));
+		queues.put(newUrl("http://a.example.com/2", 2));
+		queues.put(newUrl("http://a.example.com/3", 3));
+		queues.put(newUrl("http://b.example.com/1", 4));
+
+		List<WebURL> urls = queues.poll(10);
+		assertEquals(2, urls.size());
+		assertEquals("http://a.example.com/1", urls.get(0).getURL());
+		assertEquals("http://b.example.com/1", urls.get(1).getURL());
+		assertEquals(2, queues.getLength());
+
+		assertTrue(queues.poll(10).isEmpty());
+		assertTrue(queues.getDelayUntilReady() > 9000);
+	}
+
+	@Test
+	public void testHostsAreServedRoundRobin() throws Exception {
+		CrawlConfig config = new CrawlConfig();
+		config.setPolitenessDelay(0);
+		HostQueues queues = new HostQueues(temp.getRoot(), "Queue", config, null);
+		queues.put(newUrl("http://a.example.com/1", 1));
+		queues.put(newUrl("http://a.example.com/2", 2));
+		queues.put(newUrl("http://a.example.com/3", 3));
+		queues.put(newUrl("http://b.example.com/1", 4));
+		queues.put(newUrl("http://b.example.com/2", 5));
+
+		List<WebURL> urls = queues.poll(4);
+		assertEquals(4, urls.size());
+		assertEquals("http://a.example.com/1", urls.get(0).getURL());
+		assertEquals("http://b.example.com/1", urls.get(1).getURL());
+		assertEquals("http://a.example.com/2", urls.get(2).getURL());
+		assertEquals("http://b.example.com/2", urls.get(3).getURL());
+		assertEquals(1, queues.poll(4).size());
+		assertEquals(-1, queues.getDelayUntilReady());
+	}
+
+	@Test
+	public void testQueuesAreRebuiltOnResume() throws Exception {
+		CrawlConfig config = new CrawlConfig();
+		config.setResumableCrawling(true);
+		config.setPolitenessDelay(0);
+		HostQueues queues = new HostQueues(temp.getRoot(), "Queue", config, null);
+		queues.put(newUrl("http://a.example.com/1", 1));
+		queues.put(newUrl("http://b.example.com/1", 2));
+		queues.close();
+
+		queues = new HostQueues(temp.getRoot(), "Queue", config, null);
+		assertEquals(2, queues.poll(10).size());
+		queues.close();
+
+		queues = new HostQueues(temp.getRoot(), "Queue", config, null);
+		assertEquals(0, queues.getLength());
+		queues.close();
+	}
+
+	@Test
+	public void testDeletedHostsAreNoLongerServed() throws Exception {
+		CrawlConfig config = new CrawlConfig();
+		config.setPolitenessDelay(0);
+		HostQueues queues = new HostQueues(temp.getRoot(), "Queue", config, null);
+		queues.put(newUrl("http://a.example.com/1", 1));
+		queues.put(newUrl("http://b.example.com/1", 2));
+		queues.put(newUrl("http://b.example.com/2", 3));
+
+		queues.delete(1);
+		List<WebURL> urls = queues.poll(10);
+		assertEquals(2, urls.size());
+		assertEquals("http://b.example.com/1", urls.get(0).getURL());
+		assertEquals("http://b.example.com/2", urls.get(1).getURL());
+		assertEquals(-1, queues.getDelayUntilReady());
+	}
+
+	private static WebURL newUrl(String url, int docId) {
+		WebURL webUrl = new WebURL();
+		webUrl.setURL(url);
+		webUrl.setDocid(docId);
+		return webUrl;
+	}
+}
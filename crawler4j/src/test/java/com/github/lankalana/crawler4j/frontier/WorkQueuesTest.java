@@ -0,0 +1,103 @@
+package com.github.lankalana.crawler4j.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.lankalana.crawler4j.url.WebURL;
+
+public class WorkQueuesTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void testQueueIsReplayedAfterReopen() throws Exception {
+		File folder = temp.getRoot();
+		WorkQueues queues = new WorkQueues(folder, "Queue", true);
+		for (int i = 1; i <= 10; i++) {
+			queues.put(newUrl(i));
+		}
+		queues.delete(3);
+		queues.close();
+
+		queues = new WorkQueues(folder, "Queue", true);
+		assertEquals(7, queues.getLength());
+		List<WebURL> urls = queues.get(1);
+		assertEquals("http://www.example.com/4", urls.get(0).getURL());
+		queues.close();
+	}
+
+	@Test
+	public void testRemovedUrlsStayRemoved() throws Exception {
+		File folder = temp.getRoot();
+		InProcessPagesDB pages = new InProcessPagesDB(folder);
+		WebURL url = newUrl(1);
+		pages.put(url);
+		pages.put(newUrl(2));
+		assertTrue(pages.removeURL(url));
+		pages.close();
+
+		pages = new InProcessPagesDB(folder);
+		assertEquals(1, pages.getLength());
+		pages.close();
+	}
+
+	@Test
+	public void testCompactionKeepsLiveEntries() throws Exception {
+		File folder = temp.getRoot();
+		WorkQueues queues = new WorkQueues(folder, "Queue", true);
+		for (int i = 1; i <= 30_000; i++) {
+			queues.put(newUrl(i));
+			if (i % 2 == 0) {
+				queues.delete(1);
+			}
+		}
+		queues.close();
+		File log = new File(folder, "Queue.log");
+		long compactedSize = log.length();
+
+		queues = new WorkQueues(folder, "Queue", true);
+		assertEquals(15_000, queues.getLength());
+		assertEquals("http://www.example.com/15001", queues.get(1).get(0).getURL());
+		queues.close();
+		assertTrue(compactedSize < 30_000 * 40);
+	}
+
+	@Test
+	public void testTornRecordIsDiscarded() throws Exception {
+		File folder = temp.getRoot();
+		WorkQueues queues = new WorkQueues(folder, "Queue", true);
+		queues.put(newUrl(1));
+		queues.put(newUrl(2));
+		queues.close();
+
+		File log = new File(folder, "Queue.log");
+		try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+			file.setLength(file.length() - 3);
+		}
+
+		queues = new WorkQueues(folder, "Queue", true);
+		assertEquals(1, queues.getLength());
+		queues.put(newUrl(3));
+		queues.close();
+
+		queues = new WorkQueues(folder, "Queue", true);
+		assertEquals(2, queues.getLength());
+		queues.close();
+	}
+
+	private static WebURL newUrl(int docId) {
+		WebURL url = new WebURL();
+		url.setURL("http://www.example.com/" + docId);
+		url.setDocid(docId);
+		return url;
+	}
+}
@@ -1,6 +1,11 @@
 package com.github.lankalana.crawler4j.parser;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertNotNull;
+
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.FileEntity;
@@ -25,4 +30,25 @@ public class HtmlParserTest {
 
 		parser.parse(page, url.getURL());
 	}
+
+	@Test
+	public void testTextAndHtmlAreComputedOnFirstRead() throws Exception {
+		JsoupHtmlParser parser = new JsoupHtmlParser(new CrawlConfig());
+		WebURL url = new WebURL();
+		url.setURL("http://wiki.c2.com/");
+		File file = new File("src/test/resources/html/wiki.c2.com.html");
+		ContentType contentType = ContentType.create("text/html", StandardCharsets.UTF_8);
+		Page page = new Page(url);
+		page.load(new FileEntity(file, contentType), 1_000_000);
+
+		HtmlParseData parseData = parser.parse(page, url.getURL());
+
+		String html = parseData.getHtml();
+		assertEquals(new String(page.getContentData(), StandardCharsets.UTF_8), html);
+		assertSame(html, parseData.getHtml());
+		String text = parseData.getText();
+		assertNotNull(text);
+		assertSame(text, parseData.getText());
+		assertEquals("width=device-width, initial-scale=1.0", parseData.getMetaTagValue("viewport"));
+	}
 }
@@ -0,0 +1,95 @@
+package com.github.lankalana.crawler4j.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.FileEntity;
+import org.apache.http.entity.StringEntity;
+import org.junit.Test;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.crawler.Page;
+import com.github.lankalana.crawler4j.url.WebURL;
+
+public class StreamingHtmlParserTest {
+
+	private static final String HTML = "<!DOCTYPE html>\n"
+			+ "<html><head>\n"
+			+ "<title>Links &amp; more</title>\n"
+			+ "<meta http-equiv=\"refresh\" content=\"5; url=/refreshed.html\">\n"
+			+ "<meta name=\"ROBOTS\" content=\"noindex\">\n"
+			+ "<base href=\"http://www.example.com/base/\">\n"
+			+ "<link rel=stylesheet href=\"style.css\">\n"
+			+ "<script src=\"app.js\">if (a < b) { document.write('<a href=\"fake.html\">'); }</script>\n"
+			+ "</head>\n"
+			+ "<body>\n"
+			+ "<!-- <a href=\"commented.html\">commented</a> -->\n"
+			+ "<p>Some <b>bold</b> text</p>\n"
+			+ "<a href=\"page.html?x=1&amp;y=2\" title=\"Page\">Go   to\n page</a>\n"
+			+ "<a href='image.html'><img src=\"image.png\" alt=\"An image\"></a>\n"
+			+ "<A HREF=\"/upper.html\" TITLE=\"Upper\"></A>\n"
+			+ "<area href=\"area.html\" alt=\"Area\">\n"
+			+ "<iframe src=\"frame.html\"></iframe>\n"
+			+ "<a href=\"mailto:someone@example.com\">mail</a>\n"
+			+ "<a href=\"javascript:void(0)\">script</a>\n"
+			+ "<a name=\"anchor-without-href\">nothing</a>\n"
+			+ "</body></html>";
+
+	@Test
+	public void testFindsTheSameLinksAsJsoup() throws Exception {
+		assertSameAsJsoup(newPage("http://www.example.com/index.html", HTML));
+	}
+
+	@Test
+	public void testFindsTheSameLinksAsJsoupOnARealPage() throws Exception {
+		WebURL url = new WebURL();
+		url.setURL("http://wiki.c2.com/");
+		File file = new File("src/test/resources/html/wiki.c2.com.html");
+		Page page = new Page(url);
+		page.load(new FileEntity(file, ContentType.create("text/html", StandardCharsets.UTF_8)), 1_000_000);
+
+		assertSameAsJsoup(page);
+	}
+
+	@Test
+	public void testExtractsTitleTextAndMetaTags() throws Exception {
+		Page page = newPage("http://www.example.com/index.html", HTML);
+		HtmlParseData parseData = new StreamingHtmlParser(new CrawlConfig()).parse(page, page.getWebURL().getURL());
+
+		assertEquals("Links & more", parseData.getTitle());
+		assertEquals("noindex", parseData.getMetaTagValue("robots"));
+		assertEquals("Some bold text Go to page mail script nothing", parseData.getText());
+	}
+
+	private static void assertSameAsJsoup(Page page) throws Exception {
+		CrawlConfig config = new CrawlConfig();
+		HtmlParseData expected = new JsoupHtmlParser(config).parse(page, page.getWebURL().getURL());
+		HtmlParseData actual = new StreamingHtmlParser(config).parse(page, page.getWebURL().getURL());
+
+		assertEquals(expected.getTitle(), actual.getTitle());
+		assertEquals(expected.getMetaTags(), actual.getMetaTags());
+		assertEquals(describe(expected.getOutgoingUrls()), describe(actual.getOutgoingUrls()));
+	}
+
+	private static Map<String, String> describe(Set<WebURL> urls) {
+		Map<String, String> described = new HashMap<>();
+		for (WebURL url : urls) {
+			described.put(url.getURL(), url.getTag() + " " + url.getAnchor() + " " + url.getAttributes());
+		}
+		return described;
+	}
+
+	private static Page newPage(String url, String html) throws Exception {
+		WebURL webUrl = new WebURL();
+		webUrl.setURL(url);
+		Page page = new Page(webUrl);
+		page.load(new StringEntity(html, ContentType.create("text/html", StandardCharsets.UTF_8)), 1_000_000);
+		return page;
+	}
+}
@@ -0,0 +1,59 @@
+package com.github.lankalana.crawler4j.robotstxt;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PathRuleMatcherTest {
+
+	private static final String[] PATTERNS = {
+		"", "/", "*", "$", "/private", "/private/", "/*.php", "/*.php$", "/fish*", "/fish*.php", "/a/*/c", "/*/b$",
+		"/page$", "/\\*literal", "/end\\$", "/*?", "/%E2%82%AC"
+	};
+
+	private static final String[] PATHS = {
+		"", "/", "/private", "/private/x", "/privateer", "/index.php", "/index.php?x=1", "/fish", "/fish.php",
+		"/fishheads/catfish.php", "/a/b/c", "/a//c", "/x/b", "/page", "/page/", "/*literal", "/end$", "/q?", "/?",
+		"/%E2%82%AC/"
+	};
+
+	@Test
+	public void testSingleRulesMatchLikeTheirRegexp() {
+		for (String pattern : PATTERNS) {
+			PathRuleMatcher matcher = new PathRuleMatcher();
+			matcher.add(HostDirectives.DISALLOWED, pattern);
+			for (String path : PATHS) {
+				int expected = PathRule.matchesRobotsPattern(pattern, path)
+						? HostDirectives.DISALLOWED
+						: HostDirectives.UNDEFINED;
+				assertEquals("'" + pattern + "' on '" + path + "'", expected, matcher.checkAccess(path));
+			}
+		}
+	}
+
+	@Test
+	public void testLongestMatchWins() {
+		PathRuleMatcher matcher = new PathRuleMatcher();
+		matcher.add(HostDirectives.DISALLOWED, "/");
+		matcher.add(HostDirectives.ALLOWED, "/public");
+		matcher.add(HostDirectives.DISALLOWED, "/public/*.pdf");
+		matcher.add(HostDirectives.ALLOWED, "/public/*/open.pdf");
+
+		assertEquals(HostDirectives.DISALLOWED, matcher.checkAccess("/index.html"));
+		assertEquals(HostDirectives.ALLOWED, matcher.checkAccess("/public/index.html"));
+		assertEquals(HostDirectives.DISALLOWED, matcher.checkAccess("/public/report.pdf"));
+		assertEquals(HostDirectives.ALLOWED, matcher.checkAccess("/public/2020/open.pdf"));
+	}
+
+	@Test
+	public void testAllowWinsTies() {
+		PathRuleMatcher matcher = new PathRuleMatcher();
+		matcher.add(HostDirectives.DISALLOWED, "/page");
+		matcher.add(HostDirectives.ALLOWED, "/page");
+		matcher.add(HostDirectives.DISALLOWED, "/*.gif");
+		matcher.add(HostDirectives.ALLOWED, "/*.gi*");
+
+		assertEquals(HostDirectives.ALLOWED, matcher.checkAccess("/page.html"));
+		assertEquals(HostDirectives.ALLOWED, matcher.checkAccess("/image.gif"));
+	}
+}
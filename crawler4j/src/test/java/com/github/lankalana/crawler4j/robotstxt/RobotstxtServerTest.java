@@ -0,0 +1,189 @@
+package com.github.lankalana.crawler4j.robotstxt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.lankalana.crawler4j.crawler.CrawlConfig;
+import com.github.lankalana.crawler4j.fetcher.PageFetchResult;
+import com.github.lankalana.crawler4j.fetcher.PageFetcher;
+import com.github.lankalana.crawler4j.frontier.Frontier;
+import com.github.lankalana.crawler4j.url.WebURL;
+
+public class RobotstxtServerTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void testConcurrentLookupsShareOneFetch() throws Exception {
+		CountingPageFetcher pageFetcher = new CountingPageFetcher(new CrawlConfig());
+		RobotstxtServer robotstxtServer = new RobotstxtServer(new RobotstxtConfig(), pageFetcher);
+
+		int threads = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> lookups = new ArrayList<>();
+		AtomicInteger allowed = new AtomicInteger();
+		for (int i = 0; i < threads; i++) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					if (robotstxtServer.allows(newUrl("http://www.example.com/public/page.html"))) {
+						allowed.incrementAndGet();
+					}
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			});
+			thread.start();
+			lookups.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : lookups) {
+			thread.join();
+		}
+
+		assertEquals(threads, allowed.get());
+		assertEquals(1, pageFetcher.fetches.get());
+		assertFalse(robotstxtServer.allows(newUrl("http://www.example.com/private/page.html")));
+		assertEquals(1, pageFetcher.fetches.get());
+		pageFetcher.shutDown();
+	}
+
+	@Test
+	public void testRobotsAreFetchedInTheBackground() throws Exception {
+		CountingPageFetcher pageFetcher = new CountingPageFetcher(new CrawlConfig());
+		RobotstxtConfig config = new RobotstxtConfig();
+		config.setPrefetchThreads(2);
+		RobotstxtServer robotstxtServer = new RobotstxtServer(config, pageFetcher);
+		try {
+			CompletableFuture<Boolean> publicPage =
+					robotstxtServer.allowsAsync(newUrl("http://www.example.com/public/page.html"));
+			CompletableFuture<Boolean> privatePage =
+					robotstxtServer.allowsAsync(newUrl("http://www.example.com/private/page.html"));
+			assertFalse(publicPage.isDone());
+			assertEquals(1, robotstxtServer.getNumberOfPendingFetches());
+
+			assertTrue(publicPage.get());
+			assertFalse(privatePage.get());
+			assertEquals(1, pageFetcher.fetches.get());
+
+			// Known hosts are answered right away
+			assertTrue(robotstxtServer
+					.allowsAsync(newUrl("http://www.example.com/other.html"))
+					.isDone());
+		} finally {
+			robotstxtServer.shutDown();
+			pageFetcher.shutDown();
+		}
+	}
+
+	@Test
+	public void testLeastRecentlyUsedHostIsEvicted() {
+		RobotstxtConfig config = new RobotstxtConfig();
+		HostDirectivesCache cache = new HostDirectivesCache(2);
+		cache.put("a.example.com", new HostDirectives(config));
+		cache.put("b.example.com", new HostDirectives(config));
+		assertNotNull(cache.get("a.example.com"));
+		cache.put("c.example.com", new HostDirectives(config));
+
+		assertEquals(2, cache.size());
+		assertNotNull(cache.get("a.example.com"));
+		assertNull(cache.get("b.example.com"));
+		assertNotNull(cache.get("c.example.com"));
+
+		Map<String, HostDirectives> map = cache.asMap();
+		assertEquals(2, map.size());
+		assertTrue(map.containsKey("a.example.com"));
+		assertNotNull(map.remove("a.example.com"));
+		assertNull(cache.get("a.example.com"));
+		assertEquals(Collections.singleton("c.example.com"), map.keySet());
+	}
+
+	@Test
+	public void testRobotsAreKeptForResumedCrawls() throws Exception {
+		CountingPageFetcher pageFetcher = new CountingPageFetcher(new CrawlConfig());
+		RobotstxtServer robotstxtServer = new RobotstxtServer(new RobotstxtConfig(), pageFetcher);
+		robotstxtServer.setStorageFolder(temp.getRoot());
+		assertFalse(robotstxtServer.allows(newUrl("http://www.example.com/private/page.html")));
+		robotstxtServer.shutDown();
+
+		robotstxtServer = new RobotstxtServer(new RobotstxtConfig(), pageFetcher);
+		robotstxtServer.setStorageFolder(temp.getRoot());
+		assertFalse(robotstxtServer.allows(newUrl("http://www.example.com/private/page.html")));
+		assertTrue(robotstxtServer.allows(newUrl("http://www.example.com/public/page.html")));
+		assertEquals(1, pageFetcher.fetches.get());
+		robotstxtServer.shutDown();
+		pageFetcher.shutDown();
+	}
+
+	private static WebURL newUrl(String url) {
+		WebURL webUrl = new WebURL();
+		webUrl.setURL(url);
+		return webUrl;
+	}
+
+	@Test
+	public void testScheduledHostsArePrefetched() throws Exception {
+		CountingPageFetcher pageFetcher = new CountingPageFetcher(new CrawlConfig());
+		RobotstxtConfig config = new RobotstxtConfig();
+		config.setPrefetchThreads(2);
+		RobotstxtServer robotstxtServer = new RobotstxtServer(config, pageFetcher);
+		Frontier frontier = new Frontier(temp.newFolder(), new CrawlConfig());
+		frontier.setRobotstxtPrefetcher(robotstxtServer);
+		try {
+			WebURL first = newUrl("http://www.example.com/a.html");
+			first.setDocid(1);
+			WebURL second = newUrl("http://www.example.com/b.html");
+			second.setDocid(2);
+			frontier.scheduleAll(List.of(first, second));
+			assertEquals(1, robotstxtServer.getNumberOfPendingFetches());
+
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (!robotstxtServer.allowsAsync(first).isDone() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertTrue(robotstxtServer.allowsAsync(second).isDone());
+			assertEquals(1, pageFetcher.fetches.get());
+		} finally {
+			frontier.close();
+			robotstxtServer.shutDown();
+			pageFetcher.shutDown();
+		}
+	}
+
+	private static class CountingPageFetcher extends PageFetcher {
+		private final AtomicInteger fetches = new AtomicInteger();
+
+		CountingPageFetcher(CrawlConfig config) throws Exception {
+			super(config);
+		}
+
+		@Override
+		public PageFetchResult fetchPage(WebURL webUrl) throws InterruptedException {
+			fetches.incrementAndGet();
+			Thread.sleep(200);
+			PageFetchResult result = new PageFetchResult(false);
+			result.setStatusCode(200);
+			result.setFetchedUrl(webUrl.getURL());
+			result.setEntity(new StringEntity("User-agent: *\nDisallow: /private/\n", ContentType.TEXT_PLAIN));
+			return result;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.github.lankalana.crawler4j.url;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class BaseURLTest {
+
+	private static final String[] BASES = {
+		"http://www.example.com/dir/page.html?x=1",
+		"http://www.example.com",
+		"https://Example.COM:443/a/b/",
+		"http://example.com:8080?q=1",
+		"http://example.com/a;p/b",
+		"http://example.com/a//b/c.html",
+		"http://example.com/../a/page",
+		"http://example.com/a/b/c/d.html",
+		"http://example.com/page.html",
+		"http://ex.com/%7E/a?x",
+		"http://example.com/%7Euser/a%7e/%7E",
+		"http://example.com?u=/x",
+		"http://user@example.com/a/",
+		" http://example.com/x/y#frag ",
+		"",
+		null
+	};
+
+	private static final String[] AUTHORITIES = {
+		"example.com", "WWW.Example.com", "example.com:80", "example.com:8080", "example.com:443", "example.com:",
+		"user@example.com", "ex_ample.com", "[::1]", ""
+	};
+
+	private static final String[] PATHS = {
+		"", "/", "/a", "/a/b.html", "/a/", "//a", "/a//b", "/./a", "/a/../b", "/../a", "/..a", "/a/.", "/a/..",
+		"/a/b/../c", "/a/./b/", "/a/b/../../../c", "/a/../../", "/./../a", "/a/b/..", "/a/b/../..", "/a/../..x/b",
+		"/%7Euser/", "/%7euser", "/~user", "/a%zz", "/a%2F", "/a b", "/a;p", "/café", "/a\\b", "/a:b@c!$&'()*+,=",
+		"/a{b}"
+	};
+
+	private static final String[] QUERIES = {
+		null, "", "&", "a=1", "a=1&b=2&a=3", "b&a", "=x", "=", "x=&y", "jsessionid=1&x=2", "x=1&JSESSIONID=2",
+		"PhpSessId=3", "q=a+b", "q=a%2Bb", "q=a b", "c=foo/bar+baz", "x=%41%2f%7E*", "x=~*.-_", "w=100%&h=100%",
+		"x=%E2%82%AC", "x=洪", "x=　", "u=http://a/b?c", "a=1&&b=2&"
+	};
+
+	private static final String[] RELATIVES = {
+		"", "#top", "?q=1", "?", "page2.html", "sub/page.html", "./page.html", "../up.html", "..x/y", "/abs/path",
+		"/abs/../path", "//other.org/p?a=b", "//other.org", "a:b", "mailto:me", "HTTP://Other.ORG/P", "https://x.org",
+		"http:/x", "..", ".", "./", "../", "../../x/../y", "a/./b/../c", "a/..", "a/../..", "a//b", "../..x",
+		"x/../..y/z", "host~", "%7Ex/y", "  spaced.html  ", "page.html#frag", "dir/?a=1&a=2", "x;y", "café.html", "3.asp?DengJh=洪1"
+	};
+
+	@Test
+	public void testAbsoluteLinksAreCanonicalizedAsByTheGeneralCanonicalizer() throws Exception {
+		int fast = 0;
+		for (String scheme : new String[] {"http", "https", "HTTP", "ftp"}) {
+			for (String authority : AUTHORITIES) {
+				for (String path : PATHS) {
+					for (String query : QUERIES) {
+						String href = scheme + "://" + authority + path + ((query == null) ? "" : "?" + query);
+						fast += check(href, null, StandardCharsets.UTF_8);
+						fast += check(href + "#frag", "http://example.com/", StandardCharsets.UTF_8);
+					}
+				}
+			}
+		}
+		assertTrue(fast > 0);
+	}
+
+	@Test
+	public void testRelativeLinksAreCanonicalizedAsByTheGeneralCanonicalizer() throws Exception {
+		int fast = 0;
+		for (String base : BASES) {
+			for (String relative : RELATIVES) {
+				for (Charset charset : new Charset[] {StandardCharsets.UTF_8, Charset.forName("gb2312")}) {
+					fast += check(relative, base, charset);
+					for (String query : QUERIES) {
+						if (query != null) {
+							fast += check(relative + "?" + query, base, charset);
+						}
+					}
+				}
+			}
+		}
+		assertTrue(fast > 0);
+	}
+
+	@Test
+	public void testCommonLinksTakeTheFastPath() {
+		BaseURL base = new BaseURL("http://www.example.com/dir/page.html?x=1");
+		assertEquals(
+				"http://www.example.com/dir/other.html?b=2&a=1",
+				base.canonicalize("other.html?b=2&a=1#top", StandardCharsets.UTF_8));
+		assertEquals("http://www.example.com/dir/page.html?x=1", base.canonicalize("#top", StandardCharsets.UTF_8));
+		assertEquals("https://example.org/~me/", base.canonicalize("https://EXAMPLE.org:443/%7Eme/", null));
+		assertNotNull(base.canonicalize("/search?q=a+b", StandardCharsets.UTF_8));
+		assertEquals("http://ex.com/~/host~", new BaseURL("http://ex.com/%7E/a?x").canonicalize("host~", null));
+	}
+
+	/** @return 1 if the fast path canonicalized the link, 0 if it left it to the general canonicalizer */
+	private static int check(String href, String context, Charset charset) throws Exception {
+		String expected = URLCanonicalizer.resolveAndNormalize(href, context, charset);
+		String fast = new BaseURL(context).canonicalize(href, charset);
+		if (fast == null) {
+			return 0;
+		}
+		assertEquals("'" + href + "' against '" + context + "'", expected, fast);
+		return 1;
+	}
+}
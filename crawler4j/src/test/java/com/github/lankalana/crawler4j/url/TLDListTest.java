@@ -0,0 +1,71 @@
+package com.github.lankalana.crawler4j.url;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class TLDListTest {
+
+	private static final String LIST = "// A part of the public suffix list\n"
+			+ "com\n"
+			+ "uk\n"
+			+ "co.uk\n"
+			+ "*.ck\n"
+			+ "!www.ck\n"
+			+ "jp\n"
+			+ "*.kawasaki.jp\n"
+			+ "!city.kawasaki.jp\n"
+			+ "// ===BEGIN PRIVATE DOMAINS===\n"
+			+ "blogspot.com\n"
+			+ "公司.cn\n";
+
+	private final TLDList tldList;
+
+	public TLDListTest() throws Exception {
+		tldList = new TLDList(new ByteArrayInputStream(LIST.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testFindsTheRegisteredDomain() {
+		assertEquals("example.com", tldList.getRegisteredDomain("example.com"));
+		assertEquals("example.com", tldList.getRegisteredDomain("www.example.com"));
+		assertEquals("company.co.uk", tldList.getRegisteredDomain("www.my.company.co.uk"));
+		assertEquals("example.uk", tldList.getRegisteredDomain("a.example.uk"));
+		assertEquals("me.blogspot.com", tldList.getRegisteredDomain("www.me.blogspot.com"));
+		assertEquals("example.org", tldList.getRegisteredDomain("www.example.org"));
+		assertEquals("example.xn--55qx5d.cn", tldList.getRegisteredDomain("www.example.xn--55qx5d.cn"));
+	}
+
+	@Test
+	public void testAppliesWildcardAndExceptionRules() {
+		assertEquals("www.ck", tldList.getRegisteredDomain("www.ck"));
+		assertEquals("example.foo.ck", tldList.getRegisteredDomain("a.example.foo.ck"));
+		assertEquals("city.kawasaki.jp", tldList.getRegisteredDomain("www.city.kawasaki.jp"));
+		assertEquals("example.town.kawasaki.jp", tldList.getRegisteredDomain("example.town.kawasaki.jp"));
+	}
+
+	@Test
+	public void testPublicSuffixesAndAddressesAreTheirOwnDomain() {
+		assertEquals("co.uk", tldList.getRegisteredDomain("co.uk"));
+		assertEquals("foo.ck", tldList.getRegisteredDomain("foo.ck"));
+		assertEquals("localhost", tldList.getRegisteredDomain("localhost"));
+		assertEquals("192.168.1.10", tldList.getRegisteredDomain("192.168.1.10"));
+		assertEquals("[::1]", tldList.getRegisteredDomain("[::1]"));
+	}
+
+	@Test
+	public void testUrlsOfAHostShareTheirDomain() {
+		WebURL first = new WebURL();
+		first.setURL("http://www.my.company.co.uk/a");
+		WebURL second = new WebURL();
+		second.setURL("https://www.my.company.co.uk:8443/b?c=d");
+
+		assertEquals("company.co.uk", first.getDomain());
+		assertEquals("www.my", first.getSubDomain());
+		assertSame(first.getDomain(), second.getDomain());
+	}
+}
@@ -0,0 +1,50 @@
+package com.github.lankalana.crawler4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class BufferPoolTest {
+
+	@Test
+	public void testReusesBuffersOfTheSameSizeClass() {
+		BufferPool pool = new BufferPool(1_000_000, 1);
+		byte[] buffer = pool.borrow(5_000);
+		assertEquals(8_192, buffer.length);
+		pool.release(buffer);
+		assertSame(buffer, pool.borrow(6_000));
+		assertNotSame(buffer, pool.borrow(6_000));
+		assertEquals(BufferPool.MIN_BUFFER_SIZE, pool.borrow(1).length);
+	}
+
+	@Test
+	public void testKeepsABoundedNumberOfBuffers() {
+		BufferPool pool = new BufferPool(16_384, 1);
+		pool.release(pool.borrow(10_000));
+		pool.release(pool.borrow(10_000));
+		pool.release(new byte[16_384]);
+		assertEquals(1, pool.getFreeBuffers());
+
+		// Larger buffers and odd sizes are never pooled
+		byte[] large = pool.borrow(20_000);
+		assertEquals(20_000, large.length);
+		pool.release(large);
+		pool.release(new byte[5_000]);
+		assertEquals(1, pool.getFreeBuffers());
+	}
+
+	@Test
+	public void testBoundsTheFreeBuffersOfAllSizeClassesTogether() {
+		BufferPool pool = new BufferPool(1_000_000, 2);
+		pool.release(new byte[4_096]);
+		pool.release(new byte[65_536]);
+		pool.release(new byte[1_048_576]);
+		assertEquals(2, pool.getFreeBuffers());
+		pool.borrow(4_096);
+		assertEquals(1, pool.getFreeBuffers());
+		pool.release(new byte[1_048_576]);
+		assertEquals(2, pool.getFreeBuffers());
+	}
+}
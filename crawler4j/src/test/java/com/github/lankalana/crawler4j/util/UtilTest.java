@@ -1,6 +1,8 @@
 package com.github.lankalana.crawler4j.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -33,4 +35,22 @@ public class UtilTest {
 		assertFalse(Util.hasCssTextContent("text/html"));
 		assertFalse(Util.hasCssTextContent(null));
 	}
+
+	@Test
+	public void testSniffBinaryContentType() {
+		assertEquals("image/png", sniff(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}));
+		assertEquals("image/jpeg", sniff(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+		assertEquals("application/pdf", sniff("%PDF-1.7".getBytes()));
+		assertEquals("video/mp4", sniff(new byte[] {0, 0, 0, 0x20, 'f', 't', 'y', 'p'}));
+		assertNull(sniff("<!DOCTYPE html>".getBytes()));
+		assertNull(sniff("%PD".getBytes()));
+		assertNull(sniff(new byte[0]));
+	}
+
+	private static String sniff(byte[] content) {
+		byte[] head = new byte[Util.SNIFF_LENGTH];
+		int length = Math.min(content.length, head.length);
+		System.arraycopy(content, 0, head, 0, length);
+		return Util.sniffBinaryContentType(head, length);
+	}
 }